@@ -0,0 +1,86 @@
+/*
+ * AIBenchmark.java
+ *
+ * Benchmarks of enemy planning: path searches and sight checks.
+ *
+ * This is run by the jmh task in the benchmarks project.  It is never part of the
+ * game itself.
+ */
+package edu.cornell.gdiac.rekindled.benchmarks;
+
+import edu.cornell.gdiac.rekindled.AIController;
+import edu.cornell.gdiac.rekindled.GameplayController;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the AI hot paths, on real and synthetic levels.
+ *
+ * Every benchmark runs its query once for each enemy of the level, from where the
+ * enemies and the player spawn, so a result is the cost for the whole level.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AIBenchmark {
+	/** The level to measure */
+	@Param({"jsons/keys.json", "jsons/testlevel.json", "jsons/last.json", "synthetic-128", "synthetic-512"})
+	public String level;
+
+	/** The loaded level */
+	private GameplayController controller;
+	/** The controllers of the level */
+	private AIController[] controls;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		controller = BenchmarkLevels.load(level);
+		controls = controller.getControllers();
+		for (AIController control : controls) {
+			control.prepare();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkLevels.unload(controller);
+	}
+
+	/** Searches from each enemy to the nearest tile of its route */
+	@Benchmark
+	public void bfs(Blackhole hole) {
+		for (AIController control : controls) {
+			control.setReturnGoalTiles();
+			hole.consume(control.bfs());
+		}
+	}
+
+	/** Marks the tiles each enemy would chase the player to */
+	@Benchmark
+	public void chaseGoalTiles() {
+		for (AIController control : controls) {
+			control.setChaseGoalTiles();
+		}
+	}
+
+	/** Tests whether each enemy sees the player in its sight cone */
+	@Benchmark
+	public void hasLoS(Blackhole hole) {
+		for (AIController control : controls) {
+			hole.consume(control.hasLoS(false));
+		}
+	}
+
+	/** Tests whether each enemy sees the player in any direction */
+	@Benchmark
+	public void hasLoSNoConeCheck(Blackhole hole) {
+		for (AIController control : controls) {
+			hole.consume(control.hasLoSNoConeCheck());
+		}
+	}
+}
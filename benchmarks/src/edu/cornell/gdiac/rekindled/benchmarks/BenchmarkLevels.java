@@ -0,0 +1,261 @@
+/*
+ * BenchmarkLevels.java
+ *
+ * The benchmarks measure the game on real levels, so they need everything a level
+ * needs to load: the libGDX statics, the textures and the asset manager.  This class
+ * starts the headless backend once per JVM (with the no-op GL of the headless
+ * simulation) and loads levels through GameplayController, as the game does.
+ *
+ * It can also write synthetic levels much larger than any we ship, so that the
+ * benchmarks show how each hot path scales.
+ *
+ * This is only used by the benchmarks.  It is never part of the game itself.
+ */
+package edu.cornell.gdiac.rekindled.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGeneratorLoader;
+import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonWriter;
+import edu.cornell.gdiac.rekindled.GameCanvas;
+import edu.cornell.gdiac.rekindled.GameplayController;
+import edu.cornell.gdiac.rekindled.desktop.HeadlessGraphics;
+import edu.cornell.gdiac.util.TextureRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+/**
+ * Loads real and synthetic levels for the benchmarks.
+ *
+ * A level is named by its path (relative to the asset directory), as in
+ * GDXRoot.LEVELS, or as "synthetic-N" for a generated N x N level.  Each benchmark
+ * runs a few of the largest real levels and two synthetic ones by default; pass
+ * -p level=... to JMH for others.
+ */
+public class BenchmarkLevels {
+	/** The prefix of a synthetic level name */
+	public static final String SYNTHETIC = "synthetic-";
+
+	/** The share of tiles that are walls in a synthetic level */
+	private static final float WALL_DENSITY = 0.12f;
+	/** The share of tiles that are holes in a synthetic level */
+	private static final float HOLE_DENSITY = 0.01f;
+	/** The longest wall run in a synthetic level */
+	private static final int WALL_RUN = 8;
+	/** The tiles per light source in a synthetic level */
+	private static final int TILES_PER_LIGHT = 256;
+	/** The tiles per enemy in a synthetic level */
+	private static final int TILES_PER_ENEMY = 1024;
+	/** The farthest an enemy wanders from its spawn in a synthetic level */
+	private static final int WANDER_RANGE = 6;
+
+	/** The asset manager shared by every level */
+	private static AssetManager manager;
+	/** The (never drawn) canvas shared by every level */
+	private static GameCanvas canvas;
+
+	/**
+	 * Starts the headless backend, if it is not started already.
+	 *
+	 * The working directory must be the asset directory.
+	 */
+	public static synchronized void start() {
+		if (manager != null) {
+			return;
+		}
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.renderInterval = 1; // The render loop has nothing to do
+		new HeadlessApplication(new ApplicationAdapter() {}, config);
+		Gdx.graphics = new HeadlessGraphics();
+		Gdx.gl = Gdx.gl20 = Gdx.graphics.getGL20();
+		if (Gdx.gl20 == null) {
+			// Otherwise every setup fails later, deep in the first shader
+			throw new GdxRuntimeException("The headless graphics have no GL");
+		}
+
+		manager = new AssetManager();
+		FileHandleResolver resolver = new InternalFileHandleResolver();
+		manager.setLoader(FreeTypeFontGenerator.class, new FreeTypeFontGeneratorLoader(resolver));
+		manager.setLoader(BitmapFont.class, ".ttf", new FreetypeFontLoader(resolver));
+		TextureRegistry.getInstance().setManager(manager);
+		canvas = new GameCanvas();
+	}
+
+	/**
+	 * Returns a loaded and reset level, ready to simulate.
+	 *
+	 * @param level The level name (a path, or "synthetic-N")
+	 *
+	 * @return a loaded and reset level, ready to simulate.
+	 */
+	public static GameplayController load(String level) {
+		start();
+		GameplayController controller = new GameplayController(resolve(level), 0);
+		controller.preLoadContent(manager);
+		manager.finishLoading();
+		controller.loadContent(manager);
+		controller.setCanvas(canvas);
+		controller.reset();
+		return controller;
+	}
+
+	/**
+	 * Releases a level returned by load.
+	 *
+	 * @param controller The level to release
+	 */
+	public static void unload(GameplayController controller) {
+		controller.unloadContent(manager);
+		controller.dispose();
+	}
+
+	/**
+	 * Returns the path of the level file for a level name.
+	 *
+	 * A synthetic level is written to a temporary file.
+	 *
+	 * @param level The level name (a path, or "synthetic-N")
+	 *
+	 * @return the path of the level file for a level name.
+	 */
+	public static String resolve(String level) {
+		if (!level.startsWith(SYNTHETIC)) {
+			return level;
+		}
+		int size = Integer.parseInt(level.substring(SYNTHETIC.length()));
+		File file = new File(System.getProperty("java.io.tmpdir"), "rekindled-" + level + ".json");
+		new FileHandle(file).writeString(synthesize(size, size), false);
+		return file.getAbsolutePath();
+	}
+
+	/**
+	 * Returns the JSON of a random level of the given size.
+	 *
+	 * The level is a scatter of short wall runs and holes, with light sources and
+	 * enemies on open tiles.  The random source is seeded by the size, so the same
+	 * name always gives the same level.
+	 *
+	 * @param width The level width in tiles
+	 * @param height The level height in tiles
+	 *
+	 * @return the JSON of a random level of the given size.
+	 */
+	public static String synthesize(int width, int height) {
+		Random random = new Random(width * 31L + height);
+		boolean[] used = new boolean[width * height];
+		int spawnX = width / 2;
+		int spawnY = height / 2;
+		used[spawnX + spawnY * width] = true;
+
+		StringWriter buffer = new StringWriter();
+		JsonWriter json = new JsonWriter(buffer);
+		try {
+			json.object();
+			json.array("dimension").value(width).value(height).pop();
+			json.array("spawn").value(spawnX).value(spawnY).pop();
+			json.set("init_lights", 1);
+
+			json.array("walls");
+			int walls = (int) (width * height * WALL_DENSITY);
+			while (walls > 0) {
+				int x = 1 + random.nextInt(width - 2);
+				int y = 1 + random.nextInt(height - 2);
+				boolean across = random.nextBoolean();
+				int run = 1 + random.nextInt(WALL_RUN);
+				for (int ii = 0; ii < run && walls > 0; ii++) {
+					int wx = across ? x + ii : x;
+					int wy = across ? y : y + ii;
+					if (wx < width - 1 && wy < height - 1 && !used[wx + wy * width]) {
+						used[wx + wy * width] = true;
+						json.object().array("position").value(wx).value(wy).pop().set("movable", false).pop();
+						walls--;
+					}
+				}
+			}
+			json.pop();
+
+			json.array("water");
+			for (int ii = (int) (width * height * HOLE_DENSITY); ii > 0; ii--) {
+				int id = openTile(random, used, width, height);
+				json.array().value(id % width).value(id / width).pop();
+			}
+			json.pop();
+
+			json.array("lights");
+			for (int ii = width * height / TILES_PER_LIGHT; ii > 0; ii--) {
+				int id = openTile(random, used, width, height);
+				json.object().array("position").value(id % width).value(id / width).pop();
+				json.set("lit", random.nextBoolean()).pop();
+			}
+			json.pop();
+
+			json.array("enemies");
+			for (int ii = Math.max(1, width * height / TILES_PER_ENEMY); ii > 0; ii--) {
+				int id = openTile(random, used, width, height);
+				int x = id % width;
+				int y = id / width;
+				json.object().array("position").value(x).value(y).pop();
+				json.set("type", 0);
+				json.array("wander");
+				json.array().value(x).value(y).pop();
+				json.array().value(clamp(x + random.nextInt(2 * WANDER_RANGE + 1) - WANDER_RANGE, width))
+						.value(clamp(y + random.nextInt(2 * WANDER_RANGE + 1) - WANDER_RANGE, height)).pop();
+				json.pop().pop();
+			}
+			json.pop();
+
+			json.array("grass").pop();
+			json.array("mushrooms").pop();
+			json.array("pickup").pop();
+			json.pop();
+			json.close();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Returns a random tile that is not on the border or used yet, and uses it.
+	 *
+	 * @param random The random source
+	 * @param used Whether each tile is used (x + y * width)
+	 * @param width The level width in tiles
+	 * @param height The level height in tiles
+	 *
+	 * @return a random unused tile (x + y * width)
+	 */
+	private static int openTile(Random random, boolean[] used, int width, int height) {
+		int id;
+		do {
+			id = (1 + random.nextInt(width - 2)) + (1 + random.nextInt(height - 2)) * width;
+		} while (used[id]);
+		used[id] = true;
+		return id;
+	}
+
+	/**
+	 * Returns a coordinate clamped to the inside of the border.
+	 *
+	 * @param value The coordinate
+	 * @param size The level size along that axis
+	 *
+	 * @return the coordinate clamped to the inside of the border.
+	 */
+	private static int clamp(int value, int size) {
+		return Math.max(1, Math.min(size - 2, value));
+	}
+}
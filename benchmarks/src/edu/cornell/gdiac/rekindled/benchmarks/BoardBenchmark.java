@@ -0,0 +1,168 @@
+/*
+ * BoardBenchmark.java
+ *
+ * Benchmarks of the board: the lighting update, wall autotiling and line of sight.
+ *
+ * This is run by the jmh task in the benchmarks project.  It is never part of the
+ * game itself.
+ */
+package edu.cornell.gdiac.rekindled.benchmarks;
+
+import com.badlogic.gdx.math.Vector2;
+import edu.cornell.gdiac.rekindled.Autotiler;
+import edu.cornell.gdiac.rekindled.Board;
+import edu.cornell.gdiac.rekindled.Constants;
+import edu.cornell.gdiac.rekindled.GameplayController;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the board hot paths, on real and synthetic levels.
+ *
+ * Lighting is incremental: toggling a source adds or removes its footprint, and the
+ * next update publishes the changed tiles.  toggleAndUpdate measures that (the old
+ * updateLitTiles and spreadLight), update measures a frame where nothing changed,
+ * and rebuildLighting measures lighting the whole board from scratch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+	/** The number of tile pairs tested for line of sight */
+	private static final int SIGHT_PAIRS = 1024;
+
+	/** The level to measure */
+	@Param({"jsons/keys.json", "jsons/testlevel.json", "jsons/roundabout.json", "synthetic-128", "synthetic-512"})
+	public String level;
+
+	/** The loaded level */
+	private GameplayController controller;
+	/** The board of the level */
+	private Board board;
+	/** The position of each light source */
+	private Vector2[] sources;
+	/** The next source to toggle */
+	private int nextSource;
+	/** The player position */
+	private Vector2 player;
+	/** The neighbour masks of the walls */
+	private byte[] masks;
+	/** The endpoints of the line of sight tests (x0, y0, x1, y1, ...) */
+	private int[] pairs;
+	/** The light radius of the level */
+	private int radius;
+	/** Whether the board is lit at a larger radius right now */
+	private boolean widened;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		controller = BenchmarkLevels.load(level);
+		board = controller.getBoard();
+		int width = board.getWidth();
+		int height = board.getHeight();
+
+		// Sources are the obstructed tiles that are neither walls nor holes
+		int count = 0;
+		Vector2[] found = new Vector2[width * height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (board.isObstructedBoard(x, y) && !board.isWall(x, y) && !board.isHole(x, y)) {
+					found[count++] = new Vector2(x, y);
+				}
+			}
+		}
+		sources = new Vector2[count];
+		System.arraycopy(found, 0, sources, 0, count);
+		player = new Vector2(width / 2, height / 2);
+		masks = new byte[width * height];
+		radius = board.getLightRadius();
+
+		// Random open tiles, no farther apart than enemies can see
+		Random random = new Random(width * 31L + height);
+		int range = (int) Constants.SIGHT_CONE_RADIUS;
+		pairs = new int[SIGHT_PAIRS * 4];
+		for (int ii = 0; ii < pairs.length; ii += 4) {
+			pairs[ii] = 1 + random.nextInt(width - 2);
+			pairs[ii + 1] = 1 + random.nextInt(height - 2);
+			pairs[ii + 2] = Math.max(1, Math.min(width - 2, pairs[ii] + random.nextInt(2 * range + 1) - range));
+			pairs[ii + 3] = Math.max(1, Math.min(height - 2, pairs[ii + 1] + random.nextInt(2 * range + 1) - range));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkLevels.unload(controller);
+	}
+
+	/** Toggles one light source, then publishes the change (as in a frame) */
+	@Benchmark
+	public void toggleAndUpdate(Blackhole hole) {
+		if (sources.length > 0) {
+			board.toggleSource(sources[nextSource]);
+			nextSource = (nextSource + 1) % sources.length;
+		}
+		board.update(player, controller.getWorldStep(), player);
+		hole.consume(board.getLitChanges().size);
+	}
+
+	/** Publishes a frame in which no light changed */
+	@Benchmark
+	public void update(Blackhole hole) {
+		board.update(player, controller.getWorldStep(), player);
+		hole.consume(board.getLitChanges().size);
+	}
+
+	/** Lights the whole board from scratch (alternating between two radii) */
+	@Benchmark
+	public int rebuildLighting() {
+		widened = !widened;
+		board.setLightRadius(widened ? radius + 1 : radius);
+		return board.getLightingVersion();
+	}
+
+	/** Picks the texture of every wall and hole from its neighbours */
+	@Benchmark
+	public int autotile() {
+		int sum = 0;
+		board.computeNeighborMasks(false, masks);
+		for (int ii = 0; ii < masks.length; ii++) {
+			sum += Autotiler.getWallTile(masks[ii]);
+		}
+		board.computeNeighborMasks(true, masks);
+		for (int ii = 0; ii < masks.length; ii++) {
+			sum += Autotiler.getHoleTile(masks[ii]);
+		}
+		return sum;
+	}
+
+	/** Tests line of sight between tile centers (answered from the sight cache) */
+	@Benchmark
+	public int tileLineOfSight() {
+		int seen = 0;
+		for (int ii = 0; ii < pairs.length; ii += 4) {
+			if (board.hasTileLineOfSight(pairs[ii], pairs[ii + 1], pairs[ii + 2], pairs[ii + 3])) {
+				seen++;
+			}
+		}
+		return seen;
+	}
+
+	/** Tests line of sight between points off the tile centers (never cached) */
+	@Benchmark
+	public int lineOfSight() {
+		int seen = 0;
+		for (int ii = 0; ii < pairs.length; ii += 4) {
+			if (board.hasLineOfSight(pairs[ii] + 0.25f, pairs[ii + 1] + 0.25f,
+					pairs[ii + 2] - 0.25f, pairs[ii + 3] - 0.25f)) {
+				seen++;
+			}
+		}
+		return seen;
+	}
+}
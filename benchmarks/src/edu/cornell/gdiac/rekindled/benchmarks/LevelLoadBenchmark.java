@@ -0,0 +1,58 @@
+/*
+ * LevelLoadBenchmark.java
+ *
+ * Benchmarks of level loading: parsing the level JSON and building the level.
+ *
+ * This is run by the jmh task in the benchmarks project.  It is never part of the
+ * game itself.
+ */
+package edu.cornell.gdiac.rekindled.benchmarks;
+
+import edu.cornell.gdiac.rekindled.GameplayController;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of level loading, on real and synthetic levels.
+ *
+ * parseJson reads the objects of the level out of its (already parsed) JSON.  reset
+ * is a whole restart: the JSON, the board, the physics bodies, the lights and the
+ * enemy controllers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelLoadBenchmark {
+	/** The level to measure */
+	@Param({"jsons/keys.json", "jsons/testlevel.json", "jsons/last.json", "synthetic-128", "synthetic-512"})
+	public String level;
+
+	/** The loaded level */
+	private GameplayController controller;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		controller = BenchmarkLevels.load(level);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkLevels.unload(controller);
+	}
+
+	/** Reads the objects of the level out of its JSON */
+	@Benchmark
+	public void parseJson() {
+		controller.parseJson();
+	}
+
+	/** Restarts the level */
+	@Benchmark
+	public void reset() {
+		controller.reset();
+	}
+}
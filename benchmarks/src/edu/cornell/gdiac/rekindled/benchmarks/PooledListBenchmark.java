@@ -0,0 +1,75 @@
+/*
+ * PooledListBenchmark.java
+ *
+ * Benchmarks of PooledList, which holds the objects of every level.
+ *
+ * This is run by the jmh task in the benchmarks project.  It is never part of the
+ * game itself.
+ */
+package edu.cornell.gdiac.rekindled.benchmarks;
+
+import edu.cornell.gdiac.util.PooledList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of PooledList iteration and removal.
+ *
+ * The world controller walks its object list several times a frame, and removes the
+ * objects that are done as it goes.  The sizes run from a real level (about a hundred
+ * objects) to a synthetic board with thousands of walls, lights and enemies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PooledListBenchmark {
+	/** One in this many elements is removed (and added back) per pass */
+	private static final int REMOVE_EVERY = 4;
+
+	/** The number of elements in the list */
+	@Param({"128", "1024", "16384"})
+	public int size;
+
+	/** The list to measure */
+	private PooledList<Integer> list;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		list = new PooledList<Integer>();
+		for (int ii = 0; ii < size; ii++) {
+			list.add(ii);
+		}
+	}
+
+	/** Walks the whole list */
+	@Benchmark
+	public int iterate() {
+		int sum = 0;
+		for (Integer value : list) {
+			sum += value;
+		}
+		return sum;
+	}
+
+	/** Walks the whole list, removing some elements, then adds them back at the end */
+	@Benchmark
+	public int removeAndAdd() {
+		int removed = 0;
+		for (Iterator<PooledList<Integer>.Entry> it = list.entryIterator(); it.hasNext(); ) {
+			PooledList<Integer>.Entry entry = it.next();
+			if (entry.getValue() % REMOVE_EVERY == 0) {
+				entry.remove();
+				removed++;
+			}
+		}
+		for (int ii = 0; ii < removed; ii++) {
+			list.add(ii * REMOVE_EVERY);
+		}
+		return list.size();
+	}
+}
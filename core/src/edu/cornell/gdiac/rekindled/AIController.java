@@ -13,12 +13,10 @@ package edu.cornell.gdiac.rekindled;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.controllers.Controller;
-import com.badlogic.gdx.math.Intersector;
-import com.badlogic.gdx.math.Polygon;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
 //import com.sun.xml.internal.bind.v2.runtime.reflect.opt.Constants;
 
-import java.util.*;
 
 /**
  * InputController corresponding to AI control.
@@ -57,8 +55,8 @@ public class AIController extends Entity_Controller {
     // Instance Attributes
     /** The enemy being controlled by this AIController */
     private Enemy enemy;
-    /** The game board; used for pathfinding */
-    private Board board;
+    /** The game board; used for pathfinding (read-only while planning) */
+    private BoardView board;
     /** The player */
     private Player player;
     /** The enemy's current state in the FSM */
@@ -83,7 +81,12 @@ public class AIController extends Entity_Controller {
     /** How many times the enemy has spun */
     private int numSpun;
 
-    private Enemy[] enemies;
+    /** The index of this enemy, which owns its claims on the board */
+    private int owner;
+    /** The tiles enemies have claimed or reserved */
+    private ReservationGrid reservations;
+    /** How long (in seconds) the tile after the next one stays reserved */
+    private static final float RESERVE_TIME = 0.4f;
 
     // Custom fields for AI algorithms
     public float delta;
@@ -93,6 +96,16 @@ public class AIController extends Entity_Controller {
 
     private Sound alarmSound;
     private static final float ALARM_DELAY = 1.5f;
+    /** How close to a tile center counts as resting on it (for cached sight checks) */
+    private static final float TILE_CENTER_EPSILON = .001f;
+    /** The neighbour offsets, in the order right, left, up, down */
+    private static final int[] NEIGHBOR_X = {1, -1, 0, 0};
+    private static final int[] NEIGHBOR_Y = {0, 0, 1, -1};
+    /** The priority gap between groups of enemies (more than any squared distance) */
+    private static final double PRIORITY_GROUP = 1e7;
+    /** The tile after the next one on a searched path (-1 if none) */
+    private int reserveX;
+    private int reserveY;
     private boolean soundPlaying;
     private float soundTimer;
 
@@ -100,6 +113,32 @@ public class AIController extends Entity_Controller {
     private boolean enemySoundPlaying;
     private float volume;
 
+    /** The tiles an enemy path may enter */
+    private Pathfinder.TileFilter walkable;
+    /** The tiles the chase flood may cross (lit, open tiles) */
+    private Pathfinder.TileFilter chaseOpen;
+    /** The tiles where the chase flood stops (unlit tiles) */
+    private Pathfinder.TileFilter chaseTarget;
+    /** The distances back to the wander route (or spawn) of this enemy */
+    private RouteMap routeMap;
+
+    /** The enemy position when the plan started (centered if on a tile) */
+    private Vector2 position;
+    /** The player position when the plan started */
+    private Vector2 playerPosition;
+    /** Whether the enemy was on a tile center (and so plans this step) */
+    private boolean centered;
+    /** Whether the plan chose its next tile by a search or a distance map */
+    private boolean searched;
+    /** The time (in seconds) that this enemy waited for a plan, while deferred */
+    private float deferredTime;
+    /** Sound changes made by the plan, played when it is applied */
+    private boolean stopEnemySound;
+    private boolean loopEnemySound;
+    /** Lit state changes made by the plan, applied with it (they toggle the sight light) */
+    private boolean lightEnemy;
+    private boolean unlightEnemy;
+
     /**
      * Creates an AIController for an enemy.
      *
@@ -111,7 +150,12 @@ public class AIController extends Entity_Controller {
         this.enemy = enemy;
         this.board = board;
         this.player = player;
-        this.enemies = enemies;
+        for (int ii = 0; ii < enemies.length; ii++) {
+            if (enemies[ii] == enemy) {
+                owner = ii;
+            }
+        }
+        this.reservations = board.getReservations();
         this.target = new int[2];
         this.target[0] = (int) enemy.getPosition().x;
         this.target[1] = (int) enemy.getPosition().y;
@@ -119,8 +163,32 @@ public class AIController extends Entity_Controller {
         state = FSMState.SPAWN;
         Vector2 pos = enemy.getPosition();
         goal = new int[]{(int) pos.x, (int) pos.y};
+        enemy.goal = new int[]{goal[0], goal[1]};
+        reservations.claim(owner, goal[0], goal[1]);
+        reserveX = -1;
+        reserveY = -1;
+        position = new Vector2(pos);
+        playerPosition = new Vector2();
         timer = 0;
 
+        int[][] route = enemy.getWanderPath();
+        routeMap = new RouteMap(board, route.length == 0 ? new int[][]{enemy.spawn} : route);
+        walkable = new Pathfinder.TileFilter() {
+            public boolean accept(int x, int y) {
+                return !AIController.this.board.isEnemyMovable(x, y) && noEnemyAt(x, y);
+            }
+        };
+        chaseOpen = new Pathfinder.TileFilter() {
+            public boolean accept(int x, int y) {
+                return !AIController.this.board.isObstructedBoard(x, y);
+            }
+        };
+        chaseTarget = new Pathfinder.TileFilter() {
+            public boolean accept(int x, int y) {
+                return !AIController.this.board.isLitTileBoard(x, y);
+            }
+        };
+
         alarmSound = Gdx.audio.newSound(Gdx.files.internal("sounds/alarm.mp3"));
         enemySound = Gdx.audio.newSound(Gdx.files.internal("sounds/enemy.mp3"));
         this.volume = volume;
@@ -153,11 +221,11 @@ public class AIController extends Entity_Controller {
      * target gets out of range.
      */
     private void changeStateIfApplicable(boolean playerLit, float dt) {
-        Vector2 pos = enemy.getPosition();
+        Vector2 pos = position;
         // Next state depends on current state.
         if (board.isLitTileBoard((int) pos.x, (int) pos.y)){
             if(state != FSMState.LIT){
-                enemy.setIsLit(true);
+                lightEnemy = true;
             }
             state = FSMState.LIT;
             timer = 0;
@@ -172,7 +240,7 @@ public class AIController extends Entity_Controller {
             numSpun = 0;
             return;
         }
-        enemy.setIsLit(false);
+        unlightEnemy = true;
 
 
         switch (state) {
@@ -180,7 +248,7 @@ public class AIController extends Entity_Controller {
                 soundPlaying = false;
                 soundTimer = 0;
                 if(enemySoundPlaying){
-                    enemySound.stop();
+                    stopEnemySound = true;
                     enemySoundPlaying = false;
                 }
                 if (hasLoS(playerLit)) {// has LoS
@@ -192,7 +260,7 @@ public class AIController extends Entity_Controller {
 
             case WANDER:
                 if(enemySoundPlaying){
-                    enemySound.stop();
+                    stopEnemySound = true;
                     enemySoundPlaying = false;
                 }
                 soundPlaying = false;
@@ -206,7 +274,7 @@ public class AIController extends Entity_Controller {
 
             case PAUSED:
                 if(enemySoundPlaying){
-                    enemySound.stop();
+                    stopEnemySound = true;
                     enemySoundPlaying = false;
                 }
                 if (player.isTakingLights()){
@@ -222,7 +290,7 @@ public class AIController extends Entity_Controller {
                         state = FSMState.CHASE;
                     }
                     if(!enemySoundPlaying) {
-                        enemySound.loop(volume);
+                        loopEnemySound = true;
                         enemySoundPlaying = true;
                     }
                     timer = 0;
@@ -236,7 +304,7 @@ public class AIController extends Entity_Controller {
                     // has no target
                     state = FSMState.GOTO;
                     if(!enemySoundPlaying) {
-                        enemySound.loop(volume);
+                        loopEnemySound = true;
                         enemySoundPlaying = true;
                     }
                 }   // else: has target, keep chasing
@@ -249,7 +317,7 @@ public class AIController extends Entity_Controller {
                 if (hasLoS(playerLit)){
                     state = FSMState.CHASE;
                     if(!enemySoundPlaying) {
-                        enemySound.loop(volume);
+                        loopEnemySound = true;
                         enemySoundPlaying = true;
                     }
                 }
@@ -261,7 +329,7 @@ public class AIController extends Entity_Controller {
 
             case WAIT:
                 if(enemySoundPlaying){
-                    enemySound.stop();
+                    stopEnemySound = true;
                     enemySoundPlaying = false;
                 }
                 if (hasLoS(playerLit)){
@@ -271,7 +339,7 @@ public class AIController extends Entity_Controller {
                         state = FSMState.PAUSED;
                     }
                     if(!enemySoundPlaying) {
-                        enemySound.loop(volume);
+                        loopEnemySound = true;
                         enemySoundPlaying = true;
                     }
                     timer = 0;
@@ -289,7 +357,7 @@ public class AIController extends Entity_Controller {
 
             case RETURN:
                 if(enemySoundPlaying){
-                    enemySound.stop();
+                    stopEnemySound = true;
                     enemySoundPlaying = false;
                 }
                 soundPlaying = false;
@@ -305,7 +373,7 @@ public class AIController extends Entity_Controller {
 
             case LIT:
                 if(enemySoundPlaying){
-                    enemySound.stop();
+                    stopEnemySound = true;
                     enemySoundPlaying = false;
                 }
                 soundPlaying = false;
@@ -321,7 +389,7 @@ public class AIController extends Entity_Controller {
 
             case STUNNED:
                 if(enemySoundPlaying){
-                    enemySound.stop();
+                    stopEnemySound = true;
                     enemySoundPlaying = false;
                 }
                 soundPlaying = false;
@@ -343,17 +411,81 @@ public class AIController extends Entity_Controller {
         }
     }
 
+    /**
+     * Returns the next tile toward the player, from the shared chase field
+     *
+     * @return int[] representing the next tile to move to
+     */
     public int[] getChaseGoal(){
-        // Set Goal
-        setChaseGoalTiles();
-        board.clearVisited();
-        return bfs();
+        if (!followMap(board.getChaseField())) {
+            setChaseGoalTiles();
+            bfs();
+        }
+        return goal;
+    }
+
+    /**
+     * Steps down a distance map, setting the target and the next tile
+     *
+     * The enemy steps to the first neighbour that is one step closer to the
+     * goals of the map.  The map does not know about the other enemies, so if
+     * every such neighbour is claimed by one, this does nothing and returns
+     * false; the caller should then search around them.
+     *
+     * @param map The distance map to follow
+     *
+     * @return false if the enemy needs to search instead
+     */
+    private boolean followMap(DistanceMap map){
+        Vector2 pos = position;
+        int sx = Math.round(pos.x);
+        int sy = Math.round(pos.y);
+        if (map.getDistance(sx, sy) == 0) {
+            setStep(map.getSourceX(sx, sy), map.getSourceY(sx, sy), sx, sy);
+            return true;
+        }
+
+        // The start tile is never tested, so look downhill from the neighbours
+        int best = DistanceMap.UNREACHABLE;
+        for (int dir = 0; dir < 4; dir++) {
+            int d = map.getDistance(sx + NEIGHBOR_X[dir], sy + NEIGHBOR_Y[dir]);
+            if (d != DistanceMap.UNREACHABLE && (best == DistanceMap.UNREACHABLE || d < best)) {
+                best = d;
+            }
+        }
+        if (best == DistanceMap.UNREACHABLE) {
+            // If goal not found, don't move
+            setStep(sx, sy, sx, sy);
+            return true;
+        }
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = sx + NEIGHBOR_X[dir];
+            int ny = sy + NEIGHBOR_Y[dir];
+            if (map.getDistance(nx, ny) == best && walkable.accept(nx, ny)) {
+                setStep(map.getSourceX(nx, ny), map.getSourceY(nx, ny), nx, ny);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Patches the return route distances with the tiles whose lit state changed
+     *
+     * This must be called after every board update.
+     *
+     * @param changes The board tile ids whose lit state changed
+     */
+    public void updateRoutes(IntArray changes) {
+        routeMap.patch(changes);
     }
 
     public int[] getWanderGoal() {
-        target = enemy.getWanderGoal();
-        int posX = Math.round(enemy.getPosition().x);
-        int posY = Math.round(enemy.getPosition().y);
+        int[] wanderGoal = enemy.getWanderGoal();
+        target[0] = wanderGoal[0];
+        target[1] = wanderGoal[1];
+        int posX = Math.round(position.x);
+        int posY = Math.round(position.y);
         if (posX == target[0] && target[1] < posY) {
             goal[0] = posX;
             goal[1] = posY - 1;
@@ -374,114 +506,104 @@ public class AIController extends Entity_Controller {
     }
 
     public int[] getReturnGoal(){
-        // Set Goal
-        setReturnGoalTiles();
-        board.clearVisited();
-        goal = bfs();
+        if (!followMap(routeMap)) {
+            setReturnGoalTiles();
+            bfs();
+        }
         enemy.setWanderGoal(target);
         return goal;
 
     }
 
     /**
-     *  Runs breadth first search
-     * @return int[] representing the next direction
+     * Runs breadth first search to the nearest goal tile of the pathfinder
+     *
+     * The target is set to the goal tile reached (or to the enemy tile if none).
+     *
+     * @return int[] representing the next tile to move to
      */
-    public int[]  bfs(){
-        Vector2 pos = enemy.getPosition();
-        int[] root = {Math.round(pos.x), Math.round(pos.y)};
-
-        Queue<ArrayList<Integer>> q = new LinkedList<>();
-        int[][][] parent = new int[board.getWidth()][board.getHeight()][2];
-
-        // Get the tile for this enemy
-        int sx = root[0];
-        int sy = root[1];
-        ArrayList<Integer> s = new ArrayList<Integer>();
-        s.add(sx); s.add(sy);
-        board.setVisited(sx,sy); //visit s
-        q.add(s);
-
-        //BFS
-        int[] reachedGoal = new int[2];
-        reachedGoal[0] = -1;
-        reachedGoal[1] = -1;
-        while(!q.isEmpty()){
-            s = q.poll(); //get first element in queue
-            int xIdx = s.get(0);
-            int yIdx = s.get(1);
-            if(board.isGoal(xIdx,yIdx)){
-                reachedGoal[0] = xIdx;
-                reachedGoal[1] = yIdx;
-                break;
-            }
-            //add each neighbor of s to queue if not visited yet
-            if(!board.isEnemyMovable(xIdx+1,yIdx) && !board.isVisited(xIdx+1,yIdx)
-                    && board.isSafeAt(xIdx + 1, yIdx) && noEnemyAt(xIdx +1, yIdx)){ //right
-                board.setVisited(xIdx+1,yIdx);
-                ArrayList<Integer> r = new ArrayList<Integer>();
-                r.add(xIdx+1); r.add(yIdx);
-                q.add(r);
-                parent[xIdx+1][yIdx][0] = xIdx;
-                parent[xIdx+1][yIdx][1] = yIdx;
-            }
-            if(!board.isEnemyMovable(xIdx-1,yIdx) && !board.isVisited(xIdx-1,yIdx)
-                    && board.isSafeAt(xIdx - 1, yIdx) && noEnemyAt(xIdx -1, yIdx)){ //left
-                board.setVisited(xIdx-1,yIdx);
-                ArrayList<Integer> l = new ArrayList<Integer>();
-                l.add(xIdx-1); l.add(yIdx);
-                q.add(l);
-                parent[xIdx-1][yIdx][0] = xIdx;
-                parent[xIdx-1][yIdx][1] = yIdx;
-            }
-            if(!board.isEnemyMovable(xIdx,yIdx+1) && !board.isVisited(xIdx,yIdx+1)
-                    && board.isSafeAt(xIdx, yIdx + 1) && noEnemyAt(xIdx, yIdx+1)){ //up
-                board.setVisited(xIdx,yIdx+1);
-                ArrayList<Integer> u = new ArrayList<Integer>();
-                u.add(xIdx); u.add(yIdx+1);
-                q.add(u);
-                parent[xIdx][yIdx+1][0] = xIdx;
-                parent[xIdx][yIdx+1][1] = yIdx;
-            }
-            if(!board.isEnemyMovable(xIdx,yIdx-1) && !board.isVisited(xIdx,yIdx-1)
-                    && board.isSafeAt(xIdx, yIdx - 1) && noEnemyAt(xIdx, yIdx-1)){ //down
-                board.setVisited(xIdx,yIdx-1);
-                ArrayList<Integer> d = new ArrayList<Integer>();
-                d.add(xIdx); d.add(yIdx-1);
-                q.add(d);
-                parent[xIdx][yIdx-1][0] = xIdx;
-                parent[xIdx][yIdx-1][1] = yIdx;
+    public int[] bfs(){
+        Vector2 pos = position;
+        int sx = Math.round(pos.x);
+        int sy = Math.round(pos.y);
+        Pathfinder pathfinder = board.getPathfinder();
+        return nextStep(pathfinder, sx, sy, pathfinder.search(sx, sy, walkable));
+    }
+
+    /**
+     * Runs A* search to a single tile
+     *
+     * The target is set to that tile (or to the enemy tile if it cannot be reached).
+     * A tile in another cluster is found with the hierarchical search, which only
+     * refines the path as far as its first waypoint.
+     *
+     * @param tx The x index of the goal tile
+     * @param ty The y index of the goal tile
+     *
+     * @return int[] representing the next tile to move to
+     */
+    public int[] pathTo(int tx, int ty){
+        Vector2 pos = position;
+        int sx = Math.round(pos.x);
+        int sy = Math.round(pos.y);
+        Pathfinder pathfinder = board.getPathfinder();
+        ClusterPathfinder clusters = board.getClusterPathfinder();
+        if (clusters.isLongRange(sx, sy, tx, ty)) {
+            if (!clusters.search(sx, sy, tx, ty) || !clusters.refine(pathfinder, walkable)) {
+                return setStep(sx, sy, sx, sy);
             }
+            nextStep(pathfinder, sx, sy, true);
+            target[0] = tx;
+            target[1] = ty;
+            return goal;
         }
-        int[] prev = reachedGoal;
+        return nextStep(pathfinder, sx, sy, pathfinder.search(sx, sy, tx, ty, walkable));
+    }
 
-        // If goal not found, don't move
-        if (reachedGoal[0] == -1 && reachedGoal[1] == -1){
-            target[0] = root[0];
-            target[1] = root[1];
-            board.clearMarks();
-            return root;
+    /**
+     * Reads the first step of the last path into the goal
+     *
+     * @param pathfinder The pathfinder that searched
+     * @param sx The x index of the enemy tile
+     * @param sy The y index of the enemy tile
+     * @param found Whether the last search reached a goal
+     *
+     * @return the goal, holding the next tile to move to
+     */
+    private int[] nextStep(Pathfinder pathfinder, int sx, int sy, boolean found){
+        if (found) {
+            if (pathfinder.getPathLength() > 1) {
+                reserveX = pathfinder.getPathX(1);
+                reserveY = pathfinder.getPathY(1);
+            }
+            return setStep(pathfinder.getReachedX(), pathfinder.getReachedY(),
+                    pathfinder.getPathLength() > 0 ? pathfinder.getPathX(0) : sx,
+                    pathfinder.getPathLength() > 0 ? pathfinder.getPathY(0) : sy);
         }
+        return setStep(sx, sy, sx, sy);
+    }
 
-        target[0] = reachedGoal[0];
-        target[1] = reachedGoal[1];
-
-        while(!Arrays.equals(prev,root) && !Arrays.equals(parent[prev[0]][prev[1]],root))  {
-            prev = parent[prev[0]][prev[1]];
-        }
-        board.clearMarks();
-        return prev;
+    /**
+     * Sets the target and the next tile to move to
+     *
+     * @param tx The x index of the target tile
+     * @param ty The y index of the target tile
+     * @param nx The x index of the next tile
+     * @param ny The y index of the next tile
+     *
+     * @return the goal, holding the next tile to move to
+     */
+    private int[] setStep(int tx, int ty, int nx, int ny){
+        searched = true;
+        target[0] = tx;
+        target[1] = ty;
+        goal[0] = nx;
+        goal[1] = ny;
+        return goal;
     }
 
     private boolean noEnemyAt(int x, int y){
-        for (Enemy e : enemies){
-            if (e != enemy){
-                if (e.goal[0] == x && e.goal[1] == y){
-                    return false;
-                }
-            }
-        }
-        return true;
+        return reservations.isFree(x, y, owner);
     }
 
     /**
@@ -489,8 +611,8 @@ public class AIController extends Entity_Controller {
      * Needed to avoid cases where the AI loses sight due to how cone works
      */
     private void setFacingDirWaiting(){
-        Vector2 ppos = player.getPosition();
-        Vector2 epos = enemy.getPosition();
+        Vector2 ppos = playerPosition;
+        Vector2 epos = position;
         float diffX = ppos.x - epos.x;
         float diffY = ppos.y - epos.y;
         if (Math.max(Math.abs(diffX), Math.abs(diffY)) == Math.abs(diffX)){
@@ -529,69 +651,21 @@ public class AIController extends Entity_Controller {
      * If player is on unlit tile, goal is player pos
      * Else, goal is nearest unlit tile to player
      */
-    private void setChaseGoalTiles(){
-        Queue<ArrayList<Integer>> q = new LinkedList<>();
-        ArrayList<Integer> s = new ArrayList<Integer>();
-
-        // Set Current Position to Visited
-        int px = Math.round(player.getPosition().x);
-        int py = Math.round(player.getPosition().y);
-        s.add(px); s.add(py);
-        board.setVisited(px,py); //visit s
-        q.add(s);
-
-        while(!q.isEmpty()) {
-            s = q.poll(); //get first element in queue
-            int xIdx = s.get(0);
-            int yIdx = s.get(1);
-            if (!board.isLitTileBoard(xIdx, yIdx)) {
-                board.setGoal(xIdx, yIdx);
-            }
-            else {
-                //add each neighbor of s to queue if not visited yet
-                if (!board.isObstructedBoard(xIdx + 1, yIdx) && !board.isVisited(xIdx + 1, yIdx)
-                        && board.isSafeAt(xIdx + 1, yIdx)) { //right
-                    board.setVisited(xIdx + 1, yIdx);
-                    ArrayList<Integer> r = new ArrayList<Integer>();
-                    r.add(xIdx + 1);
-                    r.add(yIdx);
-                    q.add(r);
-                }
-                if (!board.isObstructedBoard(xIdx - 1, yIdx) && !board.isVisited(xIdx - 1, yIdx)
-                        && board.isSafeAt(xIdx - 1, yIdx)) { //left
-                    board.setVisited(xIdx - 1, yIdx);
-                    ArrayList<Integer> l = new ArrayList<Integer>();
-                    l.add(xIdx - 1);
-                    l.add(yIdx);
-                    q.add(l);
-                }
-                if (!board.isObstructedBoard(xIdx, yIdx + 1) && !board.isVisited(xIdx, yIdx + 1)
-                        && board.isSafeAt(xIdx, yIdx + 1)) { //up
-                    board.setVisited(xIdx, yIdx + 1);
-                    ArrayList<Integer> u = new ArrayList<Integer>();
-                    u.add(xIdx);
-                    u.add(yIdx + 1);
-                    q.add(u);
-                }
-                if (!board.isObstructedBoard(xIdx, yIdx - 1) && !board.isVisited(xIdx, yIdx - 1)
-                        && board.isSafeAt(xIdx, yIdx - 1)) { //down
-                    board.setVisited(xIdx, yIdx - 1);
-                    ArrayList<Integer> d = new ArrayList<Integer>();
-                    d.add(xIdx);
-                    d.add(yIdx - 1);
-                    q.add(d);
-                }
-            }
-        }
+    public void setChaseGoalTiles(){
+        int px = Math.round(playerPosition.x);
+        int py = Math.round(playerPosition.y);
+        board.getPathfinder().markFrontier(px, py, chaseOpen, chaseTarget);
     }
 
     public void setReturnGoalTiles(){
         int[][] wander_path = enemy.getWanderPath();
+        Pathfinder pathfinder = board.getPathfinder();
+        pathfinder.clearGoals();
         if (wander_path.length == 0){
-            board.setGoal(enemy.spawn[0], enemy.spawn[1]);
+            pathfinder.addGoal(enemy.spawn[0], enemy.spawn[1]);
         } else {
             for (int[] pos : wander_path){
-                board.setGoal(pos[0], pos[1]);
+                pathfinder.addGoal(pos[0], pos[1]);
             }
         }
     }
@@ -609,25 +683,105 @@ public class AIController extends Entity_Controller {
         return false;
     }
 
-    public void move(boolean playerLit, float dt){
+    /**
+     * Copies the positions that the plan reads.
+     *
+     * Reading a body position is not thread safe, so this must be called on the
+     * main thread, for every enemy, before any of them plan.
+     */
+    public void prepare(){
         Vector2 pos = enemy.getPosition();
+        centered = isCentered(pos.x, pos.y);
+        if (centered) {
+            position.set(Math.round(pos.x), Math.round(pos.y)); // Center pos to account for slight drift
+        } else {
+            position.set(pos);
+        }
+        playerPosition.set(player.getPosition());
+    }
+
+    /**
+     * Returns true if the enemy is on a tile center, and so makes a real plan.
+     *
+     * This is only valid after prepare.
+     *
+     * @return true if the enemy makes a real plan this frame
+     */
+    public boolean needsPlan(){
+        return centered;
+    }
+
+    /**
+     * Returns how urgently this enemy needs its plan (lower is sooner).
+     *
+     * Deferred enemies come first, then enemies chasing the player, then the
+     * rest.  Within each group, the enemies nearest the player come first.  This
+     * is only valid after prepare.  It is a double, so that distances within a group
+     * keep their full resolution after the group offset is added.
+     *
+     * @return how urgently this enemy needs its plan
+     */
+    public double getPriority(){
+        int group;
+        if (deferredTime > 0) {
+            group = 0;
+        } else if (state == FSMState.CHASE || state == FSMState.GOTO || state == FSMState.PAUSED) {
+            group = 1;
+        } else {
+            group = 2;
+        }
+        return group * PRIORITY_GROUP + position.dst2(playerPosition);
+    }
+
+    /**
+     * Skips the plan of this enemy for this frame.
+     *
+     * The enemy waits on its tile, and the time it waited is added to its next
+     * plan, so its timers do not lose it.
+     *
+     * @param dt Number of seconds since last animation frame
+     */
+    public void defer(float dt){
+        deferredTime += dt;
+        searched = false;
+        reserveX = -1;
+        reserveY = -1;
+        goal[0] = (int) position.x;
+        goal[1] = (int) position.y;
+    }
+
+    /**
+     * Updates the state and chooses the next tile of this enemy.
+     *
+     * This only reads the board and the positions copied by prepare, and only
+     * writes to this controller and its enemy, so every enemy can plan at once
+     * (on different threads).  Nothing is moved or played until apply.
+     *
+     * @param playerLit Whether the player stands in light
+     * @param dt Number of seconds since last animation frame
+     */
+    public void plan(boolean playerLit, float dt){
+        Vector2 pos = position;
+        dt += deferredTime;
+        deferredTime = 0;
+        searched = false;
+        reserveX = -1;
+        reserveY = -1;
         // Handle thrown light case separately
         if (player.insideThrownLight && hasLoSNoConeCheck()){
             threwlight = true;
             timer = 0;
-            target[0] = Math.round(player.getPosition().x);
-            target[1] = Math.round(player.getPosition().y);
+            target[0] = Math.round(playerPosition.x);
+            target[1] = Math.round(playerPosition.y);
             numSpun = 0;
             state = FSMState.PAUSED;
         }
-        if (isCentered(pos.x, pos.y)){
-            enemy.setPosition(Math.round(pos.x), Math.round(pos.y)); // Center pos to account for slight drift
-            pos = enemy.getPosition();
+        if (centered){
             changeStateIfApplicable(playerLit, dt);
 //            System.out.println("State: " + state);
 //            System.out.println("Enemy Pos: " + pos);
 //            System.out.println("Goal: " + goal[0] + ", " + goal[1]);
-//            System.out.println("Player Pos: " + player.getPosition());
+//            System.out.println("Player Pos: " + playerPosition);
 //            System.out.println("-----------");
             switch (state) {
                 case WANDER:
@@ -664,8 +818,7 @@ public class AIController extends Entity_Controller {
 
                 case GOTO:
                     enemy.setChaseSpeed(dt);
-                    board.setGoal(target[0], target[1]);
-                    goal = bfs();
+                    goal = pathTo(target[0], target[1]);
                     break;
 
                 case PAUSED:
@@ -699,13 +852,55 @@ public class AIController extends Entity_Controller {
                     break;
             }
         }
-        enemy.goal = this.goal;
+    }
+
+    /**
+     * Moves the enemy to follow its plan, and plays its sounds.
+     *
+     * The plans are applied one enemy at a time, in order, on the main thread.
+     * Each plan saw the claims of the other enemies from the step before, so if an
+     * earlier enemy has just claimed the tile this one searched its way to, this
+     * enemy waits on its tile and plans again.  Otherwise the enemy claims its
+     * next tile, and briefly reserves the one after it on a searched path.
+     *
+     * @param dt Number of seconds since last animation frame
+     */
+    public void apply(float dt){
+        if (centered) {
+            enemy.setPosition(position.x, position.y);
+            if (searched && !noEnemyAt(goal[0], goal[1])) {
+                goal[0] = (int) position.x;
+                goal[1] = (int) position.y;
+            } else if (reserveX != -1) {
+                reservations.reserve(owner, reserveX, reserveY, RESERVE_TIME);
+            }
+        }
+        reservations.claim(owner, goal[0], goal[1]);
+        // Toggling the sight light changes the light lists of the ray handler
+        if (lightEnemy) {
+            enemy.setIsLit(true);
+            lightEnemy = false;
+        }
+        if (unlightEnemy) {
+            enemy.setIsLit(false);
+            unlightEnemy = false;
+        }
+        if (stopEnemySound) {
+            enemySound.stop();
+            stopEnemySound = false;
+        }
+        if (loopEnemySound) {
+            enemySound.loop(volume);
+            loopEnemySound = false;
+        }
+        enemy.goal[0] = goal[0];
+        enemy.goal[1] = goal[1];
         enemy.moveOnTile(goal[0], goal[1], dt);
     }
 
     private boolean isGoalAccessible(){
-        int posX = Math.round(enemy.getPosition().x);
-        int posY = Math.round(enemy.getPosition().y);
+        int posX = Math.round(position.x);
+        int posY = Math.round(position.y);
         if (posX == goal[0] && goal[1] < posY) { // Move down
             return !board.isLitTileBoard(posX, posY - 1);
         }
@@ -724,55 +919,38 @@ public class AIController extends Entity_Controller {
         }
     }
 
-    private boolean hasLoS(boolean playerLit){
+    /**
+     * Returns true if the enemy can see the player.
+     *
+     * A lit player is seen from any direction; otherwise the player must be in the
+     * sight cone of the enemy.
+     *
+     * @param playerLit Whether the player stands in light
+     *
+     * @return true if the enemy can see the player
+     */
+    public boolean hasLoS(boolean playerLit){
         if (playerLit) {
-            int idx = 0;
-            boolean result = true;
-            while (idx < board.walls.length - 1) {
-                float[] vertices = new float[]{
-                        board.walls[idx], board.walls[idx + 1],
-                        board.walls[idx], board.walls[idx + 1] + 1f,
-                        board.walls[idx] + 1f, board.walls[idx + 1],
-                        board.walls[idx] + 1f, board.walls[idx + 1] + 1f
-                };
-                Polygon poly = new Polygon(vertices);
-                Vector2 playerPos = new Vector2(player.getPosition().x + .5f,
-                        player.getPosition().y + .5f);
-//                System.out.println("Player: " + playerPos);
-                Vector2 enemyPos = new Vector2(enemy.getPosition().x + .5f,
-                        enemy.getPosition().y + .5f);
-//                System.out.println("Enemy: " + enemyPos);
-                if (Intersector.intersectSegmentPolygon(playerPos, enemyPos, poly)) {
-                    result = false;
-                }
-                idx += 2;
-            }
-            return result;
+            return hasLoSNoConeCheck();
         }
-        return enemy.inSight(player.getPosition(), player.getWidth());
+        return enemy.inSight(position, playerPosition, player.getWidth());
     }
 
     public boolean hasLoSNoConeCheck(){
-        int idx = 0;
-        boolean result = true;
-        while (idx < board.walls.length - 1) {
-            float[] vertices = new float[]{
-                    board.walls[idx], board.walls[idx + 1],
-                    board.walls[idx], board.walls[idx + 1] + 1f,
-                    board.walls[idx] + 1f, board.walls[idx + 1],
-                    board.walls[idx] + 1f, board.walls[idx + 1] + 1f
-            };
-            Polygon poly = new Polygon(vertices);
-            Vector2 playerPos = new Vector2(player.getPosition().x + .5f,
-                    player.getPosition().y + .5f);
-            Vector2 enemyPos = new Vector2(enemy.getPosition().x + .5f,
-                    enemy.getPosition().y + .5f);
-            if (Intersector.intersectSegmentPolygon(playerPos, enemyPos, poly)) {
-                result = false;
-            }
-            idx += 2;
+        Vector2 playerPos = playerPosition;
+        Vector2 enemyPos = position;
+        // Both are usually resting on tile centers, which the board caches
+        if (isTileCenter(playerPos) && isTileCenter(enemyPos)) {
+            return board.hasTileLineOfSight(Math.round(enemyPos.x), Math.round(enemyPos.y),
+                    Math.round(playerPos.x), Math.round(playerPos.y));
         }
-        return result;
+        return board.hasLineOfSight(enemyPos.x, enemyPos.y, playerPos.x, playerPos.y);
+    }
+
+    /** Returns true if the position is (within rounding) the center of a tile */
+    private static boolean isTileCenter(Vector2 pos) {
+        return Math.abs(pos.x - Math.round(pos.x)) < TILE_CENTER_EPSILON
+                && Math.abs(pos.y - Math.round(pos.y)) < TILE_CENTER_EPSILON;
     }
 
     public void playAlarm(){
@@ -0,0 +1,221 @@
+package edu.cornell.gdiac.rekindled;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plans the enemies each frame, within a time budget.
+ *
+ * An enemy only makes a real plan (sight checks and a path search) when it reaches
+ * a tile center.  If many enemies reach their tiles in the same frame, planning
+ * them all at once causes a hitch.  So the enemies that need a plan are sorted by
+ * priority, and planned in batches until the budget for the frame runs out.  The
+ * rest are deferred: they wait on their tile, and go first in the next frame.
+ *
+ * Enemies that were deferred come first, then enemies that are chasing the player,
+ * then the rest; within each group, the nearest enemies to the player come first.
+ * At least one batch is planned every frame, however small the budget, so every
+ * enemy is planned eventually.
+ *
+ * Large batches are split across a fork-join pool, since planning only reads the
+ * board.  The plans must still be applied afterwards, in enemy order.
+ */
+public class AIScheduler {
+    /** The default planning budget (in microseconds per frame) */
+    public static final int DEFAULT_BUDGET = 2000;
+    /** Fewer enemies than this are planned on the main thread */
+    private static final int PARALLEL_ENEMIES = 8;
+    /** The most enemies planned by one task */
+    private static final int ENEMIES_PER_TASK = 4;
+    /** The number of enemies planned between checks of the budget */
+    private static final int BATCH_SIZE = 16;
+
+    /** The pool that plans the enemies in parallel (shared by every level) */
+    private static ForkJoinPool pool;
+
+    /** The controllers to plan */
+    private AIController[] controls;
+    /** The controllers that need a plan this frame, in priority order */
+    private int[] order;
+    /** The priority of each controller this frame (lower goes first) */
+    private double[] priority;
+    /** The planning budget (in nanoseconds per frame) */
+    private long budget;
+    /** The number of enemies deferred in the last frame */
+    private int deferred;
+    /** The task that plans a batch in parallel (reused every frame) */
+    private PlanTask root;
+
+    /** Whether the player stands in light (for the current frame) */
+    private boolean playerLit;
+    /** Number of seconds since last animation frame (for the current frame) */
+    private float dt;
+
+    /**
+     * Creates a scheduler for the given controllers, with the default budget
+     *
+     * @param controls The controllers to plan
+     */
+    public AIScheduler(AIController[] controls) {
+        this.controls = controls;
+        order = new int[controls.length];
+        priority = new double[controls.length];
+        setBudget(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Returns the planning budget (in microseconds per frame)
+     *
+     * @return the planning budget (in microseconds per frame)
+     */
+    public int getBudget() {
+        return (int) (budget / 1000);
+    }
+
+    /**
+     * Sets the planning budget (in microseconds per frame)
+     *
+     * @param micros the planning budget (in microseconds per frame)
+     */
+    public void setBudget(int micros) {
+        budget = micros * 1000L;
+    }
+
+    /**
+     * Returns the number of enemies deferred in the last frame
+     *
+     * @return the number of enemies deferred in the last frame
+     */
+    public int getDeferred() {
+        return deferred;
+    }
+
+    /**
+     * Plans as many enemies as the budget allows, and defers the rest.
+     *
+     * Every controller must have been prepared this frame.  Enemies between tiles
+     * are always planned, since they do almost nothing.
+     *
+     * @param playerLit Whether the player stands in light
+     * @param dt Number of seconds since last animation frame
+     */
+    public void plan(boolean playerLit, float dt) {
+        long start = System.nanoTime();
+        this.playerLit = playerLit;
+        this.dt = dt;
+
+        int count = 0;
+        for (int ii = 0; ii < controls.length; ii++) {
+            if (controls[ii].needsPlan()) {
+                priority[ii] = controls[ii].getPriority();
+                count = insert(ii, count);
+            } else {
+                controls[ii].plan(playerLit, dt);
+            }
+        }
+
+        int next = 0;
+        while (next < count) {
+            int end = Math.min(next + BATCH_SIZE, count);
+            planRange(next, end);
+            next = end;
+            if (System.nanoTime() - start >= budget) {
+                break;
+            }
+        }
+        deferred = count - next;
+        for (int ii = next; ii < count; ii++) {
+            controls[order[ii]].defer(dt);
+        }
+    }
+
+    /**
+     * Inserts a controller into the priority order.
+     *
+     * @param index The controller
+     * @param count The number of controllers in the order
+     *
+     * @return the new number of controllers in the order
+     */
+    private int insert(int index, int count) {
+        int ii = count;
+        while (ii > 0 && priority[order[ii - 1]] > priority[index]) {
+            order[ii] = order[ii - 1];
+            ii--;
+        }
+        order[ii] = index;
+        return count + 1;
+    }
+
+    /**
+     * Plans the controllers in a range of the priority order.
+     *
+     * @param lo The first position in the order
+     * @param hi The position after the range
+     */
+    private void planRange(int lo, int hi) {
+        if (hi - lo < PARALLEL_ENEMIES) {
+            for (int ii = lo; ii < hi; ii++) {
+                controls[order[ii]].plan(playerLit, dt);
+            }
+            return;
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool();
+        }
+        if (root == null) {
+            root = new PlanTask();
+        }
+        root.reset(lo, hi);
+        pool.invoke(root);
+    }
+
+    /**
+     * A fork-join task that plans a range of the priority order.
+     *
+     * The tasks are reused from frame to frame (each keeps the tasks of its two
+     * halves), so planning in parallel does not allocate once the tree is built.
+     */
+    private class PlanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** The first position of the range */
+        private int lo;
+        /** The position after the range */
+        private int hi;
+        /** The tasks of the two halves of the range (null until first split) */
+        private PlanTask left, right;
+
+        /**
+         * Prepares this task to plan the positions [lo,hi)
+         *
+         * The task must not be running.
+         *
+         * @param lo The first position of the range
+         * @param hi The position after the range
+         */
+        void reset(int lo, int hi) {
+            reinitialize();
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= ENEMIES_PER_TASK) {
+                for (int ii = lo; ii < hi; ii++) {
+                    controls[order[ii]].plan(playerLit, dt);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (left == null) {
+                left = new PlanTask();
+                right = new PlanTask();
+            }
+            left.reset(lo, mid);
+            right.reset(mid, hi);
+            invokeAll(left, right);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package edu.cornell.gdiac.rekindled;
+
+/**
+ * Lookup tables that pick wall and hole textures from a tile's neighbours.
+ *
+ * Each tile gets an 8-neighbour mask (see Board.computeNeighborMasks), with one
+ * bit per neighbour that is also a wall (or hole).  The tables map each of the
+ * 256 masks to an index into the wall or hole texture array, or -1 if no texture
+ * fits.  They are built once, by running the tiling rules on every mask, so a
+ * whole level is tiled with one sweep and one lookup per tile.
+ */
+public class Autotiler {
+    /** The neighbour above */
+    public static final int N  = 1;
+    /** The neighbour above and to the right */
+    public static final int NE = 2;
+    /** The neighbour to the right */
+    public static final int E  = 4;
+    /** The neighbour below and to the right */
+    public static final int SE = 8;
+    /** The neighbour below */
+    public static final int S  = 16;
+    /** The neighbour below and to the left */
+    public static final int SW = 32;
+    /** The neighbour to the left */
+    public static final int W  = 64;
+    /** The neighbour above and to the left */
+    public static final int NW = 128;
+
+    /** The wall texture for each neighbour mask (-1 for none) */
+    private static final byte[] WALL_TILES = new byte[256];
+    /** The hole texture for each neighbour mask (-1 for none) */
+    private static final byte[] HOLE_TILES = new byte[256];
+
+    static {
+        for (int mask = 0; mask < 256; mask++) {
+            WALL_TILES[mask] = (byte) wallRule(mask);
+            HOLE_TILES[mask] = (byte) holeRule(mask);
+        }
+    }
+
+    /**
+     * Returns the wall texture index for the given neighbour mask.
+     *
+     * @param mask The 8-neighbour mask of the wall tile
+     *
+     * @return the wall texture index for the mask, or -1 if none fits
+     */
+    public static int getWallTile(int mask) {
+        return WALL_TILES[mask & 0xff];
+    }
+
+    /**
+     * Returns the hole texture index for the given neighbour mask.
+     *
+     * @param mask The 8-neighbour mask of the hole tile
+     *
+     * @return the hole texture index for the mask, or -1 if none fits
+     */
+    public static int getHoleTile(int mask) {
+        return HOLE_TILES[mask & 0xff];
+    }
+
+    /**
+     * Returns the wall texture index for a mask, applying the tiling rules.
+     *
+     * The rules are checked in order and the first match wins.  The straight
+     * pieces with their diagonal gaps (20-24) have to come before the plain ones.
+     *
+     * @param mask The 8-neighbour mask of the wall tile
+     *
+     * @return the wall texture index for the mask, or -1 if none fits
+     */
+    private static int wallRule(int mask) {
+        boolean n = (mask & N) != 0, ne = (mask & NE) != 0, e = (mask & E) != 0, se = (mask & SE) != 0;
+        boolean s = (mask & S) != 0, sw = (mask & SW) != 0, w = (mask & W) != 0, nw = (mask & NW) != 0;
+
+        if (w && e && !n && s && !sw && !se) {
+            return 20;
+        }
+        if (w && e && n && s && !sw && !nw && !se) {
+            return 22;
+        }
+        if (!w && e && n && s && !ne && !se) {
+            return 23;
+        }
+        if (w && e && n && !s && !nw && !ne) {
+            return 24;
+        }
+        if (!w && !e && !n && s) {
+            return 0;
+        }
+        if (w && !e && !n && s && sw) {
+            return 1;
+        }
+        if (w && !e && !n && s) {
+            return 2;
+        }
+        if (w && e && !n && s) {
+            return 3;
+        }
+        if (!w && e && !n && s && se) {
+            return 4;
+        }
+        if (!w && e && !n && s && !se) {
+            return 5;
+        }
+        if (w && !e && !n && !s) {
+            return 6;
+        }
+        if (w && e && !n && !s) {
+            return 7;
+        }
+        if (w && !e && n && !s && !nw) {
+            return 8;
+        }
+        if (!w && e && !n && !s) {
+            return 9;
+        }
+        if (!w && !e && !n && !s) {
+            return 10;
+        }
+        if (!w && !e && n && !s) {
+            return 11;
+        }
+        if (!w && !e && n && s) {
+            return 12;
+        }
+        if (w && !e && n && s && sw && nw) {
+            return 13;
+        }
+        if (w && e && n && s) {
+            return 14;
+        }
+        if (!w && e && n && s) {
+            return 15;
+        }
+        if (w && !e && n && !s) {
+            return 16;
+        }
+        if (w && e && n && !s) {
+            return 17;
+        }
+        if (!w && e && n && !s && ne) {
+            return 18;
+        }
+        if (!w && e && n && !s && !ne) {
+            return 19;
+        }
+        if (w && !e && n && s && !sw && !nw) {
+            return 21;
+        }
+        if (w && !e && n && s && !nw) {
+            return 25;
+        }
+        if (!w && e && n && s && !ne) {
+            return 26;
+        }
+        if (w && !e && n && s && !sw) {
+            return 27;
+        }
+        if (!w && e && n && s && !ne) {
+            return 28;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the hole texture index for a mask, applying the tiling rules.
+     *
+     * The rules are checked in order and the first match wins.
+     *
+     * @param mask The 8-neighbour mask of the hole tile
+     *
+     * @return the hole texture index for the mask, or -1 if none fits
+     */
+    private static int holeRule(int mask) {
+        boolean n = (mask & N) != 0, ne = (mask & NE) != 0, e = (mask & E) != 0, se = (mask & SE) != 0;
+        boolean s = (mask & S) != 0, sw = (mask & SW) != 0, w = (mask & W) != 0, nw = (mask & NW) != 0;
+
+        if (!w && !e && !n && s) {
+            return 0;
+        }
+        if (w && !e && !n && s && sw) {
+            return 1;
+        }
+        if (w && !e && !n && s) {
+            return 2;
+        }
+        if (w && e && !n && s && sw && se) {
+            return 3;
+        }
+        if (!w && e && !n && s && se) {
+            return 4;
+        }
+        if (!w && e && !n && s && !se) {
+            return 5;
+        }
+        if (w && !e && !n && !s) {
+            return 6;
+        }
+        if (w && e && !n && !s) {
+            return 7;
+        }
+        if (w && !e && !n && s && !nw) {
+            return 8;
+        }
+        if (!w && e && !n && !s) {
+            return 9;
+        }
+        if (!w && !e && !n && !s) {
+            return 10;
+        }
+        if (!w && !e && n && !s) {
+            return 11;
+        }
+        if (!w && !e && n && s) {
+            return 12;
+        }
+        if (w && !e && n && s && sw && nw) {
+            return 13;
+        }
+        if (w && e && n && s && sw && nw && se) {
+            return 14;
+        }
+        if (!w && e && n && s && ne && se) {
+            return 15;
+        }
+        if (w && !e && n && !s) {
+            return 16;
+        }
+        if (w && e && n && !s && nw && ne) {
+            return 17;
+        }
+        if (!w && e && n && !s && ne) {
+            return 18;
+        }
+        if (!w && e && n && !s && !ne) {
+            return 19;
+        }
+        if (w && e && !n && s && !sw && !se) {
+            return 20;
+        }
+        if (w && !e && n && s && !sw && !nw) {
+            return 21;
+        }
+        if (w && e && n && s && !sw && !nw && !se) {
+            return 22;
+        }
+        if (!w && e && n && s && !ne && !se) {
+            return 23;
+        }
+        if (w && e && n && !s && !nw && !ne) {
+            return 24;
+        }
+        return -1;
+    }
+}
@@ -26,9 +26,17 @@ package edu.cornell.gdiac.rekindled;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.*;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
+import edu.cornell.gdiac.util.TextureRegistry;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 
 //import edu.cornell.gdiac.mesh.*;
@@ -36,69 +44,27 @@ import java.util.LinkedList;
 /**
  * Class represents a 2D grid of tiles.
  *
- * Most of the work is done by the internal Tile class.  The outer class is
- * really just a container.
+ * The tile attributes are stored as bit-planes: one long[] per attribute, with one
+ * bit per tile.  A tile is identified by a single int id (see tileId).  The outer
+ * class is really just a container for these planes.
+ *
+ * Tile ids are chunk-major: the board is cut into 32x32 chunks, and the 1024 tiles
+ * of a chunk are contiguous (16 words of every plane).  Each chunk keeps a dirty
+ * flag and a summary (whether it is dark) so that clears and drawing only touch
+ * the chunks that need it.  A board smaller than a chunk is a single chunk.
+ *
+ * Lighting is incremental.  Every tile keeps a count of the lit sources that reach
+ * it, and toggling a source only adds or subtracts that source's footprint.  The
+ * tiles whose lit state changed are reported once per update (see getLitChanges).
+ * Footprints are computed by a bounded flood fill and cached as stencils (arrays
+ * of tile ids) until a wall changes.
  */
-public class Board {
+public class Board implements BoardView {
 
     public boolean isLit(Vector2 pos) {
         int x = Math.round(pos.x);
         int y = Math.round(pos.y);
-        return tiles[x][y].isLitTile;
-    }
-
-    /**
-     * Each tile on the board has a set of attributes associated with it.
-     * However, no class other than board needs to access them directly.
-     * Therefore, we make this an inner class.
-     */
-    private static class TileState {
-        public boolean isLightSource;
-        public boolean isLitLightSource;
-        public boolean isWall;
-        public boolean isLitTile;
-        public boolean isDimTile;
-        public boolean isTinted;
-        public boolean isWater;
-
-        public boolean topBordered;
-        public boolean bottomBordered;
-        public boolean leftBordered;
-        public boolean rightBordered;
-
-        /** Is this a goal tiles */
-        public boolean goal = false;
-        /** Has this tile been visited (used for pathfinding)? */
-        public boolean visited = false;
-
-        private void setWall(){
-            isWall = true;
-            isLitLightSource = false;
-            isLightSource = false;
-            isLitTile = false;
-        }
-
-        private void setLitLightSource(){
-            isWall = false;
-            isLitLightSource = true;
-            isLightSource = true;
-            isLitTile = true;
-        }
-
-        private void setDimLightSource(){
-            isWall = false;
-            isLitLightSource = false;
-            isLightSource = true;
-            isLitTile = false;
-        }
-
-        public void setLit() {
-            isLitTile = true;
-        }
-
-        public void setDim() {
-            isDimTile = true;
-        }
+        return getBit(litBits, tileId(x, y));
     }
 
     // Constants
@@ -135,8 +101,29 @@ public class Board {
     private static final String UNLIT_LEFT_BORDER = "images/unlit_borders_left.png";
     private static final String UNLIT_RIGHT_BORDER = "images/unlit_borders_right.png";
 
+    /** The default distance (in tiles) that a source lights */
     private static final int LIGHT_RADIUS = 2;
 
+    /** The number of tiles packed into each word of a bit-plane */
+    private static final int BITS_PER_WORD = 64;
+    /** log2(BITS_PER_WORD); shifts a tile id to its word index */
+    private static final int WORD_SHIFT = 6;
+    /** log2 of the chunk width (in tiles) */
+    private static final int CHUNK_SHIFT = 5;
+    /** The chunk width (in tiles) */
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    /** Masks a tile coordinate to its position within a chunk */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /** log2 of the number of tiles in a chunk; shifts a tile id to its chunk index */
+    private static final int CHUNK_TILE_SHIFT = 2 * CHUNK_SHIFT;
+    /** The number of words a chunk takes in each bit-plane */
+    private static final int CHUNK_WORDS = (1 << CHUNK_TILE_SHIFT) >>> WORD_SHIFT;
+
+    /** Tolerance for grid traversal (how far short of a wall castBlock stops) */
+    private static final float CAST_EPSILON = 0.001f;
+    /** Chunk summary: no lit or tinted tiles */
+    private static final int CHUNK_DARK = 1;
+
     // Instance attributes
     /** The board width (in number of tiles) */
     private int width;
@@ -148,8 +135,77 @@ public class Board {
     public int[] walls;
 
     private LinkedList<Integer> lightSources;
-    /** The tile grid (with above dimensions) */
-    private TileState[][] tiles;
+
+    // Tile attribute bit-planes (one bit per tile, indexed by tile id)
+    /** Whether the tile is a wall */
+    private long[] wallBits;
+    /** Whether the tile is water (a hole) */
+    private long[] waterBits;
+    /** Whether the tile holds a light source (lit or dim) */
+    private long[] sourceBits;
+    /** Whether the tile holds a light source that is currently lit */
+    private long[] litSourceBits;
+    /** Whether the tile is lit */
+    private long[] litBits;
+    /** Whether the tile is dim */
+    private long[] dimBits;
+    /** Whether the tile is tinted (preview of a dim source the player stands on) */
+    private long[] tintedBits;
+    /** Whether the tinted tile draws a border on each side */
+    private long[] topBorderBits;
+    private long[] bottomBorderBits;
+    private long[] leftBorderBits;
+    private long[] rightBorderBits;
+
+    /** The number of chunks horizontally across the board */
+    private int chunksX;
+    /** The number of chunks vertically across the board */
+    private int chunksY;
+    /** The summary flags of each chunk (as of the last refreshChunks) */
+    private int[] chunkFlags;
+    /** Whether the chunk changed since its summary was computed */
+    private boolean[] chunkDirty;
+    /** Whether the chunk has tinted tiles */
+    private boolean[] chunkTinted;
+    private IntArray tintedChunks;
+
+    /** Number of lit sources whose footprint reaches each tile (lit iff > 0) */
+    private int[] lightCount;
+    /** Tiles whose lit state changed since the last update */
+    private IntArray pendingChanges;
+    /** Tiles whose lit state changed during the last update */
+    private IntArray litChanges;
+    /** Incremented every time the lit tiles change */
+    private int lightingVersion;
+    /** The dim source currently previewed with tinted tiles (-1 if none) */
+    private int tintSource = -1;
+    /** The distance (in tiles) that a source lights */
+    private int lightRadius = LIGHT_RADIUS;
+    /** Cached light footprints, keyed by radius and source tile id */
+    private LongMap<int[]> stencils;
+    /** Incremented every time a wall is added */
+    private int wallVersion;
+    /** Cached line of sight between tile centers, one per thread (invalidated by wallVersion) */
+    private ThreadLocal<LineOfSightCache> sightCache;
+    /** Every thread's line of sight cache, for the hit and miss counts (guarded by itself) */
+    private final Array<LineOfSightCache> sightCaches = new Array<LineOfSightCache>();
+    /** The pathfinding scratch space, one per thread */
+    private ThreadLocal<Pathfinder> pathfinder;
+    /** The shared distance field toward the player */
+    private ChaseField chaseField;
+    /** The tiles enemies have claimed or reserved */
+    private ReservationGrid reservations;
+    /** The cluster graph for long paths */
+    private ClusterMap clusterMap;
+    /** The long path search scratch space, one per thread */
+    private ThreadLocal<ClusterPathfinder> clusterPathfinder;
+    /** Scratch space for the light flood fill */
+    private int[] floodQueue;
+    private int[] floodDepth;
+    private int[] floodMarks;
+    private int floodStamp;
+    /** Cache for the result of getInteractedSource */
+    private Vector2 sourceCache = new Vector2();
     /**The texture for the light tile*/
     private Texture lightTile;
     /**the texture for the dark tile**/
@@ -200,6 +256,9 @@ public class Board {
 
     private static final Color sightTint = Color.SALMON;
 
+    /** The visible area of the world, in pixels (cached to avoid allocation) */
+    private Rectangle viewBounds = new Rectangle();
+
     /**
      * Creates a new board of the given size
      *
@@ -211,23 +270,24 @@ public class Board {
         this.width = width;
         this.height = height;
 
-        this.darkTile = new Texture(DARK_TILE);
-        this.lightTile = new Texture(LIGHT_TILE);
-        this.wallTexture = new Texture(WALL);
-        this.dimLightSource = new Texture(DIM_SOURCE);
-        this.litLightSource = new Texture(LIT_SOURCE);
-        this.waterDarkTile = new Texture(WATER_DARK_FILE);
-        this.waterLightTile = new Texture(WATER_LIGHT_FILE);
-
-        this.upBorder = new Texture(UP_BORDER);
-        this.downBorder = new Texture(DOWN_BORDER);
-        this.leftBorder = new Texture(LEFT_BORDER);
-        this.rightBorder = new Texture(RIGHT_BORDER);
-
-        this.unlitUpBorder = new Texture(UNLIT_UP_BORDER);
-        this.unlitDownBorder = new Texture(UNLIT_DOWN_BORDER);
-        this.unlitLeftBorder = new Texture(UNLIT_LEFT_BORDER);
-        this.unlitRightBorder = new Texture(UNLIT_RIGHT_BORDER);
+        TextureRegistry textures = TextureRegistry.getInstance();
+        this.darkTile = textures.acquire(DARK_TILE);
+        this.lightTile = textures.acquire(LIGHT_TILE);
+        this.wallTexture = textures.acquire(WALL);
+        this.dimLightSource = textures.acquire(DIM_SOURCE);
+        this.litLightSource = textures.acquire(LIT_SOURCE);
+        this.waterDarkTile = textures.acquire(WATER_DARK_FILE);
+        this.waterLightTile = textures.acquire(WATER_LIGHT_FILE);
+
+        this.upBorder = textures.acquire(UP_BORDER);
+        this.downBorder = textures.acquire(DOWN_BORDER);
+        this.leftBorder = textures.acquire(LEFT_BORDER);
+        this.rightBorder = textures.acquire(RIGHT_BORDER);
+
+        this.unlitUpBorder = textures.acquire(UNLIT_UP_BORDER);
+        this.unlitDownBorder = textures.acquire(UNLIT_DOWN_BORDER);
+        this.unlitLeftBorder = textures.acquire(UNLIT_LEFT_BORDER);
+        this.unlitRightBorder = textures.acquire(UNLIT_RIGHT_BORDER);
 
         this.darkRegion = new TextureRegion(darkTile, TILE_WIDTH, TILE_WIDTH);
         this.lightRegion = new TextureRegion(lightTile, TILE_WIDTH, TILE_WIDTH);
@@ -248,32 +308,74 @@ public class Board {
         this.unlitLeftBorderRegion = new TextureRegion(unlitLeftBorder, TILE_WIDTH + 16, TILE_WIDTH + 16);
         this.unlitRightBorderRegion = new TextureRegion(unlitRightBorder, TILE_WIDTH + 16, TILE_WIDTH + 16);
 
-        Vector2 temp = new Vector2();
         this.lightSources = new LinkedList<>();
 
         // Init Tiles
-        tiles = new TileState[width][height];
-        for (int x = 0; x < width; x++){
-            for (int y = 0; y < height; y++){
-                tiles[x][y] = new TileState();
+        chunksX = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        chunksY = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+        int chunks = chunksX * chunksY;
+        int tiles = chunks << CHUNK_TILE_SHIFT;
+        int words = tiles >>> WORD_SHIFT;
+        wallBits = new long[words];
+        waterBits = new long[words];
+        sourceBits = new long[words];
+        litSourceBits = new long[words];
+        litBits = new long[words];
+        dimBits = new long[words];
+        tintedBits = new long[words];
+        topBorderBits = new long[words];
+        bottomBorderBits = new long[words];
+        leftBorderBits = new long[words];
+        rightBorderBits = new long[words];
+        lightCount = new int[tiles];
+        pendingChanges = new IntArray();
+        litChanges = new IntArray();
+        stencils = new LongMap<>();
+        sightCache = new ThreadLocal<LineOfSightCache>() {
+            @Override
+            protected LineOfSightCache initialValue() {
+                LineOfSightCache cache = new LineOfSightCache();
+                synchronized (sightCaches) {
+                    sightCaches.add(cache);
+                }
+                return cache;
             }
+        };
+        pathfinder = new ThreadLocal<Pathfinder>() {
+            @Override
+            protected Pathfinder initialValue() {
+                return new Pathfinder(Board.this.width, Board.this.height);
+            }
+        };
+        chaseField = new ChaseField(this);
+        clusterMap = new ClusterMap(this);
+        clusterPathfinder = new ThreadLocal<ClusterPathfinder>() {
+            @Override
+            protected ClusterPathfinder initialValue() {
+                return new ClusterPathfinder(clusterMap);
+            }
+        };
+        floodQueue = new int[tiles];
+        floodDepth = new int[tiles];
+        floodMarks = new int[tiles];
+
+        chunkFlags = new int[chunks];
+        chunkDirty = new boolean[chunks];
+        chunkTinted = new boolean[chunks];
+        tintedChunks = new IntArray();
+        Arrays.fill(chunkDirty, true);
+
+        // Set perimeter as wall
+        int[] perimeter = getPerimeter(width, height);
+        for (int ii = 0; ii < perimeter.length - 1; ii += 2){
+            setWall(tileId(perimeter[ii], perimeter[ii+1]));
         }
-             // Set perimeter as wall
-        for (int x = 0; x < tiles.length; x++){
-            tiles[x][0].setWall();
-            tiles[x][this.height - 1].setWall();
-        }
-        for (int y = 0; y < tiles[0].length; y++){
-            tiles[0][y].setWall();
-            tiles[this.width - 1][y].setWall();
-        }
-
-        // Resets visited/goal flags of tiles only. Used for pathfinding.
-        // I don't know if this needs to be here
-        resetTiles();
-
-
 
+        // The thread that builds the board runs the game, so make its scratch space
+        // now rather than on its first query in the middle of the level
+        sightCache.get();
+        pathfinder.get();
+        clusterPathfinder.get();
     }
 
     public Board(int width, int height, int[] walls, LightSourceObject[] lights, int[] water) {
@@ -283,13 +385,15 @@ public class Board {
 
         // Set walls
         for(int ii = 0; ii < walls.length-1; ii += 2){
-            tiles[walls[ii]][walls[ii+1]].setWall();
+            setWall(tileId(walls[ii], walls[ii+1]));
         }
         this.walls = walls;
 
         // Set Water
         for (int ii = 0; ii < water.length -1 ; ii+= 2){
-            tiles[water[ii]][water[ii+1]].isWater = true;
+            int id = tileId(water[ii], water[ii+1]);
+            setBit(waterBits, id);
+            markChunkDirty(id);
         }
 
         // Set light sources
@@ -298,32 +402,201 @@ public class Board {
             lightSources.add((int) temp.x);
             lightSources.add((int) temp.y);
             if (light.isLit()){
-                tiles[(int) temp.x][(int) temp.y].setLitLightSource();
-                updateLitTiles(temp, false);
+                setLitLightSource(tileId((int) temp.x, (int) temp.y));
             }
             else {
-                tiles[(int) temp.x][(int) temp.y].setDimLightSource();
+                setDimLightSource(tileId((int) temp.x, (int) temp.y));
             }
         }
+        rebuildLighting();
+    }
+
+    /**
+     * Returns the walls around the edge of a board of the given size.
+     *
+     * Every board has these walls, whether or not the level lists them.
+     *
+     * @param width Board width in tiles
+     * @param height Board height in tiles
+     *
+     * @return the perimeter walls, as x,y pairs (the level JSON format)
+     */
+    public static int[] getPerimeter(int width, int height) {
+        int[] perimeter = new int[4 * (width + height)];
+        int idx = 0;
+        for (int x = 0; x < width; x++){
+            perimeter[idx++] = x;
+            perimeter[idx++] = 0;
+            perimeter[idx++] = x;
+            perimeter[idx++] = height - 1;
+        }
+        for (int y = 0; y < height; y++){
+            perimeter[idx++] = 0;
+            perimeter[idx++] = y;
+            perimeter[idx++] = width - 1;
+            perimeter[idx++] = y;
+        }
+        return perimeter;
+    }
+
+    /**
+     * Releases the textures held by this board.
+     *
+     * The textures are shared, so a new board should be created before the old one
+     * is disposed; otherwise they are unloaded and loaded again.
+     */
+    public void dispose() {
+        TextureRegistry textures = TextureRegistry.getInstance();
+        textures.release(DARK_TILE);
+        textures.release(LIGHT_TILE);
+        textures.release(WALL);
+        textures.release(DIM_SOURCE);
+        textures.release(LIT_SOURCE);
+        textures.release(WATER_DARK_FILE);
+        textures.release(WATER_LIGHT_FILE);
+        textures.release(UP_BORDER);
+        textures.release(DOWN_BORDER);
+        textures.release(LEFT_BORDER);
+        textures.release(RIGHT_BORDER);
+        textures.release(UNLIT_UP_BORDER);
+        textures.release(UNLIT_DOWN_BORDER);
+        textures.release(UNLIT_LEFT_BORDER);
+        textures.release(UNLIT_RIGHT_BORDER);
+    }
+
+    /**
+     * Returns the tile id for the cell (x,y).
+     *
+     * The tile id is the index of this tile in every bit-plane.  Ids are grouped
+     * by chunk, so neighbouring tiles only have adjacent ids within a chunk row.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return the tile id for the cell (x,y).
+     */
+    public int tileId(int x, int y) {
+        int chunk = (x >> CHUNK_SHIFT) + (y >> CHUNK_SHIFT) * chunksX;
+        return (chunk << CHUNK_TILE_SHIFT) | ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    /**
+     * Returns the x index of the cell with the given tile id.
+     *
+     * @param id The tile id
+     *
+     * @return the x index of the cell with the given tile id.
+     */
+    public int tileX(int id) {
+        int chunk = id >>> CHUNK_TILE_SHIFT;
+        return ((chunk % chunksX) << CHUNK_SHIFT) | (id & CHUNK_MASK);
+    }
+
+    /**
+     * Returns the y index of the cell with the given tile id.
+     *
+     * @param id The tile id
+     *
+     * @return the y index of the cell with the given tile id.
+     */
+    public int tileY(int id) {
+        int chunk = id >>> CHUNK_TILE_SHIFT;
+        return ((chunk / chunksX) << CHUNK_SHIFT) | ((id >>> CHUNK_SHIFT) & CHUNK_MASK);
+    }
+
+    /** Returns true if the bit for tile id is set in the given plane */
+    private static boolean getBit(long[] plane, int id) {
+        return (plane[id >>> WORD_SHIFT] & (1L << id)) != 0;
+    }
+
+    /** Sets the bit for tile id in the given plane */
+    private static void setBit(long[] plane, int id) {
+        plane[id >>> WORD_SHIFT] |= 1L << id;
+    }
+
+    /** Clears the bit for tile id in the given plane */
+    private static void clearBit(long[] plane, int id) {
+        plane[id >>> WORD_SHIFT] &= ~(1L << id);
+    }
+
+    private void setWall(int id) {
+        if (!getBit(wallBits, id)) {
+            wallsChanged();
+        }
+        setBit(wallBits, id);
+        clearBit(litSourceBits, id);
+        clearBit(sourceBits, id);
+        markChunkDirty(id);
+    }
+
+    private void setLitLightSource(int id) {
+        if (getBit(wallBits, id)) {
+            wallsChanged();
+        }
+        clearBit(wallBits, id);
+        setBit(litSourceBits, id);
+        setBit(sourceBits, id);
+        markChunkDirty(id);
+    }
 
-        // Resets visited/goal flags of tiles only. Used for pathfinding.
-        resetTiles();
+    private void setDimLightSource(int id) {
+        if (getBit(wallBits, id)) {
+            wallsChanged();
+        }
+        clearBit(wallBits, id);
+        clearBit(litSourceBits, id);
+        setBit(sourceBits, id);
+        markChunkDirty(id);
+    }
 
+    /** Drops every cached light stencil after a wall is added or removed */
+    private void wallsChanged() {
+        wallVersion++;
+        stencils.clear();
     }
 
-        /**
-         * Resets the values of all the tiles on screen.
-         */
-    public void resetTiles() {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                TileState tile = tiles[x][y];
-                tile.goal = false;
-                tile.visited = false;
+    /** Marks the chunk holding tile id as changed */
+    private void markChunkDirty(int id) {
+        chunkDirty[id >>> CHUNK_TILE_SHIFT] = true;
+    }
+
+    /**
+     * Recomputes the summary flags of every dirty chunk.
+     *
+     * This runs in update and draw (on the main thread), so that reading a summary
+     * never writes to the board.
+     */
+    private void refreshChunks() {
+        for (int chunk = 0; chunk < chunkDirty.length; chunk++) {
+            if (!chunkDirty[chunk]) {
+                continue;
+            }
+            long light = 0;
+            int start = chunk * CHUNK_WORDS;
+            for (int w = start; w < start + CHUNK_WORDS; w++) {
+                light |= litBits[w] | tintedBits[w];
             }
+            chunkFlags[chunk] = light == 0 ? CHUNK_DARK : 0;
+            chunkDirty[chunk] = false;
         }
     }
 
+    /** Records that the chunk holding tile id has tinted tiles */
+    private void markChunkTinted(int id) {
+        int chunk = id >>> CHUNK_TILE_SHIFT;
+        if (!chunkTinted[chunk]) {
+            chunkTinted[chunk] = true;
+            tintedChunks.add(chunk);
+        }
+        chunkDirty[chunk] = true;
+    }
+
+    /** Clears the words of a chunk in the given plane */
+    private static void clearChunk(long[] plane, int chunk) {
+        int start = chunk * CHUNK_WORDS;
+        Arrays.fill(plane, start, start + CHUNK_WORDS, 0L);
+    }
+
     public boolean isSafeAt(int x, int y) {
         return x >= 0 && y >= 0 && x < width && y < height;
     }
@@ -331,30 +604,32 @@ public class Board {
 
     public void reset(int[] walls, int[] litSources, int[] dimSources){
         for(int ii = 0; ii < walls.length-1; ii += 2){
-            tiles[walls[ii]][walls[ii+1]].setWall();
+            setWall(tileId(walls[ii], walls[ii+1]));
         }
         for(int ii = 0; ii < litSources.length-1; ii += 2){
-            tiles[litSources[ii]][litSources[ii+1]].setLitLightSource();
+            setLitLightSource(tileId(litSources[ii], litSources[ii+1]));
         }
         for(int ii = 0; ii < dimSources.length-1; ii += 2){
-            tiles[dimSources[ii]][dimSources[ii+1]].setDimLightSource();
+            setDimLightSource(tileId(dimSources[ii], dimSources[ii+1]));
         }
+        rebuildLighting();
     }
 
     public void reset(int[] walls, LightSourceObject[] lights){
         for(int ii = 0; ii < walls.length-1; ii += 2){
-            tiles[walls[ii]][walls[ii+1]].setWall();
+            setWall(tileId(walls[ii], walls[ii+1]));
         }
         Vector2 temp;
         for (LightSourceObject light : lights){
             temp = light.getPosition();
             if (light.isLit()){
-                tiles[(int) temp.x][(int) temp.y].setLitLightSource();
+                setLitLightSource(tileId((int) temp.x, (int) temp.y));
             }
             else {
-                tiles[(int) temp.x][(int) temp.y].setDimLightSource();
+                setDimLightSource(tileId((int) temp.x, (int) temp.y));
             }
         }
+        rebuildLighting();
     }
 
     /**
@@ -406,102 +681,154 @@ public class Board {
         int xx = Math.round(pos.x);
         int yy = Math.round(pos.y);
 
-        Vector2 temp = new Vector2();
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                TileState tile = tiles[x][y];
-                tile.isLitTile = false;
-                tile.isTinted = false;
-
-                tile.topBordered = false;
-                tile.bottomBordered = false;
-                tile.leftBordered = false;
-                tile.rightBordered = false;
-            }
-        }
-
-        if (tiles[xx][yy].isLightSource && !tiles[xx][yy].isLitLightSource) {
-            updateLitTiles(pos, true);
-        }
-        for(int ii = 0; ii < lightSources.size() -1; ii += 2){
-            TileState source = tiles[lightSources.get(ii)][lightSources.get(ii+1)];
-            //URGENT: Change so new vector is not created
-            if (source.isLitLightSource) {
-                temp.set(lightSources.get(ii), lightSources.get(ii + 1));
-
-                updateLitTiles(temp, false);
+        // Publish the lit changes made since the last update
+        IntArray temp = litChanges;
+        litChanges = pendingChanges;
+        pendingChanges = temp;
+        pendingChanges.clear();
+        clusterMap.patch(litChanges);
+
+        // The tint only changes when the player steps on or off a dim source
+        int id = tileId(xx, yy);
+        int tint = (getBit(sourceBits, id) && !getBit(litSourceBits, id)) ? id : -1;
+        if (tint != tintSource) {
+            clearTint();
+            tintSource = tint;
+            if (tint != -1) {
+                tintTiles(xx, yy);
             }
         }
+        refreshChunks();
+    }
 
+    /**
+     * Returns the tiles whose lit state changed during the last update.
+     *
+     * A tile may appear more than once if it was toggled several times; read the
+     * current state with isLitTileBoard.  The array is reused on the next update.
+     *
+     * @return the tiles (by tile id) whose lit state changed during the last update
+     */
+    public IntArray getLitChanges() {
+        return litChanges;
+    }
 
+    /**
+     * Returns a counter that is incremented every time the lit tiles change.
+     *
+     * @return a counter that is incremented every time the lit tiles change
+     */
+    public int getLightingVersion() {
+        return lightingVersion;
     }
 
     /**
      * Draws the board to the given canvas.
      *
-     * This method draws all of the tiles in this board. It should be the first drawing
-     * pass in the GameEngine.
+     * This method draws the parts of the board that change: lit water, lit tiles and
+     * the tint borders.  The dark ground never changes and is drawn from a sprite cache
+     * (see cacheGround) before this pass.
      *
      * @param canvas the drawing context
      */
     public void draw(GameCanvas canvas) {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                drawTile(x, y, canvas);
+        // Only draw the tiles under the camera (plus a tile for the borders)
+        canvas.getViewBounds(viewBounds);
+        int x0 = Math.max(0, pixelToTile(viewBounds.x) - 1);
+        int y0 = Math.max(0, pixelToTile(viewBounds.y) - 1);
+        int x1 = Math.min(width - 1, pixelToTile(viewBounds.x + viewBounds.width) + 1);
+        int y1 = Math.min(height - 1, pixelToTile(viewBounds.y + viewBounds.height) + 1);
+
+        // Chunks with no lit or tinted tiles have nothing to draw
+        refreshChunks();
+        for (int pass = 0; pass < 2; pass++) {
+            for (int cx = x0 >> CHUNK_SHIFT; cx <= x1 >> CHUNK_SHIFT; cx++) {
+                for (int cy = y0 >> CHUNK_SHIFT; cy <= y1 >> CHUNK_SHIFT; cy++) {
+                    if ((chunkFlags[cx + cy * chunksX] & CHUNK_DARK) != 0) {
+                        continue;
+                    }
+                    int xe = Math.min(x1, ((cx + 1) << CHUNK_SHIFT) - 1);
+                    int ye = Math.min(y1, ((cy + 1) << CHUNK_SHIFT) - 1);
+                    for (int x = Math.max(x0, cx << CHUNK_SHIFT); x <= xe; x++) {
+                        for (int y = Math.max(y0, cy << CHUNK_SHIFT); y <= ye; y++) {
+                            if (pass == 0)
+                                drawTile(x, y, canvas);
+                            else
+                                drawLit(x, y, canvas);
+                        }
+                    }
+                }
             }
         }
+    }
 
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                drawLit(x, y, canvas);
+    /**
+     * Adds the dark ground of a rectangle of tiles to a sprite cache.
+     *
+     * The cache must be between beginCache and endCache.  Sprites are placed in world
+     * coordinates (pixels), exactly where drawTile would put them.
+     *
+     * @param cache The sprite cache to add to
+     * @param x0 The left tile of the rectangle
+     * @param y0 The bottom tile of the rectangle
+     * @param x1 The right tile of the rectangle (exclusive)
+     * @param y1 The top tile of the rectangle (exclusive)
+     */
+    public void cacheGround(SpriteCache cache, int x0, int y0, int x1, int y1) {
+        x1 = Math.min(width, x1);
+        y1 = Math.min(height, y1);
+        for (int x = x0; x < x1; x++) {
+            for (int y = y0; y < y1; y++) {
+                TextureRegion region = getBit(waterBits, tileId(x, y)) ? waterDarkRegion : darkRegion;
+                cache.add(region, boardToScreenCenter(x), boardToScreenCenter(y));
             }
         }
     }
 
     /**
-     * Draws the individual tile at position (x,y).
+     * Returns the tile drawn under a world position (in pixels).
+     *
+     * Tiles are drawn centered on their board position (see boardToScreenCenter).
+     */
+    private int pixelToTile(float p) {
+        return MathUtils.floor((p + getTileSize() / 2f) / getTileSize());
+    }
+
+    /**
+     * Draws the individual tile at position (x,y) if it is lit water.
      *
-     * Fallen tiles are not drawn.
+     * Every other tile is part of the cached ground.
      *
      * @param x The x index for the Tile cell
      * @param y The y index for the Tile cell
      */
     private void drawTile(int x, int y, GameCanvas canvas) {
-        TileState tile = tiles[x][y];
-        // Compute drawing coordinates
-        float sx = boardToScreenCenter(x);
-        float sy = boardToScreenCenter(y);
-
-
-        Color tint = (tile.isTinted) ? Color.CYAN : Color.WHITE;
-        tint = Color.WHITE;
-
-        if (tile.isLitTile && tile.isWater){
-            canvas.draw(waterLightRegion, tint, 0, 0, sx, sy, 0, 1 , 1 );
-        } else if (tile.isWater){
-            canvas.draw(waterDarkRegion, tint, 0, 0, sx, sy, 0, 1 , 1 );
-        } else {
-            canvas.draw(darkRegion, tint, 0, 0, sx, sy, 0, 1 , 1 );
+        int id = tileId(x, y);
+        if (getBit(waterBits, id) && getBit(litBits, id)){
+            // Compute drawing coordinates
+            float sx = boardToScreenCenter(x);
+            float sy = boardToScreenCenter(y);
+            canvas.draw(waterLightRegion, Color.WHITE, 0, 0, sx, sy, 0, 1 , 1 );
         }
     }
 
     private void drawLit(int x, int y, GameCanvas canvas) {
-        TileState tile = tiles[x][y];
+        int id = tileId(x, y);
         // Compute drawing coordinates
         float sx = boardToScreenCenter(x);
         float sy = boardToScreenCenter(y);
 
-        if (tile.isTinted) {
-            if (tile.topBordered)
+        if (getBit(tintedBits, id)) {
+            if (getBit(topBorderBits, id))
                 canvas.draw(unlitUpBorderRegion, Color.WHITE, 6, 5, sx, sy, 0, 1, 1);
-            if (tile.bottomBordered)
+            if (getBit(bottomBorderBits, id))
                 canvas.draw(unlitDownBorderRegion, Color.WHITE, 9, 11, sx, sy, 0, 1, 1);
-            if (tile.leftBordered)
+            if (getBit(leftBorderBits, id))
                 canvas.draw(unlitLeftBorderRegion, Color.WHITE, 11, 12, sx, sy, 0, 1, 1);
-            if (tile.rightBordered)
+            if (getBit(rightBorderBits, id))
                 canvas.draw(unlitRightBorderRegion, Color.WHITE, 4, 1, sx, sy, 0, 1, 1);
         }
-        if (tile.isLitTile && !tile.isWater) {
+        if (getBit(litBits, id) && !getBit(waterBits, id)) {
             canvas.draw(lightRegion, Color.WHITE, 0, 0, sx, sy, 0, 1, 1);
             canvas.draw(upBorderRegion, Color.WHITE, 5, 8, sx, sy, 0, 1, 1);
             canvas.draw(downBorderRegion, Color.WHITE, 8, 10, sx, sy, 0, 1, 1);
@@ -540,18 +867,331 @@ public class Board {
 
     public boolean isWall(int x, int y){
         if (inBounds(x, y)){
-            return tiles[x][y].isWall;
+            return getBit(wallBits, tileId(x, y));
         }
         return false;
     }
 
     public boolean isHole(int x, int y){
         if (inBounds(x, y)){
-            return tiles[x][y].isWater;
+            return getBit(waterBits, tileId(x, y));
         }
         return false;
     }
 
+    /**
+     * Computes the 8-neighbour mask of every tile in one sweep.
+     *
+     * Each mask has the Autotiler bit set for each neighbour that is a wall (or
+     * water, if water is true).  Tiles off the board count as empty, just like
+     * isWall and isHole.  The sweep slides a 3x3 window along each row, so every
+     * tile is read only three times.
+     *
+     * @param water Whether to mask water tiles instead of walls
+     * @param out   The masks, indexed x + y * width (must hold width * height)
+     */
+    public void computeNeighborMasks(boolean water, byte[] out) {
+        long[] plane = water ? waterBits : wallBits;
+        for (int y = 0; y < height; y++) {
+            int prev = 0;
+            int cur = maskColumn(plane, 0, y);
+            for (int x = 0; x < width; x++) {
+                int next = x + 1 < width ? maskColumn(plane, x + 1, y) : 0;
+                int mask = 0;
+                if ((cur & 4) != 0)  mask |= Autotiler.N;
+                if ((next & 4) != 0) mask |= Autotiler.NE;
+                if ((next & 2) != 0) mask |= Autotiler.E;
+                if ((next & 1) != 0) mask |= Autotiler.SE;
+                if ((cur & 1) != 0)  mask |= Autotiler.S;
+                if ((prev & 1) != 0) mask |= Autotiler.SW;
+                if ((prev & 2) != 0) mask |= Autotiler.W;
+                if ((prev & 4) != 0) mask |= Autotiler.NW;
+                out[x + y * width] = (byte) mask;
+                prev = cur;
+                cur = next;
+            }
+        }
+    }
+
+    /**
+     * Returns true if no wall lies on the segment between two points.
+     *
+     * The points are in tile coordinates, where tile (x,y) is the unit square
+     * centered on (x,y).  See GridTraversal for how the tiles are walked.
+     *
+     * @param x0 The x-coordinate of the start point
+     * @param y0 The y-coordinate of the start point
+     * @param x1 The x-coordinate of the end point
+     * @param y1 The y-coordinate of the end point
+     *
+     * @return true if no wall lies on the segment between two points
+     */
+    public boolean hasLineOfSight(float x0, float y0, float x1, float y1) {
+        return GridTraversal.hasLineOfSight(this, x0, y0, x1, y1);
+    }
+
+    /**
+     * Returns true if no wall lies between the centers of two tiles.
+     *
+     * This is hasLineOfSight on the tile centers, but the answers are cached
+     * until the walls change.  Each thread has its own cache.
+     *
+     * @param x0 The x index of the first tile
+     * @param y0 The y index of the first tile
+     * @param x1 The x index of the second tile
+     * @param y1 The y index of the second tile
+     *
+     * @return true if no wall lies between the centers of two tiles
+     */
+    public boolean hasTileLineOfSight(int x0, int y0, int x1, int y1) {
+        return sightCache.get().hasLineOfSight(this, x0, y0, x1, y1);
+    }
+
+    /**
+     * Returns the number of hasTileLineOfSight lookups answered from a cache.
+     *
+     * This counts the caches of every thread.  Read it between planning phases, not
+     * while the enemies plan.
+     *
+     * @return the number of hasTileLineOfSight lookups answered from a cache
+     */
+    public long getSightHits() {
+        long hits = 0;
+        synchronized (sightCaches) {
+            for (int ii = 0; ii < sightCaches.size; ii++) {
+                hits += sightCaches.get(ii).getHits();
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Returns the number of hasTileLineOfSight lookups that had to walk the grid.
+     *
+     * This counts the caches of every thread.  Read it between planning phases, not
+     * while the enemies plan.
+     *
+     * @return the number of hasTileLineOfSight lookups that had to walk the grid
+     */
+    public long getSightMisses() {
+        long misses = 0;
+        synchronized (sightCaches) {
+            for (int ii = 0; ii < sightCaches.size; ii++) {
+                misses += sightCaches.get(ii).getMisses();
+            }
+        }
+        return misses;
+    }
+
+    /**
+     * Returns the fraction of hasTileLineOfSight lookups answered from a cache.
+     *
+     * @return the fraction of lookups answered from a cache (0 if none yet)
+     */
+    public float getSightHitRate() {
+        long hits = getSightHits();
+        long total = hits + getSightMisses();
+        return total == 0 ? 0 : (float) hits / total;
+    }
+
+    /**
+     * Returns the number of line of sight caches (one per thread that has asked).
+     *
+     * Each cache warms up separately, so more caches mean more misses.
+     *
+     * @return the number of line of sight caches
+     */
+    public int getSightCacheCount() {
+        synchronized (sightCaches) {
+            return sightCaches.size;
+        }
+    }
+
+    /**
+     * Resets the hit and miss counts of every thread's line of sight cache.
+     */
+    public void resetSightStats() {
+        synchronized (sightCaches) {
+            for (int ii = 0; ii < sightCaches.size; ii++) {
+                sightCaches.get(ii).resetStats();
+            }
+        }
+    }
+
+    /**
+     * Returns the pathfinder of the calling thread.
+     *
+     * Each thread has its own scratch space, so enemies can plan in parallel.  A
+     * path must still be read before the next query on the same thread.
+     *
+     * @return the pathfinder of the calling thread
+     */
+    @Override
+    public Pathfinder getPathfinder() {
+        return pathfinder.get();
+    }
+
+    /**
+     * Brings the distance field toward the player up to date.
+     *
+     * The field is rebuilt only if the player tile, the lit tiles or the walls
+     * have changed since the last call.  This must be called before the enemies
+     * plan, not during.
+     *
+     * @param px The x index of the player tile
+     * @param py The y index of the player tile
+     */
+    public void updateChaseField(int px, int py) {
+        chaseField.update(px, py);
+    }
+
+    /**
+     * Returns the distance field toward the player, as of its last update.
+     *
+     * @return the distance field toward the player
+     */
+    @Override
+    public ChaseField getChaseField() {
+        return chaseField;
+    }
+
+    /**
+     * Returns the hierarchical search of the calling thread.
+     *
+     * The cluster graph it searches is patched in update, so it is current as of
+     * the last update.
+     *
+     * @return the hierarchical search of the calling thread
+     */
+    @Override
+    public ClusterPathfinder getClusterPathfinder() {
+        return clusterPathfinder.get();
+    }
+
+    /**
+     * Returns the cluster graph for long paths.
+     *
+     * @return the cluster graph for long paths
+     */
+    public ClusterMap getClusterMap() {
+        return clusterMap;
+    }
+
+    /**
+     * Creates the reservation grid for the given number of enemies.
+     *
+     * This replaces any grid from before, with all of its claims.
+     *
+     * @param owners The number of enemies
+     */
+    public void createReservations(int owners) {
+        reservations = new ReservationGrid(width, height, owners);
+    }
+
+    /**
+     * Returns the tiles enemies have claimed or reserved.
+     *
+     * @return the tiles enemies have claimed or reserved
+     */
+    @Override
+    public ReservationGrid getReservations() {
+        return reservations;
+    }
+
+    /**
+     * Returns how far a 2x2 block of tiles can move before it hits a wall.
+     *
+     * The block is the tiles (floor(x),floor(y)) to (floor(x)+1,floor(y)+1), which
+     * is what a thrown enemy checks as it slides.  The block moves from (x,y)
+     * along the unit vector (dx,dy), and only changes when x or y crosses a
+     * whole number, so this steps through those crossings in order rather than
+     * marching in small increments.
+     *
+     * @param x  The starting x-coordinate
+     * @param y  The starting y-coordinate
+     * @param dx The x-component of the (unit) direction
+     * @param dy The y-component of the (unit) direction
+     * @param maxDistance The farthest to move
+     *
+     * @return how far the block can move (at most maxDistance) before it hits a wall
+     */
+    public float castBlock(float x, float y, float dx, float dy, float maxDistance) {
+        int cx = MathUtils.floor(x);
+        int cy = MathUtils.floor(y);
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        float deltaX = dx != 0 ? Math.abs(1 / dx) : Float.MAX_VALUE;
+        float deltaY = dy != 0 ? Math.abs(1 / dy) : Float.MAX_VALUE;
+        float nextX = dx == 0 ? Float.MAX_VALUE : (dx > 0 ? cx + 1 - x : x - cx) * deltaX;
+        float nextY = dy == 0 ? Float.MAX_VALUE : (dy > 0 ? cy + 1 - y : y - cy) * deltaY;
+
+        // Moving down or left from a whole number changes the block immediately
+        if (nextX == 0) {
+            cx += stepX;
+            nextX = deltaX;
+        }
+        if (nextY == 0) {
+            cy += stepY;
+            nextY = deltaY;
+        }
+        if (isBlockWall(cx, cy)) {
+            return 0;
+        }
+
+        while (true) {
+            float t = Math.min(nextX, nextY);
+            if (t > maxDistance) {
+                return maxDistance;
+            }
+            if (nextX <= t) {
+                cx += stepX;
+                nextX += deltaX;
+            }
+            if (nextY <= t) {
+                cy += stepY;
+                nextY += deltaY;
+            }
+            if (isBlockWall(cx, cy)) {
+                // Stop just short of the crossing, so the block is still clear
+                return Math.max(0, t - CAST_EPSILON);
+            }
+        }
+    }
+
+    /**
+     * Returns true if any tile in the 2x2 block with lower-left (x,y) is a wall.
+     *
+     * @param x The x index for the lower-left Tile cell
+     * @param y The y index for the lower-left Tile cell
+     *
+     * @return true if any tile in the 2x2 block with lower-left (x,y) is a wall
+     */
+    private boolean isBlockWall(int x, int y) {
+        return isWall(x, y) || isWall(x + 1, y) || isWall(x, y + 1) || isWall(x + 1, y + 1);
+    }
+
+    /**
+     * Returns the column of three tiles centered on (x,y) as bits.
+     *
+     * Bit 0 is the tile below, bit 1 the tile itself and bit 2 the tile above.
+     *
+     * @param plane The bit-plane to read
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return the column of three tiles centered on (x,y) as bits
+     */
+    private int maskColumn(long[] plane, int x, int y) {
+        int bits = getBit(plane, tileId(x, y)) ? 2 : 0;
+        if (y > 0 && getBit(plane, tileId(x, y - 1))) {
+            bits |= 1;
+        }
+        if (y + 1 < height && getBit(plane, tileId(x, y + 1))) {
+            bits |= 4;
+        }
+        return bits;
+    }
+
 
 
     /**
@@ -620,142 +1260,50 @@ public class Board {
     }
 
     /**
-     * Returns true if the tile has been visited.
+     * Returns true if the tile at the given position blocks the chase flood.
      *
-     * A tile position that is not on the board will always evaluate to false.
+     * @param position The position in world coordinates
      *
-     * @param x The x index for the Tile cell
-     * @param y The y index for the Tile cell
-     *
-     * @return true if the tile has been visited.
-     */
-    public boolean isVisited(int x, int y) {
-        if (!inBounds(x, y)) {
-            return false;
-        }
-
-        return tiles[x][y].visited;
-    }
-
-    /**
-     * Marks a tile as visited.
-     *
-     * A marked tile will return true for isVisited(), until a call to clearMarks().
-     *
-     * @param x The x index for the Tile cell
-     * @param y The y index for the Tile cell
-     */
-    public void setVisited(int x, int y) {
-        if (!inBounds(x,y)) {
-            Gdx.app.error("Board", "Illegal tile "+x+","+y, new IndexOutOfBoundsException());
-            return;
-        }
-        tiles[x][y].visited = true;
-    }
-
-    /**
-     * Returns true if the tile is a goal.
-     *
-     * A tile position that is not on the board will always evaluate to false.
-     *
-     *
-     * @return true if the tile is a goal.
+     * @return true if the tile is a wall, a light source or water.
      */
     public boolean isObstructed(Vector2 position) {
-        TileState tile = tiles[screenToBoard(position.x)][screenToBoard(position.y)];
-        return tile.isWall || tile.isLightSource || tile.isWater;
+        return isObstructedBoard(screenToBoard(position.x), screenToBoard(position.y));
     }
 
     public boolean isObstructedBoard(int x, int y) {
-        TileState tile = tiles[x][y];
-        return tile.isWall || tile.isLightSource || tile.isWater;
+        int id = tileId(x, y);
+        return getBit(wallBits, id) || getBit(sourceBits, id) || getBit(waterBits, id);
     }
 
     public boolean isLitTile(Vector2 position){
-        TileState tile = tiles[screenToBoard(position.x)][screenToBoard(position.y)];
-        return tile.isLitTile;
+        return getBit(litBits, tileId(screenToBoard(position.x), screenToBoard(position.y)));
     }
 
     public boolean isDimTile(Vector2 position) {
-        TileState tile = tiles[screenToBoard(position.x)][screenToBoard(position.y)];
-        return tile.isDimTile;
+        return getBit(dimBits, tileId(screenToBoard(position.x), screenToBoard(position.y)));
     }
 
     public boolean isLitTileBoard(int x, int y){
-        if (x > width || y > height){
+        if (!inBounds(x, y)){
             return false;
         }
-        TileState tile = tiles[x][y];
-        return tile.isLitTile;
+        return getBit(litBits, tileId(x, y));
     }
 
     public boolean isEnemyMovable(int x, int y){
         if (x >= width || y >= height){
             return false;
         }
-        TileState tile = tiles[x][y];
-        return tile.isWall || tile.isLitTile || tile.isWater;
+        int id = tileId(x, y);
+        return getBit(wallBits, id) || getBit(litBits, id) || getBit(waterBits, id);
     }
 
     public boolean isLitLightSource(Vector2 position){
-        TileState tile = tiles[screenToBoard(position.x)][screenToBoard(position.y)];
-        return tile.isLitLightSource;
-    }
-
-
-
-    /**
-     * Marks a tile as a goal.
-     *
-     * A marked tile will return true for isGoal(), until a call to clearMarks().
-     *
-     * @param x The x index for the Tile cell
-     * @param y The y index for the Tile cell
-     */
-    public void setGoal(int x, int y) {
-        if (!inBounds(x,y)) {
-            Gdx.app.error("Board", "Illegal tile "+x+","+y, new IndexOutOfBoundsException());
-            return;
-        }
-        tiles[x][y].goal = true;
-    }
-
-    public boolean isGoal(int x, int y){
-        return tiles[x][y].goal;
-    }
-
-
-    /**
-     * Clears all marks on the board.
-     *
-     * This method should be done at the beginning of any pathfinding round.
-     */
-    public void clearMarks() {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                TileState state = tiles[x][y];
-                state.visited = false;
-                state.goal = false;
-            }
-        }
-    }
-
-    public void clearVisited() {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                TileState state = tiles[x][y];
-                state.visited = false;
-            }
-        }
+        return getBit(litSourceBits, tileId(screenToBoard(position.x), screenToBoard(position.y)));
     }
 
     public void clearLightandSeen() {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                TileState state = tiles[x][y];
-                state.isDimTile = false;
-            }
-        }
+        Arrays.fill(dimBits, 0L);
     }
 
     //Player has to be adjacent to light source
@@ -767,8 +1315,7 @@ public class Board {
         boolean interact = false;
         for (int i = xx - 1; i <= xx + 1; i++) {
             for (int j = yy - 1; j <= yy + 1; j++) {
-                TileState tile = tiles[i][j];
-                if (tile.isLightSource) {
+                if (getBit(sourceBits, tileId(i, j))) {
                     interact = true;
                 }
             }
@@ -776,263 +1323,263 @@ public class Board {
         return interact;
     }
 
+    /**
+     * Returns the light source (in tile coordinates) next to the given position.
+     *
+     * This returns (0,0) if there is no source in range.  It returns the same vector
+     * each time it is called, and so cannot be used as an allocator.
+     *
+     * @param x The x-coordinate (in screen coordinates)
+     * @param y The y-coordinate (in screen coordinates)
+     *
+     * @return the light source next to the given position
+     */
     public Vector2 getInteractedSource(float x, float y) {
         int xx = screenToBoard(x);
         int yy = screenToBoard(y);
 
         for (int i = xx - 1; i <= xx + 1; i++) {
             for (int j = yy - 1; j <= yy + 1; j++) {
-                TileState tile = tiles[i][j];
-                if (tile.isLightSource) {
-                    return new Vector2(i, j);
+                if (getBit(sourceBits, tileId(i, j))) {
+                    return sourceCache.set(i, j);
                 }
             }
         }
-        return new Vector2(0,0);
+        return sourceCache.set(0,0);
     }
 
     public boolean getSourceOn(Vector2 source) {
-        return tiles[(int)source.x][(int)source.y].isLitLightSource;
+        return getBit(litSourceBits, tileId((int) source.x, (int) source.y));
 
     }
 
     public void turnSourceOff(Vector2 source) {
-        tiles[(int)source.x][(int)source.y].isLitLightSource = false;
+        if (getSourceOn(source))
+            toggleSource(source);
     }
 
     public void turnSourceOn(Vector2 source) {
-        tiles[(int)source.x][(int)source.y].isLitLightSource = true;
-//        updateLitTiles(source);
+        if (!getSourceOn(source))
+            toggleSource(source);
     }
 
     public void toggleSource(Vector2 source){
-        tiles[(int) source.x][(int) source.y].isLitLightSource = !tiles[(int)source.x][(int)source.y].isLitLightSource;
-    }
-
-    public void updateLitTiles(Vector2 source, boolean tint) {
-        int x = Math.round(source.x);
-        int y = Math.round(source.y);
-        if (tint)
-            setTinted(x, y);
-        else
-            tiles[x][y].setLit();
-
-        boolean top = false;
-        boolean bottom = false;
-        boolean left = false;
-        boolean right = false;
-
-        if (inBounds(x, y + 1)) {
-            TileState tile = tiles[x][y+1];
-            if (!tile.isWall)
-                top = true;
-        }
-        if (inBounds(x, y - 1)) {
-            TileState tile = tiles[x][y-1];
-            if (!tile.isWall)
-                bottom = true;
+        int x = (int) source.x;
+        int y = (int) source.y;
+        int id = tileId(x, y);
+        if (getBit(litSourceBits, id)) {
+            clearBit(litSourceBits, id);
+            removeSourceLight(x, y);
+        } else {
+            setBit(litSourceBits, id);
+            addSourceLight(x, y);
         }
-        if (inBounds(x-1, y)) {
-            TileState tile = tiles[x-1][y];
-            if (!tile.isWall)
-                left = true;
+    }
+
+    /**
+     * Recomputes the light counts from scratch for every lit source on the board.
+     *
+     * Only needed when walls or sources are set directly; toggles are incremental.
+     */
+    private void rebuildLighting() {
+        long[] old = litBits.clone();
+        Arrays.fill(litBits, 0L);
+        Arrays.fill(lightCount, 0);
+        Arrays.fill(chunkDirty, true);
+        for (int w = 0; w < litSourceBits.length; w++) {
+            long word = litSourceBits[w];
+            while (word != 0) {
+                int id = (w << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                addSourceLight(tileX(id), tileY(id));
+            }
         }
-        if (inBounds(x+1, y)) {
-            TileState tile = tiles[x+1][y];
-            if (!tile.isWall)
-                right = true;
+
+        // Report the net change only
+        pendingChanges.clear();
+        for (int w = 0; w < litBits.length; w++) {
+            long word = old[w] ^ litBits[w];
+            while (word != 0) {
+                pendingChanges.add((w << WORD_SHIFT) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
         }
-        spreadLight(LIGHT_RADIUS, x, y, top, bottom, left, right, tint);
+        clearTint();
+        tintSource = -1;
+        lightingVersion++;
     }
 
+    private void clearTint() {
+        for (int ii = 0; ii < tintedChunks.size; ii++) {
+            int chunk = tintedChunks.items[ii];
+            clearChunk(tintedBits, chunk);
+            clearChunk(topBorderBits, chunk);
+            clearChunk(bottomBorderBits, chunk);
+            clearChunk(leftBorderBits, chunk);
+            clearChunk(rightBorderBits, chunk);
+            chunkTinted[chunk] = false;
+            chunkDirty[chunk] = true;
+        }
+        tintedChunks.clear();
+    }
 
-    public void spreadLight(int depth, int x, int y, boolean top, boolean bottom, boolean left, boolean right, boolean tint) {
-        if (depth == 0)
-            return;
+    /**
+     * Returns the distance (in tiles) that a source lights.
+     *
+     * @return the distance (in tiles) that a source lights
+     */
+    public int getLightRadius() {
+        return lightRadius;
+    }
 
-        if (top) {
-            int xx = x;
-            int yy = y+1;
-            TileState tile = tiles[xx][yy];
-            if (tint)
-                setTinted(xx, yy);
-            else
-                tile.setLit();
-
-            boolean top1 = false;
-            boolean bottom1 = false;
-            boolean left1 = false;
-            boolean right1 = false;
-
-            if (inBounds(xx, yy + 1)) {
-                tile = tiles[xx][yy+1];
-                if (!tile.isWall)
-                    top1 = true;
-            }
-            if (inBounds(xx, yy - 1)) {
-                tile = tiles[xx][yy-1];
-                if (!tile.isWall)
-                    bottom1 = true;
-            }
-            if (inBounds(xx-1, yy)) {
-                tile = tiles[xx-1][yy];
-                if (!tile.isWall)
-                    left1 = true;
-            }
-            if (inBounds(xx+1, yy)) {
-                tile = tiles[xx+1][yy];
-                if (!tile.isWall)
-                    right1 = true;
-            }
-            spreadLight(depth-1, xx, yy, top1, bottom1, left1, right1, tint);
+    /**
+     * Sets the distance (in tiles) that a source lights.
+     *
+     * The light counts are rebuilt for the new radius.
+     *
+     * @param radius the distance (in tiles) that a source lights
+     */
+    public void setLightRadius(int radius) {
+        if (radius != lightRadius) {
+            lightRadius = radius;
+            rebuildLighting();
         }
+    }
 
-        if (bottom) {
-            int xx = x;
-            int yy = y-1;
-            TileState tile = tiles[xx][yy];
-            if (tint)
-                setTinted(xx, yy);
-            else
-                tile.setLit();
-
-            boolean top1 = false;
-            boolean bottom1 = false;
-            boolean left1 = false;
-            boolean right1 = false;
-
-            if (inBounds(xx, yy + 1)) {
-                tile = tiles[xx][yy+1];
-                if (!tile.isWall)
-                    top1 = true;
-            }
-            if (inBounds(xx, yy - 1)) {
-                tile = tiles[xx][yy-1];
-                if (!tile.isWall)
-                    bottom1 = true;
-            }
-            if (inBounds(xx-1, yy)) {
-                tile = tiles[xx-1][yy];
-                if (!tile.isWall)
-                    left1 = true;
-            }
-            if (inBounds(xx+1, yy)) {
-                tile = tiles[xx+1][yy];
-                if (!tile.isWall)
-                    right1 = true;
+    /**
+     * Returns a counter that is incremented every time a wall is added.
+     *
+     * @return a counter that is incremented every time a wall is added
+     */
+    public int getWallVersion() {
+        return wallVersion;
+    }
+
+    /** Adds the footprint of the source at (x,y) to the light counts */
+    private void addSourceLight(int x, int y) {
+        int[] stencil = getStencil(x, y);
+        for (int id : stencil) {
+            if (lightCount[id]++ == 0) {
+                setBit(litBits, id);
+                markChunkDirty(id);
+                pendingChanges.add(id);
             }
-            spreadLight(depth-1, xx, yy, top1, bottom1, left1, right1,  tint);
         }
-        if (left) {
-            int xx = x -1;
-            int yy = y;
-            TileState tile = tiles[xx][yy];
-            if (tint)
-                setTinted(xx, yy);
-            else
-                tile.setLit();
-
-            boolean top1 = false;
-            boolean bottom1 = false;
-            boolean left1 = false;
-            boolean right1 = false;
-
-            if (inBounds(xx, yy + 1)) {
-                tile = tiles[xx][yy+1];
-                if (!tile.isWall)
-                    top1 = true;
-            }
-            if (inBounds(xx, yy - 1)) {
-                tile = tiles[xx][yy-1];
-                if (!tile.isWall)
-                    bottom1 = true;
-            }
-            if (inBounds(xx-1, yy)) {
-                tile = tiles[xx-1][yy];
-                if (!tile.isWall)
-                    left1 = true;
-            }
-            if (inBounds(xx+1, yy)) {
-                tile = tiles[xx+1][yy];
-                if (!tile.isWall)
-                    right1 = true;
+        lightingVersion++;
+    }
+
+    /** Subtracts the footprint of the source at (x,y) from the light counts */
+    private void removeSourceLight(int x, int y) {
+        int[] stencil = getStencil(x, y);
+        for (int id : stencil) {
+            if (--lightCount[id] == 0) {
+                clearBit(litBits, id);
+                markChunkDirty(id);
+                pendingChanges.add(id);
             }
-            spreadLight(depth-1, xx, yy, top1, bottom1, left1, right1, tint);
         }
-        if (right) {
-            int xx = x+1;
-            int yy = y;
-            TileState tile = tiles[xx][yy];
-            if (tint)
-                setTinted(xx, yy);
-            else
-                tile.setLit();
-
-            boolean top1 = false;
-            boolean bottom1 = false;
-            boolean left1 = false;
-            boolean right1 = false;
-
-            if (inBounds(xx, yy + 1)) {
-                tile = tiles[xx][yy+1];
-                if (!tile.isWall)
-                    top1 = true;
-            }
-            if (inBounds(xx, yy - 1)) {
-                tile = tiles[xx][yy-1];
-                if (!tile.isWall)
-                    bottom1 = true;
-            }
-            if (inBounds(xx-1, yy)) {
-                tile = tiles[xx-1][yy];
-                if (!tile.isWall)
-                    left1 = true;
-            }
-            if (inBounds(xx+1, yy)) {
-                tile = tiles[xx+1][yy];
-                if (!tile.isWall)
-                    right1 = true;
-            }
-            spreadLight(depth-1, xx, yy, top1, bottom1, left1, right1, tint);
+        lightingVersion++;
+    }
+
+    /**
+     * Tints the footprint of the dim source at (x,y)
+     *
+     * The tint only changes when the player steps on a dim source, so the footprint
+     * is read straight from the flood queue rather than cached as a stencil.
+     */
+    private void tintTiles(int x, int y) {
+        int tail = floodLight(x, y, lightRadius);
+        for (int ii = 0; ii < tail; ii++) {
+            int id = floodQueue[ii];
+            setTinted(tileX(id), tileY(id));
         }
     }
 
-    private void setTinted(int x, int y) {
-        TileState tile = tiles[x][y];
+    /**
+     * Returns the tiles lit by a source at (x,y), computing them if necessary.
+     *
+     * The stencil is cached until a wall changes.  It must not be modified.
+     */
+    private int[] getStencil(int x, int y) {
+        long key = ((long) lightRadius << 32) | tileId(x, y);
+        int[] stencil = stencils.get(key);
+        if (stencil == null) {
+            stencil = Arrays.copyOf(floodQueue, floodLight(x, y, lightRadius));
+            stencils.put(key, stencil);
+        }
+        return stencil;
+    }
 
-        TileState top = null;
-        TileState bottom = null;
-        TileState left = null;
-        TileState right = null;
+    /**
+     * Finds every tile within radius steps of (x,y) that light can reach.
+     *
+     * This is a breadth-first flood fill.  Walls stop the spread; tiles outside the
+     * board are skipped.  Tiles are listed once each, nearest first, at the front of
+     * floodQueue; the queue is overwritten by the next fill.
+     *
+     * @return the number of tiles reached
+     */
+    private int floodLight(int x, int y, int radius) {
+        if (++floodStamp == 0) {
+            Arrays.fill(floodMarks, 0);
+            floodStamp = 1;
+        }
+        int head = 0;
+        int tail = floodVisit(x, y, 0, 0);
+        while (head < tail) {
+            int id = floodQueue[head];
+            int depth = floodDepth[head++];
+            if (depth == radius)
+                continue;
+
+            int cx = tileX(id);
+            int cy = tileY(id);
+            if (isOpen(cx, cy + 1))
+                tail = floodVisit(cx, cy + 1, depth + 1, tail);
+            if (isOpen(cx, cy - 1))
+                tail = floodVisit(cx, cy - 1, depth + 1, tail);
+            if (isOpen(cx - 1, cy))
+                tail = floodVisit(cx - 1, cy, depth + 1, tail);
+            if (isOpen(cx + 1, cy))
+                tail = floodVisit(cx + 1, cy, depth + 1, tail);
+        }
+        return tail;
+    }
 
-        if (inBounds(x, y+1))
-            top = tiles[x][y+1];
-        if (inBounds(x, y-1))
-            bottom = tiles[x][y-1];
-        if (inBounds(x-1, y))
-            left = tiles[x-1][y];
-        if (inBounds(x+1, y))
-            right = tiles[x+1][y];
+    /** Queues (x,y) for the flood fill if it has not been reached yet */
+    private int floodVisit(int x, int y, int depth, int tail) {
+        int id = tileId(x, y);
+        if (floodMarks[id] == floodStamp)
+            return tail;
+        floodMarks[id] = floodStamp;
+        floodQueue[tail] = id;
+        floodDepth[tail] = depth;
+        return tail + 1;
+    }
 
+    /** Returns true if (x,y) is on the board and light can pass through it */
+    private boolean isOpen(int x, int y) {
+        return inBounds(x, y) && !getBit(wallBits, tileId(x, y));
+    }
 
-        if (tile.isTinted)
+    private void setTinted(int x, int y) {
+        int id = tileId(x, y);
+        if (getBit(tintedBits, id))
             return;
-        else {
-            tile.isTinted = true;
-
-            // top border if above tile is not bottom bordered
-            if (top != null && !top.bottomBordered)
-                tile.topBordered = true;
-            // bottom border if bottom tile is not top bordered
-            if (bottom != null && !bottom.topBordered)
-                tile.bottomBordered = true;
-            // left border if left tile is not right bordered
-            if (left != null && !left.rightBordered)
-                tile.leftBordered = true;
-            // right border if right tile is not left bordered
-            if (right != null && !right.leftBordered)
-                tile.rightBordered = true;
-        }
+        setBit(tintedBits, id);
+        markChunkTinted(id);
+
+        // top border if above tile is not bottom bordered
+        if (inBounds(x, y+1) && !getBit(bottomBorderBits, tileId(x, y+1)))
+            setBit(topBorderBits, id);
+        // bottom border if bottom tile is not top bordered
+        if (inBounds(x, y-1) && !getBit(topBorderBits, tileId(x, y-1)))
+            setBit(bottomBorderBits, id);
+        // left border if left tile is not right bordered
+        if (inBounds(x-1, y) && !getBit(rightBorderBits, tileId(x-1, y)))
+            setBit(leftBorderBits, id);
+        // right border if right tile is not left bordered
+        if (inBounds(x+1, y) && !getBit(leftBorderBits, tileId(x+1, y)))
+            setBit(rightBorderBits, id);
     }
-
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package edu.cornell.gdiac.rekindled;
+
+/**
+ * The read-only view of a Board that enemy planning uses.
+ *
+ * The AI plans every enemy in parallel, so planners must not change the board.
+ * Everything here only reads tile state, and the scratch space that queries need
+ * (the pathfinder and the sight cache) belongs to the calling thread.  The board
+ * itself must not change while a planning phase is running.
+ */
+public interface BoardView extends WallGrid {
+    /**
+     * Returns true if an enemy cannot walk on the tile (a wall, water or lit tile).
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if an enemy cannot walk on the tile
+     */
+    public boolean isEnemyMovable(int x, int y);
+
+    /**
+     * Returns true if the tile is a wall, a light source or water.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if the tile is a wall, a light source or water.
+     */
+    public boolean isObstructedBoard(int x, int y);
+
+    /**
+     * Returns true if the tile is lit.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if the tile is lit.
+     */
+    public boolean isLitTileBoard(int x, int y);
+
+    /**
+     * Returns true if no wall lies on the segment between two points
+     *
+     * @param x0 The x-coordinate of the first point
+     * @param y0 The y-coordinate of the first point
+     * @param x1 The x-coordinate of the second point
+     * @param y1 The y-coordinate of the second point
+     *
+     * @return true if no wall lies on the segment between two points
+     */
+    public boolean hasLineOfSight(float x0, float y0, float x1, float y1);
+
+    /**
+     * Returns true if no wall lies between the centers of two tiles.
+     *
+     * @param x0 The x index of the first tile
+     * @param y0 The y index of the first tile
+     * @param x1 The x index of the second tile
+     * @param y1 The y index of the second tile
+     *
+     * @return true if no wall lies between the centers of two tiles
+     */
+    public boolean hasTileLineOfSight(int x0, int y0, int x1, int y1);
+
+    /**
+     * Returns the pathfinder of the calling thread.
+     *
+     * @return the pathfinder of the calling thread
+     */
+    public Pathfinder getPathfinder();
+
+    /**
+     * Returns the hierarchical search of the calling thread, for long paths.
+     *
+     * @return the hierarchical search of the calling thread
+     */
+    public ClusterPathfinder getClusterPathfinder();
+
+    /**
+     * Returns the distance field toward the player, as of its last update.
+     *
+     * @return the distance field toward the player
+     */
+    public ChaseField getChaseField();
+
+    /**
+     * Returns the tiles enemies have claimed or reserved.
+     *
+     * Planners may only ask this whether a tile is free; claims are made after
+     * planning, one enemy at a time.
+     *
+     * @return the tiles enemies have claimed or reserved
+     */
+    public ReservationGrid getReservations();
+}
@@ -0,0 +1,199 @@
+package edu.cornell.gdiac.rekindled;
+
+import java.util.Arrays;
+
+/**
+ * A shared distance field toward the player, for every chasing enemy.
+ *
+ * A chasing enemy heads for the nearest unlit tile to the player: the player's
+ * own tile if it is dark, or else the first dark tiles found by flooding out from
+ * the player through the lit, open tiles.  These are the same for every enemy, so
+ * rather than each enemy searching toward them, this runs one breadth first search
+ * backwards from them, over the tiles an enemy can walk on.  Each enemy then moves
+ * to any neighbour one step closer than its own tile.
+ *
+ * The field only depends on the player tile and the board, so it is recomputed
+ * only when the player changes tiles or the lit tiles or walls change.  It does
+ * not know about the other enemies; those are left to the caller.
+ */
+public class ChaseField implements DistanceMap {
+    /** The neighbour offsets, in the order right, left, up, down */
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    /** The board this field is for */
+    private Board board;
+    /** The grid width (in tiles) */
+    private int width;
+    /** The grid height (in tiles) */
+    private int height;
+    /** The steps from each tile to the nearest goal tile */
+    private int[] distance;
+    /** The goal tile each tile leads to */
+    private int[] source;
+    /** The generation in which each tile was given a distance */
+    private int[] reached;
+    /** The generation in which each tile was flooded from the player */
+    private int[] flooded;
+    /** The queue for both searches (every tile enters it at most once) */
+    private int[] queue;
+    /** The current generation */
+    private int generation;
+
+    /** The player tile the field was built for */
+    private int playerX;
+    private int playerY;
+    /** The board versions the field was built for */
+    private int lightingVersion;
+    private int wallVersion;
+    /** Whether the field has been built at all */
+    private boolean built;
+    /** The number of times the field has been rebuilt */
+    private int rebuilds;
+
+    /**
+     * Creates an empty field for the given board
+     *
+     * @param board The board to chase on
+     */
+    public ChaseField(Board board) {
+        this.board = board;
+        width = board.getWidth();
+        height = board.getHeight();
+        int tiles = width * height;
+        distance = new int[tiles];
+        source = new int[tiles];
+        reached = new int[tiles];
+        flooded = new int[tiles];
+        queue = new int[tiles];
+    }
+
+    /**
+     * Brings the field up to date for the player tile.
+     *
+     * This does nothing if neither the player tile nor the board has changed
+     * since the last update, so every enemy can call it every step.
+     *
+     * @param px The x index of the player tile
+     * @param py The y index of the player tile
+     */
+    public void update(int px, int py) {
+        if (built && px == playerX && py == playerY &&
+                lightingVersion == board.getLightingVersion() && wallVersion == board.getWallVersion()) {
+            return;
+        }
+        playerX = px;
+        playerY = py;
+        lightingVersion = board.getLightingVersion();
+        wallVersion = board.getWallVersion();
+        built = true;
+        rebuilds++;
+        rebuild();
+    }
+
+    @Override
+    public int getDistance(int x, int y) {
+        if (!inBounds(x, y) || reached[x + y * width] != generation) {
+            return UNREACHABLE;
+        }
+        return distance[x + y * width];
+    }
+
+    @Override
+    public int getSourceX(int x, int y) {
+        return source[x + y * width] % width;
+    }
+
+    @Override
+    public int getSourceY(int x, int y) {
+        return source[x + y * width] / width;
+    }
+
+    /**
+     * Returns the number of times the field has been rebuilt.
+     *
+     * @return the number of times the field has been rebuilt
+     */
+    public int getRebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * Recomputes the goal tiles and the distances to them.
+     */
+    private void rebuild() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(flooded, 0);
+            generation = 0;
+        }
+        generation++;
+        if (!inBounds(playerX, playerY)) {
+            return;
+        }
+
+        // Flood from the player through lit, open tiles.  The dark tiles it
+        // reaches are the goals, and are compacted to the front of the queue.
+        int goals = 0;
+        int head = 0;
+        int tail = 0;
+        int start = playerX + playerY * width;
+        flooded[start] = generation;
+        queue[tail++] = start;
+        while (head < tail) {
+            int id = queue[head++];
+            int x = id % width;
+            int y = id / width;
+            if (!board.isLitTileBoard(x, y)) {
+                queue[goals++] = id;
+                continue;
+            }
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if (inBounds(nx, ny) && flooded[nx + ny * width] != generation && !board.isObstructedBoard(nx, ny)) {
+                    flooded[nx + ny * width] = generation;
+                    queue[tail++] = nx + ny * width;
+                }
+            }
+        }
+
+        // Search backwards from every goal at once, over walkable tiles
+        for (int ii = 0; ii < goals; ii++) {
+            int id = queue[ii];
+            reached[id] = generation;
+            distance[id] = 0;
+            source[id] = id;
+        }
+        head = 0;
+        tail = goals;
+        while (head < tail) {
+            int id = queue[head++];
+            int x = id % width;
+            int y = id / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                int next = nx + ny * width;
+                if (inBounds(nx, ny) && reached[next] != generation && !board.isEnemyMovable(nx, ny)) {
+                    reached[next] = generation;
+                    distance[next] = distance[id] + 1;
+                    source[next] = source[id];
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the tile is on the board.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if the tile is on the board.
+     */
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+}
@@ -0,0 +1,464 @@
+package edu.cornell.gdiac.rekindled;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * The abstract graph for hierarchical pathfinding (HPA*) over the board.
+ *
+ * The board is cut into square clusters.  Wherever two neighbouring clusters share
+ * a run of open tiles along their border, the run gets an entrance: a node on each
+ * side, one step apart.  Short runs get one entrance in the middle, and long runs
+ * get one at each end.  Within a cluster, the walking distance between each pair
+ * of its nodes is precomputed, searching only inside the cluster.  A long path
+ * search then runs over these nodes (see ClusterPathfinder) rather than over every
+ * tile between the start and the goal.
+ *
+ * Nodes are numbered cluster * MAX_NODES + index, so a cluster can be rebuilt on
+ * its own.  When the lit tiles in a cluster change, its entrances change, and so
+ * do the entrances of its four neighbours (which share its borders).  Those five
+ * clusters are rebuilt and the rest of the graph is left alone.  A change to the
+ * walls rebuilds the whole graph.
+ *
+ * The graph is only patched in Board.update, so it can be read while the enemies
+ * plan in parallel.  It may lag the board by the light changes made since then;
+ * paths are refined against the live board, so this only affects route choice.
+ */
+public class ClusterMap {
+    /** The cluster width and height (in tiles) */
+    public static final int CLUSTER_SIZE = 16;
+    /** The most nodes a cluster can have (each border has at most CLUSTER_SIZE/2 entrances) */
+    public static final int MAX_NODES = 2 * CLUSTER_SIZE;
+    /** The distance between two nodes with no path inside their cluster */
+    public static final int NO_PATH = -1;
+    /** Runs of open tiles at least this long get an entrance at each end */
+    private static final int LONG_RUN = 6;
+
+    /** The neighbour offsets, in the order right, left, up, down */
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    /** The board this graph is for */
+    private Board board;
+    /** The grid width (in tiles) */
+    private int width;
+    /** The grid height (in tiles) */
+    private int height;
+    /** The number of clusters horizontally across the board */
+    private int clustersX;
+    /** The number of clusters vertically across the board */
+    private int clustersY;
+    /** The number of nodes in each cluster */
+    private int[] nodeCount;
+    /** The tile (x + y * width) of each node */
+    private int[] nodeTile;
+    /** The node on each tile (-1 if none) */
+    private int[] nodeAt;
+    /** The walking distance between each pair of nodes in a cluster (NO_PATH if none) */
+    private short[] intra;
+
+    /** The clusters to rebuild in the current patch */
+    private int[] affected;
+    /** The generation in which each cluster was added to affected */
+    private int[] affectedMark;
+    /** The current patch generation */
+    private int generation;
+    /** Scratch space for the searches inside one cluster */
+    private int[] localQueue;
+    private int[] localDistance;
+    private int[] localMark;
+    private int localGeneration;
+
+    /** The wall version the graph was built for (-1 if never built) */
+    private int wallVersion;
+    /** The number of clusters rebuilt since the graph was created */
+    private int rebuilds;
+
+    /**
+     * Creates an empty graph for the given board
+     *
+     * The graph is built on the first call to patch.
+     *
+     * @param board The board to walk on
+     */
+    public ClusterMap(Board board) {
+        this.board = board;
+        width = board.getWidth();
+        height = board.getHeight();
+        clustersX = (width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        clustersY = (height + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        int clusters = clustersX * clustersY;
+        nodeCount = new int[clusters];
+        nodeTile = new int[clusters * MAX_NODES];
+        nodeAt = new int[width * height];
+        Arrays.fill(nodeAt, -1);
+        intra = new short[clusters * MAX_NODES * MAX_NODES];
+        affected = new int[clusters];
+        affectedMark = new int[clusters];
+        localQueue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        localDistance = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        localMark = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        wallVersion = -1;
+    }
+
+    /**
+     * Repairs the graph after some tiles changed their lit state.
+     *
+     * This must see every batch of changes (see Board.getLitChanges), or the graph
+     * will drift from the board.
+     *
+     * @param changes The board tile ids whose lit state changed
+     */
+    public void patch(IntArray changes) {
+        if (wallVersion != board.getWallVersion()) {
+            rebuild();
+            return;
+        }
+        if (changes.size == 0) {
+            return;
+        }
+        nextGeneration();
+
+        int count = 0;
+        for (int ii = 0; ii < changes.size; ii++) {
+            int tile = changes.get(ii);
+            int cx = board.tileX(tile) / CLUSTER_SIZE;
+            int cy = board.tileY(tile) / CLUSTER_SIZE;
+            count = addAffected(cx, cy, count);
+            count = addAffected(cx - 1, cy, count);
+            count = addAffected(cx + 1, cy, count);
+            count = addAffected(cx, cy - 1, count);
+            count = addAffected(cx, cy + 1, count);
+        }
+        // Every node list must be current before any distances are computed
+        for (int ii = 0; ii < count; ii++) {
+            buildNodes(affected[ii]);
+        }
+        for (int ii = 0; ii < count; ii++) {
+            buildDistances(affected[ii]);
+        }
+        rebuilds += count;
+    }
+
+    /**
+     * Recomputes the whole graph from the current board.
+     */
+    public void rebuild() {
+        wallVersion = board.getWallVersion();
+        int clusters = clustersX * clustersY;
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            buildNodes(cluster);
+        }
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            buildDistances(cluster);
+        }
+        rebuilds += clusters;
+    }
+
+    /**
+     * Returns the number of clusters rebuilt since the graph was created.
+     *
+     * @return the number of clusters rebuilt since the graph was created
+     */
+    public int getRebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * Returns the grid width (in tiles)
+     *
+     * @return the grid width (in tiles)
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the grid height (in tiles)
+     *
+     * @return the grid height (in tiles)
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of node ids (the number of clusters times MAX_NODES).
+     *
+     * @return the number of node ids
+     */
+    public int getCapacity() {
+        return nodeCount.length * MAX_NODES;
+    }
+
+    /**
+     * Returns the cluster that holds a tile.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return the cluster that holds a tile
+     */
+    public int getCluster(int x, int y) {
+        return (x / CLUSTER_SIZE) + (y / CLUSTER_SIZE) * clustersX;
+    }
+
+    /**
+     * Returns the number of nodes in a cluster.
+     *
+     * @param cluster The cluster
+     *
+     * @return the number of nodes in a cluster
+     */
+    public int getNodeCount(int cluster) {
+        return nodeCount[cluster];
+    }
+
+    /**
+     * Returns the node on a tile (-1 if none).
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return the node on a tile (-1 if none)
+     */
+    public int getNodeAt(int x, int y) {
+        return nodeAt[x + y * width];
+    }
+
+    /**
+     * Returns the x index of the tile of a node.
+     *
+     * @param node The node
+     *
+     * @return the x index of the tile of a node
+     */
+    public int getNodeX(int node) {
+        return nodeTile[node] % width;
+    }
+
+    /**
+     * Returns the y index of the tile of a node.
+     *
+     * @param node The node
+     *
+     * @return the y index of the tile of a node
+     */
+    public int getNodeY(int node) {
+        return nodeTile[node] / width;
+    }
+
+    /**
+     * Returns the walking distance between two nodes of the same cluster.
+     *
+     * The path stays inside the cluster.
+     *
+     * @param from The first node
+     * @param to The second node (in the same cluster)
+     *
+     * @return the walking distance between two nodes (NO_PATH if none)
+     */
+    public int getDistance(int from, int to) {
+        return intra[from * MAX_NODES + to % MAX_NODES];
+    }
+
+    /**
+     * Returns true if an enemy can walk on the tile.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if an enemy can walk on the tile.
+     */
+    public boolean isWalkable(int x, int y) {
+        return !board.isEnemyMovable(x, y);
+    }
+
+    /**
+     * Adds a cluster to the current patch, unless it is off the board or already in.
+     *
+     * @param cx The x index of the cluster
+     * @param cy The y index of the cluster
+     * @param count The number of clusters in the patch
+     *
+     * @return the new number of clusters in the patch
+     */
+    private int addAffected(int cx, int cy, int count) {
+        if (cx < 0 || cy < 0 || cx >= clustersX || cy >= clustersY) {
+            return count;
+        }
+        int cluster = cx + cy * clustersX;
+        if (affectedMark[cluster] == generation) {
+            return count;
+        }
+        affectedMark[cluster] = generation;
+        affected[count] = cluster;
+        return count + 1;
+    }
+
+    /**
+     * Recomputes the entrances of a cluster, on all four borders.
+     *
+     * @param cluster The cluster
+     */
+    private void buildNodes(int cluster) {
+        int base = cluster * MAX_NODES;
+        for (int ii = 0; ii < nodeCount[cluster]; ii++) {
+            nodeAt[nodeTile[base + ii]] = -1;
+        }
+        nodeCount[cluster] = 0;
+
+        int x0 = (cluster % clustersX) * CLUSTER_SIZE;
+        int y0 = (cluster / clustersX) * CLUSTER_SIZE;
+        int x1 = Math.min(x0 + CLUSTER_SIZE, width) - 1;
+        int y1 = Math.min(y0 + CLUSTER_SIZE, height) - 1;
+        // Each border is scanned from its left or bottom side, so that both
+        // clusters on it find the same entrances.
+        if (x0 > 0) {
+            scanBorder(cluster, x0 - 1, y0, 1, 0, 0, 1, y1 - y0 + 1, false);
+        }
+        if (x1 < width - 1) {
+            scanBorder(cluster, x1, y0, 1, 0, 0, 1, y1 - y0 + 1, true);
+        }
+        if (y0 > 0) {
+            scanBorder(cluster, x0, y0 - 1, 0, 1, 1, 0, x1 - x0 + 1, false);
+        }
+        if (y1 < height - 1) {
+            scanBorder(cluster, x0, y1, 0, 1, 1, 0, x1 - x0 + 1, true);
+        }
+    }
+
+    /**
+     * Adds the entrances along one border to a cluster.
+     *
+     * The border runs from (x,y) in steps of (stepX,stepY).  Each tile on it faces
+     * the tile (crossX,crossY) away, on the far side.
+     *
+     * @param cluster The cluster to add nodes to
+     * @param x The x index of the first tile on the near side
+     * @param y The y index of the first tile on the near side
+     * @param crossX The x offset to the far side
+     * @param crossY The y offset to the far side
+     * @param stepX The x step along the border
+     * @param stepY The y step along the border
+     * @param length The number of tiles along the border
+     * @param near Whether the cluster is on the near side
+     */
+    private void scanBorder(int cluster, int x, int y, int crossX, int crossY,
+                            int stepX, int stepY, int length, boolean near) {
+        int start = -1;
+        for (int kk = 0; kk <= length; kk++) {
+            int ax = x + kk * stepX;
+            int ay = y + kk * stepY;
+            boolean open = kk < length && isWalkable(ax, ay) && isWalkable(ax + crossX, ay + crossY);
+            if (open && start == -1) {
+                start = kk;
+            } else if (!open && start != -1) {
+                int end = kk - 1;
+                if (end - start + 1 >= LONG_RUN) {
+                    addEntrance(cluster, x, y, crossX, crossY, stepX, stepY, start, near);
+                    addEntrance(cluster, x, y, crossX, crossY, stepX, stepY, end, near);
+                } else {
+                    addEntrance(cluster, x, y, crossX, crossY, stepX, stepY, (start + end) / 2, near);
+                }
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Adds the node of one entrance to a cluster, unless the tile already has one.
+     *
+     * @param cluster The cluster to add the node to
+     * @param x The x index of the first tile on the near side
+     * @param y The y index of the first tile on the near side
+     * @param crossX The x offset to the far side
+     * @param crossY The y offset to the far side
+     * @param stepX The x step along the border
+     * @param stepY The y step along the border
+     * @param offset The position of the entrance along the border
+     * @param near Whether the cluster is on the near side
+     */
+    private void addEntrance(int cluster, int x, int y, int crossX, int crossY,
+                             int stepX, int stepY, int offset, boolean near) {
+        int tx = x + offset * stepX + (near ? 0 : crossX);
+        int ty = y + offset * stepY + (near ? 0 : crossY);
+        int tile = tx + ty * width;
+        if (nodeAt[tile] != -1 || nodeCount[cluster] == MAX_NODES) {
+            return;
+        }
+        int node = cluster * MAX_NODES + nodeCount[cluster]++;
+        nodeTile[node] = tile;
+        nodeAt[tile] = node;
+    }
+
+    /**
+     * Recomputes the distances between the nodes of a cluster.
+     *
+     * @param cluster The cluster
+     */
+    private void buildDistances(int cluster) {
+        int x0 = (cluster % clustersX) * CLUSTER_SIZE;
+        int y0 = (cluster / clustersX) * CLUSTER_SIZE;
+        int x1 = Math.min(x0 + CLUSTER_SIZE, width) - 1;
+        int y1 = Math.min(y0 + CLUSTER_SIZE, height) - 1;
+        int base = cluster * MAX_NODES;
+        int count = nodeCount[cluster];
+        for (int ii = 0; ii < count; ii++) {
+            nextLocalGeneration();
+            int start = nodeTile[base + ii];
+            int local = (start % width - x0) + (start / width - y0) * CLUSTER_SIZE;
+            localMark[local] = localGeneration;
+            localDistance[local] = 0;
+            int head = 0;
+            int tail = 0;
+            localQueue[tail++] = local;
+            while (head < tail) {
+                int id = localQueue[head++];
+                int x = x0 + id % CLUSTER_SIZE;
+                int y = y0 + id / CLUSTER_SIZE;
+                for (int dir = 0; dir < 4; dir++) {
+                    int nx = x + DX[dir];
+                    int ny = y + DY[dir];
+                    int next = (nx - x0) + (ny - y0) * CLUSTER_SIZE;
+                    if (nx >= x0 && ny >= y0 && nx <= x1 && ny <= y1 &&
+                            localMark[next] != localGeneration && isWalkable(nx, ny)) {
+                        localMark[next] = localGeneration;
+                        localDistance[next] = localDistance[id] + 1;
+                        localQueue[tail++] = next;
+                    }
+                }
+            }
+
+            int row = (base + ii) * MAX_NODES;
+            for (int jj = 0; jj < count; jj++) {
+                int tile = nodeTile[base + jj];
+                int other = (tile % width - x0) + (tile / width - y0) * CLUSTER_SIZE;
+                intra[row + jj] = (short) (localMark[other] == localGeneration ? localDistance[other] : NO_PATH);
+            }
+        }
+    }
+
+    /**
+     * Starts a new patch, invalidating every affected mark.
+     */
+    private void nextGeneration() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(affectedMark, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+
+    /**
+     * Starts a new search inside a cluster, invalidating every local mark.
+     */
+    private void nextLocalGeneration() {
+        if (localGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(localMark, 0);
+            localGeneration = 0;
+        }
+        localGeneration++;
+    }
+}
@@ -0,0 +1,417 @@
+package edu.cornell.gdiac.rekindled;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchical (HPA*) search over the clusters of a ClusterMap.
+ *
+ * A long search first connects the start and the goal to the nodes of their own
+ * clusters, searching only inside those two clusters.  It then runs A* over the
+ * nodes of the map, where the edges are the precomputed distances inside each
+ * cluster and the single steps across each entrance.  The cost of this depends on
+ * the number of clusters crossed, not on the size of the board.
+ *
+ * The abstract path is refined lazily.  An enemy replans at every tile, so only
+ * the first leg (to the first node of the path) is ever turned into tiles, with a
+ * Pathfinder search that may not leave the clusters the leg runs through.  That
+ * search uses the live board and the caller's filter, so it also sees the lights
+ * and the other enemies that the map does not.
+ *
+ * Like Pathfinder, all of the scratch space is allocated up front (except that
+ * the open set grows if it must), and each thread needs its own instance.
+ */
+public class ClusterPathfinder {
+    /** The neighbour offsets, in the order right, left, up, down */
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+    /** The cluster size, for short */
+    private static final int SIZE = ClusterMap.CLUSTER_SIZE;
+
+    /** The graph to search */
+    private ClusterMap map;
+    /** The grid width (in tiles) */
+    private int width;
+    /** The grid height (in tiles) */
+    private int height;
+    /** The id of the goal in the abstract search (after every node) */
+    private int goalNode;
+    /** The generation in which each node was last visited */
+    private int[] visited;
+    /** The node each visited node was reached from (-1 for the start) */
+    private int[] parent;
+    /** The cost (in steps) to each visited node */
+    private int[] cost;
+    /** The open set, a binary heap of (f << 32 | node) */
+    private long[] heap;
+    /** The number of entries in the heap */
+    private int heapSize;
+    /** The current search generation */
+    private int generation;
+
+    /** The steps from the start to each node of its cluster (NO_PATH if none) */
+    private int[] startCost;
+    /** The steps from each node of the goal cluster to the goal (NO_PATH if none) */
+    private int[] goalCost;
+    /** Scratch space for the searches inside one cluster */
+    private int[] localQueue;
+    private int[] localDistance;
+    private int[] localMark;
+    private int localGeneration;
+
+    /** The start tile of the last search */
+    private int startX;
+    private int startY;
+    /** The tile the last search leads to first (-1 if none) */
+    private int waypointX;
+    private int waypointY;
+    /** The tiles a refined path may enter */
+    private Pathfinder.TileFilter bounded;
+    /** The filter given to refine */
+    private Pathfinder.TileFilter inner;
+    /** The tile bounds of the first leg */
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+
+    /**
+     * Creates a search over the given graph
+     *
+     * @param map The graph to search
+     */
+    public ClusterPathfinder(ClusterMap map) {
+        this.map = map;
+        width = map.getWidth();
+        height = map.getHeight();
+        goalNode = map.getCapacity();
+        visited = new int[goalNode + 1];
+        parent = new int[goalNode + 1];
+        cost = new int[goalNode + 1];
+        heap = new long[4 * (goalNode + 1)];
+        startCost = new int[ClusterMap.MAX_NODES];
+        goalCost = new int[ClusterMap.MAX_NODES];
+        localQueue = new int[SIZE * SIZE];
+        localDistance = new int[SIZE * SIZE];
+        localMark = new int[SIZE * SIZE];
+        waypointX = -1;
+        waypointY = -1;
+        bounded = new Pathfinder.TileFilter() {
+            public boolean accept(int x, int y) {
+                return x >= minX && y >= minY && x <= maxX && y <= maxY && inner.accept(x, y);
+            }
+        };
+    }
+
+    /**
+     * Returns true if a path between two tiles should use this search.
+     *
+     * Tiles in the same cluster are close enough for a plain A* search.  So is a
+     * start that is not walkable (an enemy caught on a lit tile), since it may step
+     * straight out of its cluster without using an entrance.
+     *
+     * @param sx The x index of the start tile
+     * @param sy The y index of the start tile
+     * @param tx The x index of the goal tile
+     * @param ty The y index of the goal tile
+     *
+     * @return true if the tiles are in different clusters, from a walkable start
+     */
+    public boolean isLongRange(int sx, int sy, int tx, int ty) {
+        return inBounds(sx, sy) && inBounds(tx, ty) && map.getCluster(sx, sy) != map.getCluster(tx, ty) &&
+                map.isWalkable(sx, sy);
+    }
+
+    /**
+     * Finds an abstract path between two tiles in different clusters.
+     *
+     * The tiles must be long range (see isLongRange), and the goal tile must be
+     * walkable.  If a path is found, its first leg leads to getWaypointX/Y, and
+     * may be turned into tiles with refine.
+     *
+     * @param sx The x index of the start tile
+     * @param sy The y index of the start tile
+     * @param tx The x index of the goal tile
+     * @param ty The y index of the goal tile
+     *
+     * @return true if the goal can be reached
+     */
+    public boolean search(int sx, int sy, int tx, int ty) {
+        nextGeneration();
+        startX = sx;
+        startY = sy;
+        waypointX = -1;
+        waypointY = -1;
+        if (!isLongRange(sx, sy, tx, ty) || !map.isWalkable(tx, ty)) {
+            return false;
+        }
+
+        int startCluster = map.getCluster(sx, sy);
+        int goalCluster = map.getCluster(tx, ty);
+        searchCluster(sx, sy, startCluster, startCost);
+        searchCluster(tx, ty, goalCluster, goalCost);
+
+        heapSize = 0;
+        int base = startCluster * ClusterMap.MAX_NODES;
+        for (int ii = 0; ii < map.getNodeCount(startCluster); ii++) {
+            if (startCost[ii] != ClusterMap.NO_PATH) {
+                relax(-1, base + ii, startCost[ii], tx, ty);
+            }
+        }
+        while (heapSize > 0) {
+            long top = pop();
+            int node = (int) top;
+            if ((int) (top >>> 32) != cost[node] + estimate(node, tx, ty)) {
+                continue;
+            }
+            if (node == goalNode) {
+                setWaypoint(tx, ty);
+                return true;
+            }
+
+            int cluster = node / ClusterMap.MAX_NODES;
+            int first = cluster * ClusterMap.MAX_NODES;
+            if (cluster == goalCluster && goalCost[node - first] != ClusterMap.NO_PATH) {
+                relax(node, goalNode, cost[node] + goalCost[node - first], tx, ty);
+            }
+            for (int other = first; other < first + map.getNodeCount(cluster); other++) {
+                int d = map.getDistance(node, other);
+                if (d > 0) {
+                    relax(node, other, cost[node] + d, tx, ty);
+                }
+            }
+            int x = map.getNodeX(node);
+            int y = map.getNodeY(node);
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if (inBounds(nx, ny) && map.getCluster(nx, ny) != cluster && map.getNodeAt(nx, ny) != -1) {
+                    relax(node, map.getNodeAt(nx, ny), cost[node] + 1, tx, ty);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the tiles of the first leg of the last abstract path.
+     *
+     * The search may only enter tiles accepted by the filter, inside the clusters
+     * of the start and the waypoint.  The path is read from the pathfinder.
+     *
+     * @param pathfinder The pathfinder to search with
+     * @param filter The tiles the path may enter
+     *
+     * @return true if the waypoint was reached
+     */
+    public boolean refine(Pathfinder pathfinder, Pathfinder.TileFilter filter) {
+        if (waypointX == -1) {
+            return false;
+        }
+        minX = Math.min(startX, waypointX) / SIZE * SIZE;
+        minY = Math.min(startY, waypointY) / SIZE * SIZE;
+        maxX = (Math.max(startX, waypointX) / SIZE + 1) * SIZE - 1;
+        maxY = (Math.max(startY, waypointY) / SIZE + 1) * SIZE - 1;
+        inner = filter;
+        boolean found = pathfinder.search(startX, startY, waypointX, waypointY, bounded);
+        inner = null;
+        return found;
+    }
+
+    /**
+     * Returns the x index of the first waypoint of the last path (-1 if none).
+     *
+     * @return the x index of the first waypoint of the last path
+     */
+    public int getWaypointX() {
+        return waypointX;
+    }
+
+    /**
+     * Returns the y index of the first waypoint of the last path (-1 if none).
+     *
+     * @return the y index of the first waypoint of the last path
+     */
+    public int getWaypointY() {
+        return waypointY;
+    }
+
+    /**
+     * Sets the waypoint to the first node of the path that is not the start.
+     *
+     * @param tx The x index of the goal tile
+     * @param ty The y index of the goal tile
+     */
+    private void setWaypoint(int tx, int ty) {
+        int next = goalNode;
+        int node = parent[goalNode];
+        while (parent[node] != -1) {
+            next = node;
+            node = parent[node];
+        }
+        if (map.getNodeX(node) != startX || map.getNodeY(node) != startY) {
+            waypointX = map.getNodeX(node);
+            waypointY = map.getNodeY(node);
+        } else if (next == goalNode) {
+            waypointX = tx;
+            waypointY = ty;
+        } else {
+            waypointX = map.getNodeX(next);
+            waypointY = map.getNodeY(next);
+        }
+    }
+
+    /**
+     * Finds the steps from a tile to every node of its cluster, inside the cluster.
+     *
+     * @param sx The x index of the tile
+     * @param sy The y index of the tile
+     * @param cluster The cluster of the tile
+     * @param costs The array to store the steps to each node in
+     */
+    private void searchCluster(int sx, int sy, int cluster, int[] costs) {
+        if (localGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(localMark, 0);
+            localGeneration = 0;
+        }
+        localGeneration++;
+        int x0 = sx / SIZE * SIZE;
+        int y0 = sy / SIZE * SIZE;
+        int x1 = Math.min(x0 + SIZE, width) - 1;
+        int y1 = Math.min(y0 + SIZE, height) - 1;
+
+        int head = 0;
+        int tail = 0;
+        int start = (sx - x0) + (sy - y0) * SIZE;
+        localMark[start] = localGeneration;
+        localDistance[start] = 0;
+        localQueue[tail++] = start;
+        while (head < tail) {
+            int id = localQueue[head++];
+            int x = x0 + id % SIZE;
+            int y = y0 + id / SIZE;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                int next = (nx - x0) + (ny - y0) * SIZE;
+                if (nx >= x0 && ny >= y0 && nx <= x1 && ny <= y1 &&
+                        localMark[next] != localGeneration && map.isWalkable(nx, ny)) {
+                    localMark[next] = localGeneration;
+                    localDistance[next] = localDistance[id] + 1;
+                    localQueue[tail++] = next;
+                }
+            }
+        }
+
+        int base = cluster * ClusterMap.MAX_NODES;
+        for (int ii = 0; ii < map.getNodeCount(cluster); ii++) {
+            int local = (map.getNodeX(base + ii) - x0) + (map.getNodeY(base + ii) - y0) * SIZE;
+            costs[ii] = localMark[local] == localGeneration ? localDistance[local] : ClusterMap.NO_PATH;
+        }
+    }
+
+    /**
+     * Records a path to a node if it is cheaper than the best so far.
+     *
+     * @param from The node the path comes from (-1 for the start)
+     * @param node The node reached
+     * @param steps The cost of the path
+     * @param tx The x index of the goal tile
+     * @param ty The y index of the goal tile
+     */
+    private void relax(int from, int node, int steps, int tx, int ty) {
+        if (visited[node] == generation && cost[node] <= steps) {
+            return;
+        }
+        visited[node] = generation;
+        cost[node] = steps;
+        parent[node] = from;
+        push(steps + estimate(node, tx, ty), node);
+    }
+
+    /**
+     * Returns the Manhattan distance from a node to the goal tile.
+     *
+     * @param node The node
+     * @param tx The x index of the goal tile
+     * @param ty The y index of the goal tile
+     *
+     * @return the Manhattan distance from a node to the goal tile
+     */
+    private int estimate(int node, int tx, int ty) {
+        if (node == goalNode) {
+            return 0;
+        }
+        return Math.abs(tx - map.getNodeX(node)) + Math.abs(ty - map.getNodeY(node));
+    }
+
+    /**
+     * Returns true if the tile is on the board.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if the tile is on the board.
+     */
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Starts a new search, invalidating every visited mark.
+     */
+    private void nextGeneration() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+
+    /**
+     * Adds a node to the open set, growing it if it is full.
+     *
+     * @param priority The estimated total cost through the node
+     * @param node The node
+     */
+    private void push(int priority, int node) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * heap.length);
+        }
+        long entry = ((long) priority << 32) | node;
+        int ii = heapSize++;
+        while (ii > 0) {
+            int up = (ii - 1) >>> 1;
+            if (heap[up] <= entry) {
+                break;
+            }
+            heap[ii] = heap[up];
+            ii = up;
+        }
+        heap[ii] = entry;
+    }
+
+    /**
+     * Removes and returns the cheapest entry of the open set.
+     *
+     * @return the cheapest entry of the open set
+     */
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int ii = 0;
+        int half = heapSize >>> 1;
+        while (ii < half) {
+            int child = 2 * ii + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[ii] = heap[child];
+            ii = child;
+        }
+        heap[ii] = last;
+        return top;
+    }
+}
@@ -0,0 +1,47 @@
+package edu.cornell.gdiac.rekindled;
+
+/**
+ * A precomputed map of walking distances to a set of goal tiles.
+ *
+ * An enemy following a map just steps to a neighbour that is closer than the
+ * tile it is on, so moving needs no search.  Each tile also remembers which goal
+ * it leads to, which becomes the enemy target.
+ */
+public interface DistanceMap {
+    /** The distance of a tile that cannot reach any goal */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * Returns the steps from a tile to the nearest goal tile.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return the steps from a tile to the nearest goal tile (UNREACHABLE if none)
+     */
+    public int getDistance(int x, int y);
+
+    /**
+     * Returns the x index of the goal tile a tile leads to.
+     *
+     * The tile must be reachable.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return the x index of the goal tile a tile leads to
+     */
+    public int getSourceX(int x, int y);
+
+    /**
+     * Returns the y index of the goal tile a tile leads to.
+     *
+     * The tile must be reachable.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return the y index of the goal tile a tile leads to
+     */
+    public int getSourceY(int x, int y);
+}
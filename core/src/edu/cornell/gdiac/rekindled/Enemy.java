@@ -5,6 +5,7 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.JsonValue;
@@ -12,8 +13,6 @@ import edu.cornell.gdiac.rekindled.light.SightConeLight;
 import edu.cornell.gdiac.rekindled.obstacle.FeetHitboxObstacle;
 import edu.cornell.gdiac.util.FilmStrip;
 
-import java.util.Arrays;
-
 import static edu.cornell.gdiac.rekindled.Player.SPEED;
 
 public class Enemy extends FeetHitboxObstacle {
@@ -52,6 +51,9 @@ public class Enemy extends FeetHitboxObstacle {
 
     private SightConeLight sight;
 
+    /** The precomputed visibility of the level (null to ray cast with the cone) */
+    private VisibilitySet visibility;
+
     // DEFAULT - 6
     public float speed = 5.5f;
 
@@ -114,8 +116,16 @@ public class Enemy extends FeetHitboxObstacle {
 
     public int getPointer(){return pointer;}
 
+    /**
+     * Returns the current goal in the wander path.
+     *
+     * This is the row of the wander path itself, so it must not be changed.
+     *
+     * @return the current goal in the wander path
+     */
     public int[] getWanderGoal(){
-        return Arrays.copyOf(wander[pointer], 2); }
+        return wander[pointer];
+    }
 
     public void setWanderGoal(int[] goal){
         for (int i = 0; i < wander.length; i++){
@@ -408,15 +418,51 @@ public class Enemy extends FeetHitboxObstacle {
     }
 
 
-    public boolean inSight(Vector2 position, float width) {
-        return this.sight.contains(position.x, position.y);
-//                ||
-//                this.sight.contains(position.x + width/2, position.y + width/2) ||
-//                this.sight.contains(position.x - width/2, position.y - width/2) ||
-//                this.sight.contains(position.x + width/2, position.y - width/2) ||
-//                this.sight.contains(position.x - width/2, position.y + width/2)
-//        ;
+    /**
+     * Sets the precomputed visibility of the level, for inSight.
+     *
+     * @param visibility The visibility of the level (null to use the sight cone)
+     */
+    public void setVisibility(VisibilitySet visibility) {
+        this.visibility = visibility;
+    }
 
+    /**
+     * Returns true if the given position is inside the sight cone.
+     *
+     * With a visibility set, this is a bit test on the two tiles plus the cone
+     * check, instead of a test against the ray cast cone.  The enemy position is
+     * passed in, since enemies plan off the main thread and must not read their
+     * bodies.
+     *
+     * @param from The position of this enemy
+     * @param position The position to check
+     * @param width The width of the object at that position
+     *
+     * @return true if the given position is inside the sight cone
+     */
+    public boolean inSight(Vector2 from, Vector2 position, float width) {
+        if (visibility == null) {
+            return this.sight.contains(position.x, position.y);
+        }
+
+        float x = from.x;
+        float y = from.y;
+        if (!visibility.isVisible(Math.round(x), Math.round(y), Math.round(position.x), Math.round(position.y))) {
+            return false;
+        }
+        float dx = position.x - x;
+        float dy = position.y - y;
+        float dst2 = dx * dx + dy * dy;
+        if (dst2 > Constants.SIGHT_CONE_RADIUS * Constants.SIGHT_CONE_RADIUS) {
+            return false;
+        }
+        if (dst2 == 0) {
+            return true;
+        }
+        float angle = MathUtils.atan2(dy, dx) * MathUtils.radiansToDegrees - sight.getDirection();
+        angle = ((angle % 360) + 540) % 360 - 180;
+        return Math.abs(angle) <= sight.getConeDegree();
     }
 
     public int getFacingDirection() {
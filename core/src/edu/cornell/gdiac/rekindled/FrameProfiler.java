@@ -0,0 +1,266 @@
+package edu.cornell.gdiac.rekindled;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+
+import java.util.Arrays;
+
+/**
+ * Times the phases of each frame, to find where a slow frame goes.
+ *
+ * Each phase is timed with begin and end (several times a frame, if it runs on
+ * every simulation tick), and endFrame records the total of each phase in a ring
+ * buffer of the last few hundred frames.  Recording never allocates.
+ *
+ * The overlay shows the rolling 50th, 95th and 99th percentiles of each phase, and
+ * dump saves them (and the raw frames) as CSV.  The draw phases only time the
+ * draw calls; the GPU may still be working after they return.
+ */
+public class FrameProfiler {
+    /** Reading the keyboard and gamepad */
+    public static final int INPUT = 0;
+    /** Updating the box2dlights ray handler */
+    public static final int LIGHTS = 1;
+    /** Updating the board */
+    public static final int BOARD = 2;
+    /** Planning and moving the enemies */
+    public static final int AI = 3;
+    /** Stepping the physics world */
+    public static final int PHYSICS = 4;
+    /** Drawing the ground and the board */
+    public static final int BOARD_DRAW = 5;
+    /** Drawing the obstacles (walls, lights, enemies and the player) */
+    public static final int OBJECT_DRAW = 6;
+    /** Rendering the box2dlights light map */
+    public static final int LIGHT_RENDER = 7;
+    /** The whole frame */
+    public static final int FRAME = 8;
+    /** The number of phases */
+    public static final int PHASES = 9;
+
+    /** The name of each phase (for the overlay and the CSV) */
+    private static final String[] NAMES = {
+        "input", "lights", "board", "ai", "physics", "board draw", "object draw", "light render", "frame"
+    };
+    /** The default number of frames kept (ten seconds at 60 fps) */
+    public static final int DEFAULT_CAPACITY = 600;
+    /** The number of frames between refreshes of the overlay */
+    private static final int REFRESH_FRAMES = 30;
+    /** The percentiles shown, as fractions */
+    private static final float[] QUANTILES = {0.50f, 0.95f, 0.99f};
+    /** The directory the CSV files are written to (local to the game) */
+    private static final String DUMP_DIR = "profile/";
+
+    /** The time of each phase in each frame, in nanoseconds (a ring per phase) */
+    private long[][] samples;
+    /** The time of each phase so far this frame, in nanoseconds */
+    private long[] current;
+    /** When each phase was last begun */
+    private long[] started;
+    /** When this frame was begun */
+    private long frameStart;
+    /** The ring position of the next frame */
+    private int next;
+    /** The number of frames recorded (at most the capacity) */
+    private int count;
+    /** Scratch space for sorting one phase */
+    private long[] sorted;
+    /** The percentiles of each phase as of the last refresh, in microseconds */
+    private long[][] percentiles;
+
+    /** Whether the overlay is shown */
+    private boolean visible;
+    /** The number of frames since the overlay was refreshed */
+    private int sinceRefresh;
+    /** The overlay text */
+    private StringBuilder text;
+    /** The overlay text, laid out for drawing */
+    private GlyphLayout layout;
+    /** Whether the layout must be redone */
+    private boolean stale;
+
+    /**
+     * Creates a profiler that keeps the default number of frames
+     */
+    public FrameProfiler() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a profiler that keeps the given number of frames
+     *
+     * @param capacity The number of frames kept
+     */
+    public FrameProfiler(int capacity) {
+        samples = new long[PHASES][capacity];
+        current = new long[PHASES];
+        started = new long[PHASES];
+        sorted = new long[capacity];
+        percentiles = new long[PHASES][QUANTILES.length];
+        text = new StringBuilder();
+        layout = new GlyphLayout();
+    }
+
+    /**
+     * Returns true if the overlay is shown
+     *
+     * @return true if the overlay is shown
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Sets whether the overlay is shown
+     *
+     * @param value whether the overlay is shown
+     */
+    public void setVisible(boolean value) {
+        visible = value;
+        sinceRefresh = REFRESH_FRAMES;
+    }
+
+    /**
+     * Starts timing a phase
+     *
+     * @param phase The phase to time
+     */
+    public void begin(int phase) {
+        started[phase] = System.nanoTime();
+    }
+
+    /**
+     * Stops timing a phase, adding the time since begin to this frame
+     *
+     * @param phase The phase to time
+     */
+    public void end(int phase) {
+        current[phase] += System.nanoTime() - started[phase];
+    }
+
+    /**
+     * Starts a new frame
+     */
+    public void beginFrame() {
+        frameStart = System.nanoTime();
+    }
+
+    /**
+     * Ends the frame, and records the time of every phase in it
+     */
+    public void endFrame() {
+        current[FRAME] = System.nanoTime() - frameStart;
+        for (int ii = 0; ii < PHASES; ii++) {
+            samples[ii][next] = current[ii];
+            current[ii] = 0;
+        }
+        next = (next + 1) % sorted.length;
+        count = Math.min(count + 1, sorted.length);
+
+        if (visible && ++sinceRefresh >= REFRESH_FRAMES) {
+            sinceRefresh = 0;
+            refresh();
+        }
+    }
+
+    /**
+     * Returns a percentile of a phase as of the last refresh (in microseconds)
+     *
+     * The overlay refreshes the percentiles twice a second; otherwise call refresh.
+     *
+     * @param phase The phase
+     * @param quantile The percentile (0 for 50th, 1 for 95th, 2 for 99th)
+     *
+     * @return a percentile of a phase as of the last refresh
+     */
+    public long getPercentile(int phase, int quantile) {
+        return percentiles[phase][quantile];
+    }
+
+    /**
+     * Recomputes the percentiles of every phase over the recorded frames
+     */
+    public void refresh() {
+        for (int ii = 0; ii < PHASES; ii++) {
+            System.arraycopy(samples[ii], 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            for (int jj = 0; jj < QUANTILES.length; jj++) {
+                int rank = (int) Math.ceil(QUANTILES[jj] * count) - 1;
+                percentiles[ii][jj] = count == 0 ? 0 : sorted[Math.max(rank, 0)] / 1000;
+            }
+        }
+
+        text.setLength(0);
+        text.append("phase: p50 / p95 / p99 (us), ").append(count).append(" frames");
+        for (int ii = 0; ii < PHASES; ii++) {
+            text.append('\n').append(NAMES[ii]).append(": ");
+            for (int jj = 0; jj < QUANTILES.length; jj++) {
+                text.append(jj == 0 ? "" : " / ").append(percentiles[ii][jj]);
+            }
+        }
+        stale = true;
+    }
+
+    /**
+     * Draws the overlay in the top left corner of the screen, if it is shown
+     *
+     * The canvas must be in an active begin pass.
+     *
+     * @param canvas The drawing context
+     * @param font The font of the overlay
+     */
+    public void draw(GameCanvas canvas, BitmapFont font) {
+        if (!visible) {
+            return;
+        }
+        if (stale) {
+            layout.setText(font, text);
+            stale = false;
+        }
+        canvas.drawText(layout, font, 10, canvas.getHeight() - 110);
+    }
+
+    /**
+     * Writes the percentiles and the recorded frames as CSV files
+     *
+     * The files go in the profile directory (local to the game), as name-summary.csv
+     * (one row per phase) and name-frames.csv (one row per frame, oldest first).
+     * All times are in microseconds.
+     *
+     * @param name The prefix of the file names
+     */
+    public void dump(String name) {
+        refresh();
+        StringBuilder csv = new StringBuilder("phase,p50_us,p95_us,p99_us,frames\n");
+        for (int ii = 0; ii < PHASES; ii++) {
+            csv.append(NAMES[ii]);
+            for (int jj = 0; jj < QUANTILES.length; jj++) {
+                csv.append(',').append(percentiles[ii][jj]);
+            }
+            csv.append(',').append(count).append('\n');
+        }
+        FileHandle summary = Gdx.files.local(DUMP_DIR + name + "-summary.csv");
+        summary.writeString(csv.toString(), false);
+
+        csv.setLength(0);
+        csv.append("frame");
+        for (int ii = 0; ii < PHASES; ii++) {
+            csv.append(',').append(NAMES[ii].replace(' ', '_')).append("_us");
+        }
+        csv.append('\n');
+        int first = (next - count + sorted.length) % sorted.length;
+        for (int kk = 0; kk < count; kk++) {
+            int slot = (first + kk) % sorted.length;
+            csv.append(kk);
+            for (int ii = 0; ii < PHASES; ii++) {
+                csv.append(',').append(samples[ii][slot] / 1000);
+            }
+            csv.append('\n');
+        }
+        FileHandle frames = Gdx.files.local(DUMP_DIR + name + "-frames.csv");
+        frames.writeString(csv.toString(), false);
+        Gdx.app.log("FrameProfiler", "Saved " + summary.path() + " and " + frames.path());
+    }
+}
@@ -40,6 +40,34 @@ import java.util.logging.Level;
  * and you would draw it as a root class in an architecture specification.
  */
 public class GDXRoot extends Game implements ScreenListener {
+	/** The level files, in play order (relative to the asset directory) */
+	public static final String[] LEVELS = {
+		"jsons/tutorial/level0.json",
+		"jsons/tutorial/level1.json",
+		"jsons/tutorial/level2.json",
+		"jsons/tutorial/level3.json",
+		"jsons/throwlight.json",
+		"jsons/level10.json",
+		"jsons/Megan_0.json",
+		"jsons/emeka3.json",
+		"jsons/intermediate2.json",
+		"jsons/intermediate.json",
+		"jsons/spineasy.json",
+		"jsons/hallwayandroom.json",
+		"jsons/spinstun.json",
+		"jsons/roundabout.json",
+		"jsons/level11_Emeka.json",
+		"jsons/simultrap.json",
+		"jsons/blockedpaths.json",
+		"jsons/experiment.json", // holes
+		"jsons/longlure.json",
+		"jsons/timedstun.json",
+		"jsons/keys.json",
+		"jsons/testlevel.json", // circle thing
+		"jsons/levelhard2.json", // calvin
+		"jsons/last.json",
+	};
+
 	/** AssetManager to load game assets (textures, sounds, etc.) */
 	private AssetManager manager;
 	/** Drawing context to display graphics (VIEW CLASS) */
@@ -76,6 +104,9 @@ public class GDXRoot extends Game implements ScreenListener {
 		manager.setLoader(FreeTypeFontGenerator.class, new FreeTypeFontGeneratorLoader(resolver));
 		manager.setLoader(BitmapFont.class, ".ttf", new FreetypeFontLoader(resolver));
 
+		// Shared textures (board tiles, menus) are loaded through the same manager
+		TextureRegistry.getInstance().setManager(manager);
+
 	}
 
 	/**
@@ -94,33 +125,10 @@ public class GDXRoot extends Game implements ScreenListener {
 
 
 		// Initialize all the game worlds
-		controllers = new GameplayController[24];
-		controllers[0] = new GameplayController("jsons/tutorial/level0.json",0);
-		controllers[1] = new GameplayController("jsons/tutorial/level1.json",1);
-		controllers[2] = new GameplayController("jsons/tutorial/level2.json",2);
-		controllers[3] = new GameplayController("jsons/tutorial/level3.json",3);
-		controllers[4] = new GameplayController("jsons/throwlight.json",4);
-		controllers[5] = new GameplayController("jsons/level10.json",5);
-		controllers[6] = new GameplayController("jsons/Megan_0.json",6);
-		controllers[7] = new GameplayController("jsons/emeka3.json",7);
-		controllers[8] = new GameplayController("jsons/intermediate2.json",8);
-		controllers[9] = new GameplayController("jsons/intermediate.json",9);
-		controllers[10] = new GameplayController("jsons/spineasy.json",10);
-		controllers[11] = new GameplayController("jsons/hallwayandroom.json",11);
-		controllers[12] = new GameplayController("jsons/spinstun.json",12);
-		controllers[13] = new GameplayController("jsons/roundabout.json",13);
-		controllers[14] = new GameplayController("jsons/level11_Emeka.json",14);
-		controllers[15] = new GameplayController("jsons/simultrap.json",15);
-		controllers[16] = new GameplayController("jsons/blockedpaths.json",16);
-		controllers[17] = new GameplayController("jsons/experiment.json",17); // holes
-		controllers[18] = new GameplayController("jsons/longlure.json",18);
-		controllers[19] = new GameplayController("jsons/timedstun.json",19);
-		controllers[20] = new GameplayController("jsons/keys.json" , 20);
-		controllers[21] = new GameplayController("jsons/testlevel.json",21); // circle thing
-		controllers[22] = new GameplayController("jsons/levelhard2.json",22); // calvin
-		controllers[23] = new GameplayController("jsons/last.json",23);
-
-
+		controllers = new GameplayController[LEVELS.length];
+		for(int ii = 0; ii < LEVELS.length; ii++) {
+			controllers[ii] = new GameplayController(LEVELS[ii], ii);
+		}
 
 		for(int ii = 0; ii < controllers.length; ii++) {
 			controllers[ii].preLoadContent(manager);
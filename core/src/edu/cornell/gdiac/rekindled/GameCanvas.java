@@ -41,7 +41,9 @@ public class GameCanvas {
 		/** We are drawing sprites */
 		STANDARD,
 		/** We are drawing outlines */
-		DEBUG
+		DEBUG,
+		/** We are drawing from a sprite cache */
+		CACHE
 	}
 
 	/**
@@ -103,6 +105,10 @@ public class GameCanvas {
 	private Vector2 vertex;
 	/** Cache object to handle raw textures */
 	private TextureRegion holder;
+	/** Projection for sprite caches, which hold sprites in world coordinates */
+	private Matrix4 cacheProjection = new Matrix4();
+	/** The sprite cache being drawn (if any) */
+	private SpriteCache activeCache;
 
 	public void drawParticle(ParticleEffect pe) {
 		pe.draw(spriteBatch);
@@ -292,6 +298,21 @@ public class GameCanvas {
 		this.viewport_height = (int)(scale * getHeight());
 	}
 
+	/**
+	 * Returns the area of the world (in pixels) that is visible through the camera.
+	 *
+	 * This is centered on the camera coordinates and sized by the current scale, so
+	 * anything outside of it is off screen.
+	 *
+	 * @param out The rectangle to store the result in
+	 *
+	 * @return out, for chaining
+	 */
+	public Rectangle getViewBounds(Rectangle out) {
+		return out.set(camera_coordinates.x - viewport_width / 2f, camera_coordinates.y - viewport_height / 2f,
+				viewport_width, viewport_height);
+	}
+
 
 	/**
 	 * Resets the SpriteBatch camera when this canvas is resized.
@@ -414,6 +435,55 @@ public class GameCanvas {
     	active = DrawPass.INACTIVE;
     }
 
+	/**
+	 * Start drawing from a sprite cache.
+	 *
+	 * Cached sprites are in world coordinates (pixels), so the cache is given the
+	 * projection that computeView uses for the current camera coordinates and scale.
+	 * This cannot be called while a standard drawing sequence is active.
+	 *
+	 * @param cache the sprite cache to draw from
+	 */
+	public void beginCache(SpriteCache cache) {
+		if (active != DrawPass.INACTIVE) {
+			Gdx.app.error("GameCanvas", "Cannot draw a cache while drawing active", new IllegalStateException());
+			return;
+		}
+		float w = scale * getWidth();
+		float h = scale * getHeight();
+		cacheProjection.setToOrtho2D(camera_coordinates.x - w / 2f, camera_coordinates.y - h / 2f, w, h);
+		cache.setProjectionMatrix(cacheProjection);
+
+		// Match the NO_PREMULT blending of the sprite batch
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		cache.begin();
+		activeCache = cache;
+		active = DrawPass.CACHE;
+	}
+
+	/**
+	 * Draws one cache id from the active sprite cache.
+	 *
+	 * @param cacheID the id returned by SpriteCache.endCache
+	 */
+	public void drawCache(int cacheID) {
+		if (active != DrawPass.CACHE) {
+			Gdx.app.error("GameCanvas", "Cannot draw without active beginCache()", new IllegalStateException());
+			return;
+		}
+		activeCache.draw(cacheID);
+	}
+
+	/**
+	 * Ends drawing from a sprite cache.
+	 */
+	public void endCache() {
+		activeCache.end();
+		activeCache = null;
+		active = DrawPass.INACTIVE;
+	}
+
 	/**
 	 * Draws the tinted texture at the given position.
 	 *
@@ -1028,6 +1098,25 @@ public class GameCanvas {
 		font.draw(spriteBatch, layout, x, y);
     }
 
+    /**
+     * Draws text that is already laid out on the screen.
+     *
+     * Text that is drawn every frame should be laid out once, rather than with a
+     * new layout each frame as drawText does.
+     *
+     * @param layout The text, laid out in the given font
+     * @param font The font of the layout
+     * @param x The x-coordinate of the upper-left corner
+     * @param y The y-coordinate of the upper-left corner
+     */
+    public void drawText(GlyphLayout layout, BitmapFont font, float x, float y) {
+		if (active != DrawPass.STANDARD) {
+			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
+			return;
+		}
+		font.draw(spriteBatch, layout, x, y);
+    }
+
     /**
      * Draws text centered on the screen.
      *
@@ -21,6 +21,7 @@ import com.badlogic.gdx.*;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.physics.box2d.*;
@@ -37,9 +38,6 @@ import edu.cornell.gdiac.util.*;
 import javafx.scene.media.AudioSpectrumListener;
 import javafx.util.Pair;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 
 
@@ -376,6 +374,31 @@ public class GameplayController extends WorldController implements ContactListen
 	private static final float WALL_SCALE = .33f;
 	/** scale of the hole tiles*/
 	private static final float HOLE_SCALE = .146f;
+	/** How far (in tiles) a wall sprite can reach past its tile */
+	private static final int WALL_DRAW_MARGIN = 2;
+
+	/** The width (in tiles) of a page of the static layer cache */
+	private static final int STATIC_PAGE_SIZE = 32;
+
+	/** The walls and holes, bucketed by tile for culling */
+	private ObstacleGrid wallGrid;
+	/** Every other object, in the order added */
+	private Array<Obstacle> sprites = new Array<>();
+	/** Scratch space for the walls of one cache page */
+	private Array<Obstacle> pageWalls = new Array<>();
+	/** The visible area of the world, in pixels */
+	private Rectangle viewBounds = new Rectangle();
+
+	/** The ground tiles and walls, which never change during a level */
+	private SpriteCache staticCache;
+	/** The number of cache pages horizontally across the board */
+	private int staticPagesX;
+	/** The number of cache pages vertically across the board */
+	private int staticPagesY;
+	/** The cache id of the ground in each page */
+	private int[] groundPages;
+	/** The cache id of the walls in each page (-1 if none) */
+	private int[] wallPages;
 
 	private boolean removePressAnyKeyText;
 	private boolean zoom_in;
@@ -406,298 +429,162 @@ public class GameplayController extends WorldController implements ContactListen
 		}
 		assetState = AssetState.LOADING;
 
-		manager.load(PLAYER_ANIMATION_FRONT, Texture.class);
-		assets.add(PLAYER_ANIMATION_FRONT);
-		manager.load(PLAYER_ANIMATION_BACK, Texture.class);
-		assets.add(PLAYER_ANIMATION_BACK);
-		manager.load(PLAYER_ANIMATION_LEFT, Texture.class);
-		assets.add(PLAYER_ANIMATION_LEFT);
-		manager.load(PLAYER_ANIMATION_RIGHT, Texture.class);
-		assets.add(PLAYER_ANIMATION_RIGHT);
-
-		manager.load(PLACING_LIGHT_FRONT, Texture.class);
-		assets.add(PLACING_LIGHT_FRONT);
-		manager.load(TAKING_LIGHT_FRONT, Texture.class);
-		assets.add(TAKING_LIGHT_FRONT);
-		manager.load(PLACING_LIGHT_LEFT, Texture.class);
-		assets.add(PLACING_LIGHT_LEFT);
-		manager.load(TAKING_LIGHT_LEFT, Texture.class);
-		assets.add(TAKING_LIGHT_LEFT);
-		manager.load(PLACING_LIGHT_RIGHT, Texture.class);
-		assets.add(PLACING_LIGHT_RIGHT);
-		manager.load(TAKING_LIGHT_RIGHT, Texture.class);
-		assets.add(TAKING_LIGHT_RIGHT);
-
-		manager.load(ENEMY_ANIMATION_FRONT, Texture.class);
-		assets.add(ENEMY_ANIMATION_FRONT);
-		manager.load(ENEMY_ANIMATION_BACK, Texture.class);
-		assets.add(ENEMY_ANIMATION_BACK);
-		manager.load(ENEMY_ANIMATION_LEFT, Texture.class);
-		assets.add(ENEMY_ANIMATION_LEFT);
-		manager.load(ENEMY_ANIMATION_RIGHT, Texture.class);
-		assets.add(ENEMY_ANIMATION_RIGHT);
-
-		manager.load(ENEMY_ANGRY_ANIMATION_FRONT, Texture.class);
-		assets.add(ENEMY_ANGRY_ANIMATION_FRONT);
-		manager.load(ENEMY_ANGRY_ANIMATION_BACK, Texture.class);
-		assets.add(ENEMY_ANGRY_ANIMATION_BACK);
-		manager.load(ENEMY_ANGRY_ANIMATION_LEFT, Texture.class);
-		assets.add(ENEMY_ANGRY_ANIMATION_LEFT);
-		manager.load(ENEMY_ANGRY_ANIMATION_RIGHT, Texture.class);
-		assets.add(ENEMY_ANGRY_ANIMATION_RIGHT);
-
-		manager.load(ENEMY_TRANSFORMATION, Texture.class);
-		assets.add(ENEMY_TRANSFORMATION);
-		manager.load(ENEMY_ANIMATION_SAVED, Texture.class);
-		assets.add(ENEMY_ANIMATION_SAVED);
-
-		manager.load(PLAYER_FILE_LEFT, Texture.class);
-		assets.add(PLAYER_FILE_LEFT);
-		manager.load(PLAYER_FILE_BACK, Texture.class);
-		assets.add(PLAYER_FILE_BACK);
-		manager.load(PLAYER_FILE_FRONT, Texture.class);
-		assets.add(PLAYER_FILE_FRONT);
-
-		manager.load(THROW_LIGHT_FRONT, Texture.class);
-		assets.add(THROW_LIGHT_FRONT);
-		manager.load(THROW_LIGHT_BACK, Texture.class);
-		assets.add(THROW_LIGHT_BACK);
-		manager.load(THROW_LIGHT_LEFT, Texture.class);
-		assets.add(THROW_LIGHT_LEFT);
-		manager.load(THROW_LIGHT_RIGHT, Texture.class);
-		assets.add(THROW_LIGHT_RIGHT);
-
-		manager.load(PLAYER_FRONT_IDLE, Texture.class);
-		assets.add(PLAYER_FRONT_IDLE);
-		manager.load(PLAYER_BACK_IDLE, Texture.class);
-		assets.add(PLAYER_BACK_IDLE);
-		manager.load(PLAYER_LEFT_IDLE, Texture.class);
-		assets.add(PLAYER_LEFT_IDLE);
-		manager.load(PLAYER_RIGHT_IDLE, Texture.class);
-		assets.add(PLAYER_RIGHT_IDLE);
-		manager.load(DEATH, Texture.class);
-		assets.add(DEATH);
-
-		manager.load(ENEMY_FILE, Texture.class);
-		assets.add(ENEMY_FILE);
-		manager.load(SEEN_FILE, Texture.class);
-		assets.add(SEEN_FILE);
-		manager.load(SAVED_ENEMY_FILE, Texture.class);
-		assets.add(SAVED_ENEMY_FILE);
-		manager.load(WIN_SCREEN_FILE, Texture.class);
-		assets.add(WIN_SCREEN_FILE);
-		manager.load(LOSS_SCREEN_FILE, Texture.class);
-		assets.add(LOSS_SCREEN_FILE);
-
-		manager.load(D_WALL, Texture.class);
-		assets.add(D_WALL);
-		manager.load(DL_WALL, Texture.class);
-		assets.add(DL_WALL);
-		manager.load(DL_SINGLE_WALL, Texture.class);
-		assets.add(DL_SINGLE_WALL);
-		manager.load(DLR_WALL, Texture.class);
-		assets.add(DLR_WALL);
-		manager.load(DR_WALL, Texture.class);
-		assets.add(DR_WALL);
-		manager.load(DR_SINGLE_WALL, Texture.class);
-		assets.add(DR_SINGLE_WALL);
-		manager.load(L_WALL, Texture.class);
-		assets.add(L_WALL);
-		manager.load(LR_WALL, Texture.class);
-		assets.add(LR_WALL);
-		manager.load(LR__SINGLE_WALL, Texture.class);
-		assets.add(LR__SINGLE_WALL);
-		manager.load(R_WALL, Texture.class);
-		assets.add(R_WALL);
-		manager.load(SINGULAR_WALL, Texture.class);
-		assets.add(SINGULAR_WALL);
-		manager.load(U_WALL, Texture.class);
-		assets.add(U_WALL);
-		manager.load(UD_WALL, Texture.class);
-		assets.add(UD_WALL);
-		manager.load(UDL_WALL, Texture.class);
-		assets.add(UDL_WALL);
-		manager.load(UDLR_WALL, Texture.class);
-		assets.add(UDLR_WALL);
-		manager.load(UDR_WALL, Texture.class);
-		assets.add(UDR_WALL);
-		manager.load(UDLR_WALL, Texture.class);
-		assets.add(UDLR_WALL);
-		manager.load(UL_WALL, Texture.class);
-		assets.add(UL_WALL);
-		manager.load(ULR_WALL, Texture.class);
-		assets.add(ULR_WALL);
-		manager.load(UR_WALL, Texture.class);
-		assets.add(UR_WALL);
-		manager.load(UR_WALL, Texture.class);
-		assets.add(UR_WALL);
-		manager.load(UR_SINGLE_WALL, Texture.class);
-		assets.add(UR_SINGLE_WALL);
-		manager.load(DLR_SINGLE_WALL, Texture.class);
-		assets.add(DLR_SINGLE_WALL);
-		manager.load(UDL_SINGLE_WALL, Texture.class);
-		assets.add(UDL_SINGLE_WALL);
-		manager.load(UDLR_SINGLE_WALL, Texture.class);
-		assets.add(UDLR_SINGLE_WALL);
-		manager.load(UDR_SINGLE_WALL, Texture.class);
-		assets.add(UDR_SINGLE_WALL);
-		manager.load(ULR_SINGLE_WALL, Texture.class);
-		assets.add(ULR_WALL);
-		manager.load(DL_COVER_WALL, Texture.class);
-		assets.add(DL_COVER_WALL);
-		manager.load(DR_COVER, Texture.class);
-		assets.add(DR_COVER);
-		manager.load(UL_COVER, Texture.class);
-		assets.add(UL_COVER);
-		manager.load(UR_COVER, Texture.class);
-		assets.add(UR_COVER);
-
-		manager.load(D_HOLE, Texture.class);
-		assets.add(D_HOLE);
-		manager.load(DL_HOLE, Texture.class);
-		assets.add(DL_HOLE);
-		manager.load(DL_SINGLE_HOLE, Texture.class);
-		assets.add(DL_SINGLE_HOLE);
-		manager.load(DLR_HOLE, Texture.class);
-		assets.add(DLR_HOLE);
-		manager.load(DR_HOLE, Texture.class);
-		assets.add(DR_HOLE);
-		manager.load(DR_SINGLE_HOLE, Texture.class);
-		assets.add(DR_SINGLE_HOLE);
-		manager.load(L_HOLE, Texture.class);
-		assets.add(L_HOLE);
-		manager.load(LR_HOLE, Texture.class);
-		assets.add(LR_HOLE);
-		manager.load(LR__SINGLE_HOLE, Texture.class);
-		assets.add(LR__SINGLE_HOLE);
-		manager.load(R_HOLE, Texture.class);
-		assets.add(R_HOLE);
-		manager.load(SINGULAR_HOLE, Texture.class);
-		assets.add(SINGULAR_HOLE);
-		manager.load(U_HOLE, Texture.class);
-		assets.add(U_HOLE);
-		manager.load(UD_HOLE, Texture.class);
-		assets.add(UD_HOLE);
-		manager.load(UDL_HOLE, Texture.class);
-		assets.add(UDL_HOLE);
-		manager.load(UDLR_HOLE, Texture.class);
-		assets.add(UDLR_HOLE);
-		manager.load(UDR_HOLE, Texture.class);
-		assets.add(UDR_HOLE);
-		manager.load(UDLR_HOLE, Texture.class);
-		assets.add(UDLR_HOLE);
-		manager.load(UL_HOLE, Texture.class);
-		assets.add(UL_HOLE);
-		manager.load(ULR_HOLE, Texture.class);
-		assets.add(ULR_HOLE);
-		manager.load(UR_HOLE, Texture.class);
-		assets.add(UR_HOLE);
-		manager.load(UR_HOLE, Texture.class);
-		assets.add(UR_HOLE);
-		manager.load(UR_SINGLE_HOLE, Texture.class);
-		assets.add(UR_SINGLE_HOLE);
-		manager.load(DLR_SINGLE_HOLE, Texture.class);
-		assets.add(DLR_SINGLE_HOLE);
-		manager.load(UDL_SINGLE_HOLE, Texture.class);
-		assets.add(UDL_SINGLE_HOLE);
-		manager.load(UDLR_SINGLE_HOLE, Texture.class);
-		assets.add(UDLR_SINGLE_HOLE);
-		manager.load(UDR_SINGLE_HOLE, Texture.class);
-		assets.add(UDR_SINGLE_HOLE);
-		manager.load(ULR_SINGLE_HOLE, Texture.class);
-		assets.add(ULR_HOLE);
-
-		manager.load(LIT_SOURCE_FILE, Texture.class);
-		assets.add(LIT_SOURCE_FILE);
-		manager.load(DIM_SOURCE_FILE, Texture.class);
-		assets.add(DIM_SOURCE_FILE);
-		manager.load(LIGHT_ANIMATION_FILE, Texture.class);
-		assets.add(LIGHT_ANIMATION_FILE);
-		manager.load(GRASS_SOURCE_FILE, Texture.class);
-		assets.add(GRASS_SOURCE_FILE);
-		manager.load(MUSHROOM_SOURCE_FILE, Texture.class);
-		assets.add(MUSHROOM_SOURCE_FILE);
-		manager.load(MUSHROOM_WIGGLE, Texture.class);
-		assets.add(MUSHROOM_WIGGLE);
-
-		manager.load(LIGHTS_TEXT_FILE, Texture.class);
-		assets.add(LIGHTS_TEXT_FILE);
-		manager.load(LIGHT_COUNTER_FILE, Texture.class);
-		assets.add(LIGHT_COUNTER_FILE);
-
-		manager.load(WATER_DARK_FILE, Texture.class);
-		assets.add(WATER_DARK_FILE);
-		manager.load(WATER_LIGHT_FILE, Texture.class);
-		assets.add(WATER_LIGHT_FILE);
-
-		manager.load(PICKUP_SOURCE_FILE, Texture.class);
-		assets.add(PICKUP_SOURCE_FILE);
-
-		manager.load(PAUSE_FILE, Texture.class);
-		assets.add(PAUSE_FILE);
-
-		manager.load(COOLDOWN_0, Texture.class);
-		assets.add(COOLDOWN_0);
-		manager.load(COOLDOWN_25, Texture.class);
-		assets.add(COOLDOWN_25);
-		manager.load(COOLDOWN_50, Texture.class);
-		assets.add(COOLDOWN_50);
-		manager.load(COOLDOWN_75, Texture.class);
-		assets.add(COOLDOWN_75);
-		manager.load(COOLDOWN_100, Texture.class);
-		assets.add(COOLDOWN_100);
-
-		manager.load(TUTORIAL_ZOOM, Texture.class);
-		assets.add(TUTORIAL_ZOOM);
+		loadTexture(manager, PLAYER_ANIMATION_FRONT);
+		loadTexture(manager, PLAYER_ANIMATION_BACK);
+		loadTexture(manager, PLAYER_ANIMATION_LEFT);
+		loadTexture(manager, PLAYER_ANIMATION_RIGHT);
+
+		loadTexture(manager, PLACING_LIGHT_FRONT);
+		loadTexture(manager, TAKING_LIGHT_FRONT);
+		loadTexture(manager, PLACING_LIGHT_LEFT);
+		loadTexture(manager, TAKING_LIGHT_LEFT);
+		loadTexture(manager, PLACING_LIGHT_RIGHT);
+		loadTexture(manager, TAKING_LIGHT_RIGHT);
+
+		loadTexture(manager, ENEMY_ANIMATION_FRONT);
+		loadTexture(manager, ENEMY_ANIMATION_BACK);
+		loadTexture(manager, ENEMY_ANIMATION_LEFT);
+		loadTexture(manager, ENEMY_ANIMATION_RIGHT);
+
+		loadTexture(manager, ENEMY_ANGRY_ANIMATION_FRONT);
+		loadTexture(manager, ENEMY_ANGRY_ANIMATION_BACK);
+		loadTexture(manager, ENEMY_ANGRY_ANIMATION_LEFT);
+		loadTexture(manager, ENEMY_ANGRY_ANIMATION_RIGHT);
+
+		loadTexture(manager, ENEMY_TRANSFORMATION);
+		loadTexture(manager, ENEMY_ANIMATION_SAVED);
+
+		loadTexture(manager, PLAYER_FILE_LEFT);
+		loadTexture(manager, PLAYER_FILE_BACK);
+		loadTexture(manager, PLAYER_FILE_FRONT);
+
+		loadTexture(manager, THROW_LIGHT_FRONT);
+		loadTexture(manager, THROW_LIGHT_BACK);
+		loadTexture(manager, THROW_LIGHT_LEFT);
+		loadTexture(manager, THROW_LIGHT_RIGHT);
+
+		loadTexture(manager, PLAYER_FRONT_IDLE);
+		loadTexture(manager, PLAYER_BACK_IDLE);
+		loadTexture(manager, PLAYER_LEFT_IDLE);
+		loadTexture(manager, PLAYER_RIGHT_IDLE);
+		loadTexture(manager, DEATH);
+
+		loadTexture(manager, ENEMY_FILE);
+		loadTexture(manager, SEEN_FILE);
+		loadTexture(manager, SAVED_ENEMY_FILE);
+		loadTexture(manager, WIN_SCREEN_FILE);
+		loadTexture(manager, LOSS_SCREEN_FILE);
+
+		loadTexture(manager, D_WALL);
+		loadTexture(manager, DL_WALL);
+		loadTexture(manager, DL_SINGLE_WALL);
+		loadTexture(manager, DLR_WALL);
+		loadTexture(manager, DR_WALL);
+		loadTexture(manager, DR_SINGLE_WALL);
+		loadTexture(manager, L_WALL);
+		loadTexture(manager, LR_WALL);
+		loadTexture(manager, LR__SINGLE_WALL);
+		loadTexture(manager, R_WALL);
+		loadTexture(manager, SINGULAR_WALL);
+		loadTexture(manager, U_WALL);
+		loadTexture(manager, UD_WALL);
+		loadTexture(manager, UDL_WALL);
+		loadTexture(manager, UDLR_WALL);
+		loadTexture(manager, UDR_WALL);
+		loadTexture(manager, UDLR_WALL);
+		loadTexture(manager, UL_WALL);
+		loadTexture(manager, ULR_WALL);
+		loadTexture(manager, UR_WALL);
+		loadTexture(manager, UR_WALL);
+		loadTexture(manager, UR_SINGLE_WALL);
+		loadTexture(manager, DLR_SINGLE_WALL);
+		loadTexture(manager, UDL_SINGLE_WALL);
+		loadTexture(manager, UDLR_SINGLE_WALL);
+		loadTexture(manager, UDR_SINGLE_WALL);
+		loadTexture(manager, ULR_SINGLE_WALL);
+		loadTexture(manager, DL_COVER_WALL);
+		loadTexture(manager, DR_COVER);
+		loadTexture(manager, UL_COVER);
+		loadTexture(manager, UR_COVER);
+
+		loadTexture(manager, D_HOLE);
+		loadTexture(manager, DL_HOLE);
+		loadTexture(manager, DL_SINGLE_HOLE);
+		loadTexture(manager, DLR_HOLE);
+		loadTexture(manager, DR_HOLE);
+		loadTexture(manager, DR_SINGLE_HOLE);
+		loadTexture(manager, L_HOLE);
+		loadTexture(manager, LR_HOLE);
+		loadTexture(manager, LR__SINGLE_HOLE);
+		loadTexture(manager, R_HOLE);
+		loadTexture(manager, SINGULAR_HOLE);
+		loadTexture(manager, U_HOLE);
+		loadTexture(manager, UD_HOLE);
+		loadTexture(manager, UDL_HOLE);
+		loadTexture(manager, UDLR_HOLE);
+		loadTexture(manager, UDR_HOLE);
+		loadTexture(manager, UDLR_HOLE);
+		loadTexture(manager, UL_HOLE);
+		loadTexture(manager, ULR_HOLE);
+		loadTexture(manager, UR_HOLE);
+		loadTexture(manager, UR_HOLE);
+		loadTexture(manager, UR_SINGLE_HOLE);
+		loadTexture(manager, DLR_SINGLE_HOLE);
+		loadTexture(manager, UDL_SINGLE_HOLE);
+		loadTexture(manager, UDLR_SINGLE_HOLE);
+		loadTexture(manager, UDR_SINGLE_HOLE);
+		loadTexture(manager, ULR_SINGLE_HOLE);
+
+		loadTexture(manager, LIT_SOURCE_FILE);
+		loadTexture(manager, DIM_SOURCE_FILE);
+		loadTexture(manager, LIGHT_ANIMATION_FILE);
+		loadTexture(manager, GRASS_SOURCE_FILE);
+		loadTexture(manager, MUSHROOM_SOURCE_FILE);
+		loadTexture(manager, MUSHROOM_WIGGLE);
+
+		loadTexture(manager, LIGHTS_TEXT_FILE);
+		loadTexture(manager, LIGHT_COUNTER_FILE);
+
+		loadTexture(manager, WATER_DARK_FILE);
+		loadTexture(manager, WATER_LIGHT_FILE);
+
+		loadTexture(manager, PICKUP_SOURCE_FILE);
+
+		loadTexture(manager, PAUSE_FILE);
+
+		loadTexture(manager, COOLDOWN_0);
+		loadTexture(manager, COOLDOWN_25);
+		loadTexture(manager, COOLDOWN_50);
+		loadTexture(manager, COOLDOWN_75);
+		loadTexture(manager, COOLDOWN_100);
+
+		loadTexture(manager, TUTORIAL_ZOOM);
 
 		if(TUTORIAL) {
-			manager.load(TUTORIAL_FIREFLY_FILE, Texture.class);
-			assets.add(TUTORIAL_FIREFLY_FILE);
-			manager.load(TUTORIAL_FIREFLY_FLIPPED, Texture.class);
-			assets.add(TUTORIAL_FIREFLY_FILE);
-
-			manager.load(TUTORIAL_111, Texture.class);
-			assets.add(TUTORIAL_111);
-			manager.load(TUTORIAL_112, Texture.class);
-			assets.add(TUTORIAL_112);
-			manager.load(TUTORIAL_121, Texture.class);
-			assets.add(TUTORIAL_121);
-			manager.load(TUTORIAL_122, Texture.class);
-			assets.add(TUTORIAL_122);
-			manager.load(TUTORIAL_131, Texture.class);
-			assets.add(TUTORIAL_131);
-			manager.load(TUTORIAL_132, Texture.class);
-			assets.add(TUTORIAL_132);
-			manager.load(TUTORIAL_141, Texture.class);
-			assets.add(TUTORIAL_141);
-			manager.load(TUTORIAL_211, Texture.class);
-			assets.add(TUTORIAL_211);
-			manager.load(TUTORIAL_221, Texture.class);
-			assets.add(TUTORIAL_221);
-			manager.load(TUTORIAL_311, Texture.class);
-			assets.add(TUTORIAL_311);
-			manager.load(TUTORIAL_312, Texture.class);
-			assets.add(TUTORIAL_312);
-			manager.load(TUTORIAL_411, Texture.class);
-			assets.add(TUTORIAL_411);
-			manager.load(TUTORIAL_412, Texture.class);
-			assets.add(TUTORIAL_412);
-			manager.load(TUTORIAL_413, Texture.class);
-			assets.add(TUTORIAL_413);
-			manager.load(TUTORIAL_414, Texture.class);
-			assets.add(TUTORIAL_414);
-			manager.load(TUTORIAL_511, Texture.class);
-			assets.add(TUTORIAL_511);
-			manager.load(TUTORIAL_512, Texture.class);
-			assets.add(TUTORIAL_512);
-			manager.load(TUTORIAL_611, Texture.class);
-			assets.add(TUTORIAL_611);
-			manager.load(TUTORIAL_612, Texture.class);
-			assets.add(TUTORIAL_612);
-			manager.load(TUTORIAL_711, Texture.class);
-			assets.add(TUTORIAL_711);
-			manager.load(TUTORIAL_811, Texture.class);
-			assets.add(TUTORIAL_811);
+			loadTexture(manager, TUTORIAL_FIREFLY_FILE);
+			loadTexture(manager, TUTORIAL_FIREFLY_FLIPPED);
+
+			loadTexture(manager, TUTORIAL_111);
+			loadTexture(manager, TUTORIAL_112);
+			loadTexture(manager, TUTORIAL_121);
+			loadTexture(manager, TUTORIAL_122);
+			loadTexture(manager, TUTORIAL_131);
+			loadTexture(manager, TUTORIAL_132);
+			loadTexture(manager, TUTORIAL_141);
+			loadTexture(manager, TUTORIAL_211);
+			loadTexture(manager, TUTORIAL_221);
+			loadTexture(manager, TUTORIAL_311);
+			loadTexture(manager, TUTORIAL_312);
+			loadTexture(manager, TUTORIAL_411);
+			loadTexture(manager, TUTORIAL_412);
+			loadTexture(manager, TUTORIAL_413);
+			loadTexture(manager, TUTORIAL_414);
+			loadTexture(manager, TUTORIAL_511);
+			loadTexture(manager, TUTORIAL_512);
+			loadTexture(manager, TUTORIAL_611);
+			loadTexture(manager, TUTORIAL_612);
+			loadTexture(manager, TUTORIAL_711);
+			loadTexture(manager, TUTORIAL_811);
 		}
 
 		super.preLoadContent(manager);
@@ -732,6 +619,46 @@ public class GameplayController extends WorldController implements ContactListen
 		holeTextures[24] = createTexture(manager, ULR_SINGLE_HOLE, false);
 	}
 
+	/**
+	 * Adds the sprite for a wall or hole tile to the wall grid.
+	 *
+	 * The sprite has no body; its collision comes from StaticCollisionBuilder.
+	 *
+	 * @param x     The x index for the Tile cell
+	 * @param y     The y index for the Tile cell
+	 * @param masks The neighbour masks from Board.computeNeighborMasks
+	 * @param water Whether the tile is a hole rather than a wall
+	 */
+	private void addWallSprite(int x, int y, byte[] masks, boolean water) {
+		Wall wall = new Wall(x, y, 1, 1);
+		wall.setDrawScale(scale);
+		setTileTexture(wall, masks, water);
+		wall.setDraw_scale(water ? HOLE_SCALE : WALL_SCALE);
+		wallGrid.add(wall);
+	}
+
+	/**
+	 * Sets the texture of a wall or hole tile from its neighbour mask.
+	 *
+	 * If no texture fits the mask, the tile is left untextured.
+	 *
+	 * @param wall  The wall or hole tile
+	 * @param masks The neighbour masks from Board.computeNeighborMasks
+	 * @param water Whether the tile is a hole rather than a wall
+	 */
+	private void setTileTexture(Wall wall, byte[] masks, boolean water) {
+		int x = (int) wall.getX();
+		int y = (int) wall.getY();
+		if (!board.inBounds(x, y)) {
+			return;
+		}
+		int mask = masks[x + y * board.getWidth()];
+		int tile = water ? Autotiler.getHoleTile(mask) : Autotiler.getWallTile(mask);
+		if (tile >= 0) {
+			wall.setTexture(water ? holeTextures[tile] : wallTextures[tile]);
+		}
+	}
+
 	public void setWallTextures(AssetManager manager){
 		wallTextures = new TextureRegion[29];
 		wallTextures[0] = createTexture(manager, D_WALL, false);
@@ -966,6 +893,16 @@ public class GameplayController extends WorldController implements ContactListen
 	 * Stores all the AI controllers
 	 */
 	protected AIController[] controls;
+	/** Plans the enemies each frame, within a time budget */
+	private AIScheduler scheduler;
+	/** The planning budget of the scheduler (in microseconds per frame) */
+	private int planningBudget = AIScheduler.DEFAULT_BUDGET;
+	/** The camera position (the interpolated player position, in pixels) */
+	private Vector2 cameraPosition = new Vector2();
+	/** Scratch vector for the direction a thrown light pushes an enemy */
+	private Vector2 throwDirection = new Vector2();
+	/** Cache for the result of getThrownPosition */
+	private Vector2 thrownCache = new Vector2();
 
 
 	LightSourceObject[] lights;
@@ -975,7 +912,12 @@ public class GameplayController extends WorldController implements ContactListen
 	private int initLights;
 	private int[] walls;
 	private int[] water; //Now holes
-	private HashMap<LightSourceLight, Long> thrownLights;
+	/** The lights the player has thrown, oldest first */
+	private Array<LightSourceLight> thrownLights;
+	/** When each thrown light was thrown (in simulation milliseconds) */
+	private LongArray thrownTimes;
+	/** Simulation time since the level started (in seconds) */
+	private float clock;
 	CollisionController collisions;
 
 	private ArtObject[] pickups;
@@ -1189,7 +1131,9 @@ public class GameplayController extends WorldController implements ContactListen
 		}
 		deathSound = Gdx.audio.newSound(Gdx.files.internal("sounds/death.mp3"));
 		//initialize thrown lights
-		thrownLights = new HashMap<>();
+		thrownLights = new Array<LightSourceLight>();
+		thrownTimes = new LongArray();
+		clock = 0;
 
 		for(int i = 0; i < enemies.length; i ++) {
 
@@ -1206,94 +1150,69 @@ public class GameplayController extends WorldController implements ContactListen
 			addObject(enemies[i]);
 		}
 
-		// Make Board
+		// Make Board (before releasing the old one, so their shared textures stay loaded)
+		Board oldBoard = board;
 		board = new Board((int) BOARD_WIDTH, (int) BOARD_HEIGHT, walls, lights, water);
+		if (oldBoard != null) {
+			oldBoard.dispose();
+		}
+
+		// Enemy sight is a bit test against the walls, precomputed once per level
+		VisibilitySet visibility = VisibilitySet.forLevel(board, Constants.SIGHT_CONE_RADIUS, LEVEL_PATH);
+		for (int i = 0; i < enemies.length; i++) {
+			enemies[i].setVisibility(visibility);
+		}
+
+		// Tile the walls and holes from their neighbours, in one sweep each
+		byte[] wallMasks = new byte[board.getWidth() * board.getHeight()];
+		byte[] waterMasks = new byte[board.getWidth() * board.getHeight()];
+		board.computeNeighborMasks(false, wallMasks);
+		board.computeNeighborMasks(true, waterMasks);
+
+		// Walls and holes collide as a few merged static bodies, one per connected
+		// region.  The Wall objects are only sprites, so they go straight into the
+		// wall grid instead of the physics world.
+		wallGrid = new ObstacleGrid((int) BOARD_WIDTH, (int) BOARD_HEIGHT);
+		StaticCollisionBuilder collision = new StaticCollisionBuilder(board.getWidth(), board.getHeight());
+		FixtureDef fixture = new FixtureDef();
+		fixture.density = BASIC_DENSITY;
+		fixture.friction = BASIC_FRICTION;
+		fixture.restitution = BASIC_RESTITUTION;
 
 		// Add Walls
-		Wall wall;
 		for (int i = 0; i < walls.length; i+=2){
-			wall = new Wall(walls[i], walls[i + 1], 1, 1);
-			wall.setBodyType(BodyDef.BodyType.KinematicBody);
-			wall.setDensity(BASIC_DENSITY);
-			wall.setFriction(BASIC_FRICTION);
-			wall.setRestitution(BASIC_RESTITUTION);
-			wall.setDrawScale(scale);
-			wall.setTextures(wallTextures);
-			wall.setTexture(board);
-			wall.setDraw_scale(WALL_SCALE);
-			addObject(wall);
-		}
-
-		// Add Water
-		// We don't set the texture here since it changes
-		// Texture is set by board
-		for (int i = 0; i < water.length; i+=2){
-			wall = new Wall(water[i], water[i + 1], 1, 1);
-			wall.setBodyType(BodyDef.BodyType.KinematicBody);
-			wall.setDensity(BASIC_DENSITY);
-			wall.setFriction(BASIC_FRICTION);
-			wall.setRestitution(BASIC_RESTITUTION);
-			wall.setDrawScale(scale);
-			wall.setTextures(holeTextures);
-			wall.setHoleTexture(board);
-			wall.setDraw_scale(HOLE_SCALE);
-			wall.getFilterData().categoryBits = Constants.BIT_WATER;
-			addObject(wall);
+			addWallSprite(walls[i], walls[i + 1], wallMasks, false);
+			collision.add(walls[i], walls[i + 1]);
 		}
 
+		// Add Water (its collision is built separately below)
+		for (int i = 0; i < water.length; i+=2){
+			addWallSprite(water[i], water[i + 1], waterMasks, true);
+		}
 
 		// Create border pieces
-		Wall border;
 		for (int ii = 0; ii < BOARD_WIDTH  ; ii++) {
-			border = new Wall(ii, 0, 1, 1);
-			border.setBodyType(BodyDef.BodyType.KinematicBody);
-			border.setDensity(BASIC_DENSITY);
-			border.setFriction(BASIC_FRICTION);
-			border.setRestitution(BASIC_RESTITUTION);
-			border.setDrawScale(scale);
-			border.setTextures(wallTextures);
-			border.setTexture(board);
-			border.setDraw_scale(WALL_SCALE);
-			addObject(border);
-			border = new Wall(ii, BOARD_HEIGHT - 1, 1, 1);
-
-			border.setBodyType(BodyDef.BodyType.KinematicBody);
-			border.setDensity(BASIC_DENSITY);
-			border.setFriction(BASIC_FRICTION);
-			border.setRestitution(BASIC_RESTITUTION);
-			border.setDrawScale(scale);
-			border.setTextures(wallTextures);
-			border.setDraw_scale(WALL_SCALE);
-
-			border.setTexture(board);
-			addObject(border);
-
+			addWallSprite(ii, 0, wallMasks, false);
+			addWallSprite(ii, (int) BOARD_HEIGHT - 1, wallMasks, false);
+			collision.add(ii, 0);
+			collision.add(ii, (int) BOARD_HEIGHT - 1);
 		}
 		for (int jj = 0; jj < BOARD_HEIGHT ; jj++) {
-			border = new Wall(0, jj, 1, 1);
-			border.setBodyType(BodyDef.BodyType.KinematicBody);
-			border.setDensity(BASIC_DENSITY);
-			border.setFriction(BASIC_FRICTION);
-			border.setRestitution(BASIC_RESTITUTION);
-			border.setDrawScale(scale);
-			border.setTextures(wallTextures);
-			border.setTexture(board);
-			border.setDraw_scale(WALL_SCALE);
-
-			addObject(border);
-
-			border = new Wall(BOARD_WIDTH - 1, jj, 1, 1);
-			border.setBodyType(BodyDef.BodyType.KinematicBody);
-			border.setDensity(BASIC_DENSITY);
-			border.setFriction(BASIC_FRICTION);
-			border.setRestitution(BASIC_RESTITUTION);
-			border.setDrawScale(scale);
-			border.setTextures(wallTextures);
-			border.setDraw_scale(WALL_SCALE);
+			addWallSprite(0, jj, wallMasks, false);
+			addWallSprite((int) BOARD_WIDTH - 1, jj, wallMasks, false);
+			collision.add(0, jj);
+			collision.add((int) BOARD_WIDTH - 1, jj);
+		}
+		fixture.filter.categoryBits = Constants.BIT_WALL;
+		collision.build(world, fixture);
 
-			border.setTexture(board);
-			addObject(border);
+		// Water collides too, but lights pass over it, so it has its own category
+		collision.clear();
+		for (int i = 0; i < water.length; i+=2){
+			collision.add(water[i], water[i + 1]);
 		}
+		fixture.filter.categoryBits = Constants.BIT_WATER;
+		collision.build(world, fixture);
 
 
 		// Add Player
@@ -1312,9 +1231,12 @@ public class GameplayController extends WorldController implements ContactListen
 		addObject(player);
 
 		// Make AI Controllers
+		board.createReservations(enemies.length);
 		for (int idx = 0; idx < enemies.length; idx++){
 			controls[idx] = new AIController(enemies[idx], board, player, enemies, getWorldStep(), volume);
 		}
+		scheduler = new AIScheduler(controls);
+		scheduler.setBudget(planningBudget);
 
 		//Add Art Objects
 		for (ArtObject artObject : artObjects) {
@@ -1452,6 +1374,81 @@ public class GameplayController extends WorldController implements ContactListen
 //			System.out.println("level "+LEVEL_ID+", tutorial: "+TUTORIAL+"; done adding tutorial texts");
 
 		}
+
+		// Walls are static, so they are drawn from the static cache instead
+		sprites.clear();
+		for (Obstacle obj : objects) {
+			sprites.add(obj);
+		}
+		buildStaticCache();
+	}
+
+	/**
+	 * Caches the ground tiles and walls, which never change during a level.
+	 *
+	 * The board is cut into square pages so that only the pages under the camera
+	 * are drawn.  Each page is one cache id for the ground and one for the walls.
+	 */
+	private void buildStaticCache() {
+		if (staticCache != null) {
+			staticCache.dispose();
+		}
+		int width = board.getWidth();
+		int height = board.getHeight();
+		staticPagesX = (width + STATIC_PAGE_SIZE - 1) / STATIC_PAGE_SIZE;
+		staticPagesY = (height + STATIC_PAGE_SIZE - 1) / STATIC_PAGE_SIZE;
+		groundPages = new int[staticPagesX * staticPagesY];
+		wallPages = new int[staticPagesX * staticPagesY];
+		staticCache = new SpriteCache(width * height + wallGrid.size(), false);
+
+		for (int py = 0; py < staticPagesY; py++) {
+			for (int px = 0; px < staticPagesX; px++) {
+				int page = px + py * staticPagesX;
+				int x0 = px * STATIC_PAGE_SIZE;
+				int y0 = py * STATIC_PAGE_SIZE;
+
+				staticCache.beginCache();
+				board.cacheGround(staticCache, x0, y0, x0 + STATIC_PAGE_SIZE, y0 + STATIC_PAGE_SIZE);
+				groundPages[page] = staticCache.endCache();
+
+				pageWalls.clear();
+				wallGrid.query(x0, y0, x0 + STATIC_PAGE_SIZE - 1, y0 + STATIC_PAGE_SIZE - 1, pageWalls);
+				if (pageWalls.size == 0) {
+					wallPages[page] = -1;
+					continue;
+				}
+				staticCache.beginCache();
+				for (Obstacle obj : pageWalls) {
+					((Wall) obj).cache(staticCache);
+				}
+				wallPages[page] = staticCache.endCache();
+			}
+		}
+		pageWalls.clear();
+	}
+
+	/**
+	 * Draws the cache pages under the camera.
+	 *
+	 * @param pages the cache id of each page (-1 to skip)
+	 */
+	private void drawStaticPages(int[] pages) {
+		int px0 = Math.max(0, MathUtils.round(viewBounds.x / scale.x) - WALL_DRAW_MARGIN) / STATIC_PAGE_SIZE;
+		int py0 = Math.max(0, MathUtils.round(viewBounds.y / scale.y) - WALL_DRAW_MARGIN) / STATIC_PAGE_SIZE;
+		int px1 = Math.min(staticPagesX - 1,
+				Math.max(0, MathUtils.round((viewBounds.x + viewBounds.width) / scale.x) + WALL_DRAW_MARGIN) / STATIC_PAGE_SIZE);
+		int py1 = Math.min(staticPagesY - 1,
+				Math.max(0, MathUtils.round((viewBounds.y + viewBounds.height) / scale.y) + WALL_DRAW_MARGIN) / STATIC_PAGE_SIZE);
+
+		canvas.beginCache(staticCache);
+		for (int py = py0; py <= py1; py++) {
+			for (int px = px0; px <= px1; px++) {
+				int id = pages[px + py * staticPagesX];
+				if (id != -1)
+					canvas.drawCache(id);
+			}
+		}
+		canvas.endCache();
 	}
 
 	public void initLighting() {
@@ -1525,6 +1522,7 @@ public class GameplayController extends WorldController implements ContactListen
 	 * @param dt Number of seconds since last animation frame
 	 */
 	public void update(float dt) {
+		clock += dt;
 
 		player.insideThrownLight = false;
 		inLitTile = false;
@@ -1539,11 +1537,15 @@ public class GameplayController extends WorldController implements ContactListen
 			rayCamera.position.set(player.getPosition(), 0);
 			rayCamera.update();
 			sourceRayHandler.setCombinedMatrix(rayCamera);
+			profiler.begin(FrameProfiler.LIGHTS);
 			sourceRayHandler.update();
+			profiler.end(FrameProfiler.LIGHTS);
 		}
 
 		InputController input = InputController.getInstance();
+		profiler.begin(FrameProfiler.INPUT);
 		input.readInput(bounds, scale);
+		profiler.end(FrameProfiler.INPUT);
 		InputController.Move_Direction next_move = input.get_Next_Direction();
 
 		if (currentScale != ZOOM_IN_SCALE && input.didZoom()) {
@@ -1599,25 +1601,19 @@ public class GameplayController extends WorldController implements ContactListen
 				muted = !muted;
 			}
 		}
-		muteCooldown += Gdx.graphics.getDeltaTime();
+		muteCooldown += dt;
 //		System.out.println(muteCooldown);
 		if(muteCooldown >= .5){
 			canMute = true;
 		}
 
 		//remove old thrown light
-		if(!thrownLights.isEmpty()){
-			HashSet<LightSourceLight> toRemove = new HashSet<>();
-			for (Iterator<LightSourceLight> it = thrownLights.keySet().iterator(); it.hasNext(); ) {
-				LightSourceLight l = it.next();
-				if (System.currentTimeMillis() - thrownLights.get(l) > 2000L) {
-					l.setActive(false);
-					toRemove.add(l); }
+		for (int ii = thrownLights.size - 1; ii >= 0; ii--) {
+			if (clockMillis() - thrownTimes.get(ii) > 2000L) {
+				thrownLights.get(ii).setActive(false);
+				thrownLights.removeIndex(ii);
+				thrownTimes.removeIndex(ii);
 			}
-			for(LightSourceLight l : toRemove){
-				thrownLights.remove(l);
-			}
-
 		}
 
 		//player movement
@@ -1646,18 +1642,24 @@ public class GameplayController extends WorldController implements ContactListen
 			}
 		}
 		// update board
+		profiler.begin(FrameProfiler.BOARD);
 		board.update(player.getPosition(), dt, player.getScaledPosition());
+		profiler.end(FrameProfiler.BOARD);
+		for (AIController controller : controls) {
+			controller.updateRoutes(board.getLitChanges());
+		}
 
 		this.inLitTile = insideLightSource(player.getPosition());
 
 		//throw light
 		if((input.didShift() && player.lightCounter > 0 && !player.getThrowCooldown()) &&
-				(thrownLights.isEmpty() || over500()) && currentScale == ZOOM_IN_SCALE) {
+				(thrownLights.size == 0 || over500()) && currentScale == ZOOM_IN_SCALE) {
 
 			LightSourceLight light = new LightSourceLight(sourceRayHandler, THROWN_LIGHT_RADIUS + 2); //don't know why this is necesary, something weird going on with light radius
 			light.setColor(Color.PURPLE);
 			light.setPosition(player.getX(), player.getY());
-			thrownLights.put(light, System.currentTimeMillis());
+			thrownLights.add(light);
+			thrownTimes.add(clockMillis());
 			player.throwLight();
 			player.insideThrownLight = true;
 
@@ -1667,11 +1669,9 @@ public class GameplayController extends WorldController implements ContactListen
 				if (distance <= THROWN_LIGHT_RADIUS) {
 					float dx = e.getPosition().x - player.getX();
 					float dy = e.getPosition().y - player.getY();
-					Vector2 direction = (new Vector2(dx, dy)).nor();
-					float ratio = THROWN_LIGHT_RADIUS / distance;
-					Vector2 new_pos = new Vector2(Math.round((dx * ratio) + player.getX()), Math.round((dy * ratio) + player.getY()));
+					Vector2 direction = throwDirection.set(dx, dy).nor();
 					Vector2 thrown_pos = getThrownPosition(player.getPosition(), e.getPosition(), direction);
-					e.setPosition(new Vector2((int)thrown_pos.x, (int)thrown_pos.y));
+					e.setPosition((int)thrown_pos.x, (int)thrown_pos.y);
 					e.stunned = true;
 					e.collidedWithPlayer = false;
 				}
@@ -1688,9 +1688,16 @@ public class GameplayController extends WorldController implements ContactListen
 		}
 
 		// Do enemy movement
-		// Enemy Movement
+		// Every enemy plans against the same board (as the budget allows), then they move in order
+		profiler.begin(FrameProfiler.AI);
+		board.updateChaseField(Math.round(player.getPosition().x), Math.round(player.getPosition().y));
+		board.getReservations().advance(dt);
 		for (AIController controller : controls){
-			controller.move(isPlayerLit(), dt);
+			controller.prepare();
+		}
+		scheduler.plan(isPlayerLit(), dt);
+		for (AIController controller : controls){
+			controller.apply(dt);
 			Enemy enemy = controller.getEnemy();
 			//board.updateSeenTiles(enemy.getPosition(), enemy.getFacingDirection());
 			enemy.updateSightCone();
@@ -1704,6 +1711,7 @@ public class GameplayController extends WorldController implements ContactListen
 				enemy.angry = false;
 			}
 		}
+		profiler.end(FrameProfiler.AI);
 
 		// Check win Condition
 		int numLit = 0;
@@ -1757,29 +1765,37 @@ public class GameplayController extends WorldController implements ContactListen
 		}
 	}
 
+	/**
+	 * Returns where an enemy is pushed by a thrown light.
+	 *
+	 * The enemy slides away from the player until it is out of range, or blocked by a
+	 * wall.  This returns the same vector each time it is called, and so cannot be
+	 * used as an allocator.
+	 *
+	 * @param playerPosition The position of the player
+	 * @param enemyPosition The position of the enemy
+	 * @param direction The (normalized) direction from the player to the enemy
+	 *
+	 * @return where the enemy is pushed by a thrown light
+	 */
 	public Vector2 getThrownPosition(Vector2 playerPosition,Vector2 enemyPosition, Vector2 direction){
 		float distance = playerPosition.dst(enemyPosition);
 		if(distance >= THROWN_LIGHT_RADIUS){
-			return enemyPosition;
-		}
-		Vector2 scaler = new Vector2(0.1f * direction.x, 0.1f * direction.y);
-
-		Vector2 newPos = new Vector2(enemyPosition.x + scaler.x, enemyPosition.y + scaler.y);
-		if(board.isWall((int)newPos.x, (int)newPos.y) || board.isWall((int)newPos.x + 1, (int)newPos.y) ||
-				board.isWall((int)newPos.x, (int)newPos.y + 1) || board.isWall((int)newPos.x + 1, (int)newPos.y + 1)){
-			return enemyPosition;
+			return thrownCache.set(enemyPosition);
 		}
-		return getThrownPosition(playerPosition, newPos, direction);
+		// Slide away from the player until out of range or blocked by a wall
+		float travel = board.castBlock(enemyPosition.x, enemyPosition.y, direction.x, direction.y,
+				THROWN_LIGHT_RADIUS - distance);
+		return thrownCache.set(enemyPosition.x + travel * direction.x, enemyPosition.y + travel * direction.y);
 	}
 
 	@Override
 	public void render(float delta) {
 		if (isActive()) {
-			if (preUpdate(delta)) {
-				update(delta); // This is the one that must be defined.
-				postUpdate(delta);
-			}
+			profiler.beginFrame();
+			simulate(delta);
 			draw(delta, board);
+			profiler.endFrame();
 
 		}
 	}
@@ -1789,31 +1805,39 @@ public class GameplayController extends WorldController implements ContactListen
 		canvas.clear();
 
 		//set the players location
-		canvas.setCamera_coordinates(player.getScaledPosition());
+		cameraPosition.set(player.getDrawX() * scale.x, player.getDrawY() * scale.y);
+		canvas.setCamera_coordinates(cameraPosition);
 
-		// draw everything that should be affected by lighting (everything excluding walls)
+		// draw the cached ground, then everything that should be affected by lighting (everything excluding walls)
+		canvas.getViewBounds(viewBounds);
+		profiler.begin(FrameProfiler.BOARD_DRAW);
+		drawStaticPages(groundPages);
 		canvas.begin();
 		board.draw(canvas);
-		for(Obstacle obj : objects) {
-			if (!(obj instanceof BoxObstacle || obj instanceof PolygonObstacle || obj instanceof FeetHitboxObstacle))
+		profiler.end(FrameProfiler.BOARD_DRAW);
+		profiler.begin(FrameProfiler.OBJECT_DRAW);
+		for(Obstacle obj : sprites) {
+			if (!obj.isRemoved() &&
+					!(obj instanceof BoxObstacle || obj instanceof PolygonObstacle || obj instanceof FeetHitboxObstacle))
 				obj.draw(canvas);
 		}
 		canvas.end();
+		profiler.end(FrameProfiler.OBJECT_DRAW);
 
 		// render the light
+		profiler.begin(FrameProfiler.LIGHT_RENDER);
 		sourceRayHandler.render();
+		profiler.end(FrameProfiler.LIGHT_RENDER);
 
 		// draw things that should not be affected by shadows
+		profiler.begin(FrameProfiler.OBJECT_DRAW);
+		drawStaticPages(wallPages);
 		canvas.begin();
 
-		for(Obstacle obj : objects) {
-			if (obj instanceof Wall)
-				obj.draw(canvas);
-		}
-
-		for(Obstacle obj : objects) {
-			if ((obj instanceof BoxObstacle || obj instanceof PolygonObstacle || obj instanceof FeetHitboxObstacle)
-					&& !(obj instanceof Wall) && !(obj instanceof Enemy) && !(obj instanceof TutorialObject))
+		for(Obstacle obj : sprites) {
+			if (!obj.isRemoved()
+					&& (obj instanceof BoxObstacle || obj instanceof PolygonObstacle || obj instanceof FeetHitboxObstacle)
+					&& !(obj instanceof Enemy) && !(obj instanceof TutorialObject))
 				obj.draw(canvas);
 		}
 
@@ -1840,7 +1864,9 @@ public class GameplayController extends WorldController implements ContactListen
 				canvas.draw(seenTexture, Color.WHITE, 0, 0, x, y, 0, 1 , 1 );
 			}
 		}
+		profiler.end(FrameProfiler.OBJECT_DRAW);
 		drawUI();
+		profiler.draw(canvas, font);
 
 
 		canvas.end();
@@ -2048,6 +2074,14 @@ public class GameplayController extends WorldController implements ContactListen
 
 	@Override
 	public void dispose() {
+		if (staticCache != null) {
+			staticCache.dispose();
+			staticCache = null;
+		}
+		if (board != null) {
+			board.dispose();
+			board = null;
+		}
 		for(Obstacle obj : objects) {
 			obj.deactivatePhysics(world);
 		}
@@ -2062,9 +2096,60 @@ public class GameplayController extends WorldController implements ContactListen
 		canvas = null;
 	}
 
+	@Override
+	protected String getProfileName() {
+		return "level" + LEVEL_ID;
+	}
+
+	/**
+	 * Returns the board of the current level
+	 *
+	 * @return the board of the current level
+	 */
+	public Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * Returns the AI controllers of the current level, one per enemy
+	 *
+	 * @return the AI controllers of the current level
+	 */
+	public AIController[] getControllers() {
+		return controls;
+	}
+
+	/**
+	 * Sets the planning budget of the enemy scheduler (in microseconds per frame)
+	 *
+	 * The budget is measured in wall time, so enemies may be deferred differently
+	 * from one run to the next.  A headless run that must be repeatable sets a
+	 * budget large enough that no enemy is ever deferred.
+	 *
+	 * @param micros the planning budget (in microseconds per frame)
+	 */
+	public void setPlanningBudget(int micros) {
+		planningBudget = micros;
+		if (scheduler != null) {
+			scheduler.setBudget(micros);
+		}
+	}
+
+	/**
+	 * Returns the simulation time since the level started (in milliseconds)
+	 *
+	 * Timers use this rather than the wall clock, so that they run the same at any
+	 * frame rate, and when the level is simulated without a window.
+	 *
+	 * @return the simulation time since the level started (in milliseconds)
+	 */
+	private long clockMillis() {
+		return (long) (clock * 1000);
+	}
+
 	private boolean over500 () {
-		for (Long l : thrownLights.values()) {
-			if (System.currentTimeMillis() - l > 500L)
+		for (int ii = 0; ii < thrownTimes.size; ii++) {
+			if (clockMillis() - thrownTimes.get(ii) > 500L)
 				return true;
 		}
 		return false;
@@ -0,0 +1,79 @@
+package edu.cornell.gdiac.rekindled;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Walks the tiles of a grid under a segment.
+ *
+ * This is the Amanatides-Woo traversal: it visits the tiles in order, one
+ * boundary crossing at a time, so it costs time proportional to the length of
+ * the segment and allocates nothing.  It works on any WallGrid, so the game and
+ * the offline tools agree on what can be seen.
+ */
+public class GridTraversal {
+    /** Crossings closer than this are treated as passing through a corner */
+    private static final float TIE_EPSILON = 0.001f;
+
+    /**
+     * Returns true if no wall lies on the segment between two points.
+     *
+     * The points are in tile coordinates, where tile (x,y) is the unit square
+     * centered on (x,y).  The walk stops at the first wall.  A segment that passes
+     * exactly through the corner between two tiles is blocked if either of them
+     * is a wall.
+     *
+     * @param grid The walls to check against
+     * @param x0 The x-coordinate of the start point
+     * @param y0 The y-coordinate of the start point
+     * @param x1 The x-coordinate of the end point
+     * @param y1 The y-coordinate of the end point
+     *
+     * @return true if no wall lies on the segment between two points
+     */
+    public static boolean hasLineOfSight(WallGrid grid, float x0, float y0, float x1, float y1) {
+        // Shift so that tile (x,y) is the square [x,x+1] x [y,y+1]
+        x0 += 0.5f;
+        y0 += 0.5f;
+        x1 += 0.5f;
+        y1 += 0.5f;
+        int x = MathUtils.floor(x0);
+        int y = MathUtils.floor(y0);
+        int endX = MathUtils.floor(x1);
+        int endY = MathUtils.floor(y1);
+        if (grid.isWall(x, y)) {
+            return false;
+        }
+
+        // Parametrize the segment by t in [0,1]
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        float deltaX = dx != 0 ? Math.abs(1 / dx) : Float.MAX_VALUE;
+        float deltaY = dy != 0 ? Math.abs(1 / dy) : Float.MAX_VALUE;
+        float nextX = dx == 0 ? Float.MAX_VALUE : (dx > 0 ? x + 1 - x0 : x0 - x) * deltaX;
+        float nextY = dy == 0 ? Float.MAX_VALUE : (dy > 0 ? y + 1 - y0 : y0 - y) * deltaY;
+
+        while ((x != endX || y != endY) && Math.min(nextX, nextY) <= 1) {
+            if (nextX < nextY - TIE_EPSILON) {
+                x += stepX;
+                nextX += deltaX;
+            } else if (nextY < nextX - TIE_EPSILON) {
+                y += stepY;
+                nextY += deltaY;
+            } else {
+                if (grid.isWall(x + stepX, y) || grid.isWall(x, y + stepY)) {
+                    return false;
+                }
+                x += stepX;
+                y += stepY;
+                nextX += deltaX;
+                nextY += deltaY;
+            }
+            if (grid.isWall(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
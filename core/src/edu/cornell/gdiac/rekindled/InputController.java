@@ -18,7 +18,7 @@ import com.badlogic.gdx.math.*;
 
 import edu.cornell.gdiac.util.*;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
 
 import static edu.cornell.gdiac.rekindled.Entity_Controller.Move_Direction.*;
 
@@ -95,7 +95,15 @@ public class InputController extends Entity_Controller{
 	private boolean mutePressed;
 	private boolean mutePrevious;
 
-	private LinkedList<Move_Direction> keysPressed;
+	/** Whether the profiler overlay key (F3) was pressed */
+	private boolean profilePressed;
+	private boolean profilePrevious;
+
+	/** Whether the profiler dump key (F4) was pressed */
+	private boolean dumpPressed;
+	private boolean dumpPrevious;
+
+	private ArrayDeque<Move_Direction> keysPressed;
 
 	/** whether the shift key was previously pressed */
 	private boolean shiftPrevious;
@@ -332,6 +340,24 @@ public class InputController extends Entity_Controller{
 		return debugPressed && !debugPrevious;
 	}
 	
+	/**
+	 * Returns true if the player wants to toggle the profiler overlay.
+	 *
+	 * @return true if the player wants to toggle the profiler overlay.
+	 */
+	public boolean didProfile() {
+		return profilePressed && !profilePrevious;
+	}
+
+	/**
+	 * Returns true if the player wants to save the profiler timings to disk.
+	 *
+	 * @return true if the player wants to save the profiler timings to disk.
+	 */
+	public boolean didDumpProfile() {
+		return dumpPressed && !dumpPrevious;
+	}
+
 	/**
 	 * Returns true if the exit button was pressed.
 	 *
@@ -352,7 +378,7 @@ public class InputController extends Entity_Controller{
 		xbox = new XBox360Controller(0);
 		crosshair = new Vector2();
 		crosscache = new Vector2();
-		keysPressed = new LinkedList<>();
+		keysPressed = new ArrayDeque<>(4);
 	}
 
 	/**
@@ -378,6 +404,8 @@ public class InputController extends Entity_Controller{
 		pausePrevious = pausePressed;
 		zoomPrevious = zoomPressed;
 		mutePrevious = mutePressed;
+		profilePrevious = profilePressed;
+		dumpPrevious = dumpPressed;
 
 		
 		// Check to see if a GamePad is connected
@@ -445,6 +473,8 @@ public class InputController extends Entity_Controller{
 		pausePressed = (secondary && pausePressed) || (Gdx.input.isKeyPressed(Input.Keys.P));
 		zoomPressed = (secondary && zoomPressed) || (Gdx.input.isKeyPressed(Input.Keys.Z));
 		mutePressed = (Gdx.input.isKeyPressed(Input.Keys.M));
+		profilePressed = (Gdx.input.isKeyPressed(Input.Keys.F3));
+		dumpPressed = (Gdx.input.isKeyPressed(Input.Keys.F4));
 
 		// Directional controls
 		horizontal = (secondary ? horizontal : 0.0f);
@@ -151,6 +151,8 @@ public class LevelCompleteMode implements Screen, InputProcessor, ControllerList
 
     /** AssetManager to be loading in the background */
     private AssetManager manager;
+    /** Registry of the shared textures for this screen */
+    private TextureRegistry textures = TextureRegistry.getInstance();
     /** Reference to GameCanvas created by the root */
     private GameCanvas canvas;
     /** Listener that will update the player mode when we are done */
@@ -245,14 +247,14 @@ public class LevelCompleteMode implements Screen, InputProcessor, ControllerList
 
         // Load the next two images immediately.
         playButton = null;
-        completeBackground = new Texture(BACKGROUND_COMPLETE_FILE);
-        pauseBackground = new Texture(BACKGROUND_PAUSE_FILE);
-        lostBackground = new Texture(BACKGROUND_LOST_FILE);
-        replayHover = new Texture(REPLAY_HOVER);
-        exitHover = new Texture(EXIT_HOVER);
-        exitHoverPause = new Texture(EXIT_HOVER_PAUSE);
-        continueHover = new Texture(CONTINUE_HOVER);
-        nextHover = new Texture(NEXT_HOVER);
+        completeBackground = textures.acquire(BACKGROUND_COMPLETE_FILE);
+        pauseBackground = textures.acquire(BACKGROUND_PAUSE_FILE);
+        lostBackground = textures.acquire(BACKGROUND_LOST_FILE);
+        replayHover = textures.acquire(REPLAY_HOVER);
+        exitHover = textures.acquire(EXIT_HOVER);
+        exitHoverPause = textures.acquire(EXIT_HOVER_PAUSE);
+        continueHover = textures.acquire(CONTINUE_HOVER);
+        nextHover = textures.acquire(NEXT_HOVER);
 
 //		statusBar  = new Texture(PROGRESS_FILE);
 
@@ -299,13 +301,21 @@ public class LevelCompleteMode implements Screen, InputProcessor, ControllerList
 //		 statusFrgRight = null;
 //		 statusFrgMiddle = null;
 
-        completeBackground.dispose();
+        // Textures are shared; release them rather than disposing them
+        textures.release(completeBackground);
+        textures.release(pauseBackground);
+        textures.release(lostBackground);
+        textures.release(replayHover);
+        textures.release(exitHover);
+        textures.release(exitHoverPause);
+        textures.release(continueHover);
+        textures.release(nextHover);
         pe.dispose();
 //		 statusBar.dispose();
         completeBackground = null;
 //		 statusBar  = null;
         if (playButton != null) {
-            playButton.dispose();
+            textures.release(playButton);
             playButton = null;
         }
     }
@@ -325,7 +335,7 @@ public class LevelCompleteMode implements Screen, InputProcessor, ControllerList
             this.progress = manager.getProgress();
             if (progress >= 1.0f) {
                 this.progress = 1.0f;
-                playButton = new Texture(PLAY_BTN_FILE);
+                playButton = textures.acquire(PLAY_BTN_FILE);
                 playButton.setFilter(TextureFilter.Linear, TextureFilter.Linear);
             }
 
@@ -0,0 +1,189 @@
+package edu.cornell.gdiac.rekindled;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of tile-to-tile line of sight results.
+ *
+ * Enemies only rethink when they are centered on a tile, and the player moves a
+ * tile at a time, so the same (enemy tile, player tile) question is asked over and
+ * over, by many enemies and across many frames.  This caches the answers in an
+ * open-addressed table of packed tile pairs.  The table has a fixed size; when a
+ * short probe finds no free slot, the oldest entry in the probe is replaced.
+ *
+ * Every entry depends on the walls, so the whole table is dropped whenever the
+ * wall version of the board changes.
+ */
+public class LineOfSightCache {
+    /** The default number of slots (a power of two) */
+    public static final int DEFAULT_CAPACITY = 4096;
+    /** How many slots a lookup checks before replacing one */
+    private static final int MAX_PROBE = 8;
+    /** The key of an empty slot (never a valid packed pair) */
+    private static final long EMPTY = -1L;
+
+    /** The packed tile pair in each slot */
+    private long[] keys;
+    /** The line of sight result in each slot */
+    private boolean[] values;
+    /** The insertion stamp of each slot (for replacement) */
+    private int[] stamps;
+    /** Mask from hash to slot */
+    private int mask;
+    /** The next insertion stamp */
+    private int stamp;
+    /** The wall version the entries were computed for */
+    private int version;
+    /** The number of lookups answered from the table */
+    private long hits;
+    /** The number of lookups that had to walk the grid */
+    private long misses;
+
+    /**
+     * Creates an empty cache with the default capacity
+     */
+    public LineOfSightCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty cache with the given capacity
+     *
+     * @param capacity The number of slots (rounded up to a power of two)
+     */
+    public LineOfSightCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(MAX_PROBE, capacity - 1)) << 1;
+        keys = new long[size];
+        values = new boolean[size];
+        stamps = new int[size];
+        mask = size - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Returns true if there is line of sight between the centers of two tiles.
+     *
+     * The answer is the same as Board.hasLineOfSight on the tile centers.
+     *
+     * @param board The board to check
+     * @param x0 The x index of the first tile
+     * @param y0 The y index of the first tile
+     * @param x1 The x index of the second tile
+     * @param y1 The y index of the second tile
+     *
+     * @return true if there is line of sight between the centers of two tiles
+     */
+    public boolean hasLineOfSight(Board board, int x0, int y0, int x1, int y1) {
+        if (version != board.getWallVersion()) {
+            clear();
+            version = board.getWallVersion();
+        }
+
+        // Sight is symmetric, so store each pair once
+        long a = pack(x0, y0);
+        long b = pack(x1, y1);
+        long key = a < b ? (a << 32) | b : (b << 32) | a;
+
+        int home = hash(key);
+        int victim = home;
+        for (int ii = 0; ii < MAX_PROBE; ii++) {
+            int slot = (home + ii) & mask;
+            if (keys[slot] == key) {
+                hits++;
+                return values[slot];
+            }
+            if (keys[slot] == EMPTY) {
+                victim = slot;
+                break;
+            }
+            if (stamps[slot] - stamps[victim] < 0) {
+                victim = slot;
+            }
+        }
+
+        misses++;
+        boolean result = board.hasLineOfSight(x0, y0, x1, y1);
+        keys[victim] = key;
+        values[victim] = result;
+        stamps[victim] = stamp++;
+        return result;
+    }
+
+    /**
+     * Removes every entry from this cache.
+     *
+     * The hit and miss counters are not reset.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to walk the grid.
+     *
+     * @return the number of lookups that had to walk the grid
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the fraction of lookups answered from the cache.
+     *
+     * @return the fraction of lookups answered from the cache (0 if none yet)
+     */
+    public float getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (float) hits / total;
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetStats() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Returns the number of slots in this cache.
+     *
+     * @return the number of slots in this cache
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns a tile packed into 32 bits.
+     *
+     * @param x The x index of the tile
+     * @param y The y index of the tile
+     *
+     * @return a tile packed into 32 bits
+     */
+    private static long pack(int x, int y) {
+        return ((x & 0xffffL) << 16) | (y & 0xffffL);
+    }
+
+    /**
+     * Returns the home slot of a key.
+     *
+     * @param key The packed tile pair
+     *
+     * @return the home slot of a key
+     */
+    private int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+}
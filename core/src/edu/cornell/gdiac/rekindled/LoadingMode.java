@@ -40,9 +40,9 @@ import edu.cornell.gdiac.util.*;
  * screen to be used at the start of the game or between levels.  Feel free to adopt
  * this to your needs.
  *
- * You will note that this mode has some textures that are not loaded by the AssetManager.
- * You are never required to load through the AssetManager.  But doing this will block
- * the application.  That is why we try to have as few resources as possible for this
+ * You will note that this mode has some textures that are loaded immediately (through
+ * the TextureRegistry) instead of in the background.  Doing this will block the
+ * application.  That is why we try to have as few resources as possible for this
  * loading screen.
  */
 public class LoadingMode implements Screen, InputProcessor, ControllerListener {
@@ -207,6 +207,8 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 
 	/** AssetManager to be loading in the background */
 	private AssetManager manager;
+	/** Registry of the shared textures for this screen */
+	private TextureRegistry textures = TextureRegistry.getInstance();
 	/** Reference to GameCanvas created by the root */
 	private GameCanvas canvas;
 	/** Listener that will update the player mode when we are done */
@@ -342,52 +344,52 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 
 		// Load the next two images immediately.
 		playButton = null;
-		startBackground = new Texture(BACKGROUND_FILE);
-		settingsBackground = new Texture(SETTINGS_FILE);
-		levelSelectBackground = new Texture(LEVEL_SELECT_FILE);
-		backToMainTexture = new Texture(BACK_TO_MAIN_FILE);
-		wasdSelectedTexture = new Texture(WASD_SELECTED_FILE);
-		wasdUnselectedTexture = new Texture(WASD_UNSELECTED_FILE);
-		arrowSelectedTexture = new Texture(ARROW_SELECTED_FILE);
-		arrowUnselectedTexture = new Texture(ARROW_UNSELECTED_FILE);
-		saveChangesTexture = new Texture(SAVE_CHANGES_FILE);
-		levelsTexture = new Texture(LEVELS);
-		levels2Texture = new Texture(LEVELS2);
-		levels3Texture = new Texture(LEVELS3);
-		nextArrowTexture = new Texture(NEXT_FILE);
-		prevArrowTexture = new Texture(PREV_FILE);
-		levelHover = new Texture(LEVEL_HOVER_FILE);
-		startHover = new Texture(START_HOVER_FILE);
-		settingsHover = new Texture(SETTINGS_HOVER_FILE);
-		backToMainHover = new Texture(BACK_TO_MAIN_HOVER_FILE);
-		saveChangesHover = new Texture(SAVE_CHANGES_HOVER_FILE);
-		volumeSelectedTexture = new Texture(VOLUME_SELECTED_FILE);
-		volumeUnselectedTexture = new Texture(VOLUME_UNSELECTED_FILE);
-
-		hover1 = new Texture(HOVER_1_FILE);
-		hover2 = new Texture(HOVER_2_FILE);
-		hover3 = new Texture(HOVER_3_FILE);
-		hover4 = new Texture(HOVER_4_FILE);
-		hover5 = new Texture(HOVER_5_FILE);
-		hover6 = new Texture(HOVER_6_FILE);
-		hover7 = new Texture(HOVER_7_FILE);
-		hover8 = new Texture(HOVER_8_FILE);
-		hover9 = new Texture(HOVER_9_FILE);
-		hover10 = new Texture(HOVER_10_FILE);
-		hover11 = new Texture(HOVER_11_FILE);
-		hover12 = new Texture(HOVER_12_FILE);
-		hover13 = new Texture(HOVER_13_FILE);
-		hover14 = new Texture(HOVER_14_FILE);
-		hover15 = new Texture(HOVER_15_FILE);
-		hover16 = new Texture(HOVER_16_FILE);
-		hover17 = new Texture(HOVER_17_FILE);
-		hover18 = new Texture(HOVER_18_FILE);
-		hover19 = new Texture(HOVER_19_FILE);
-		hover20 = new Texture(HOVER_20_FILE);
-		hover21 = new Texture(HOVER_21_FILE);
-		hover22 = new Texture(HOVER_22_FILE);
-		hover23 = new Texture(HOVER_23_FILE);
-		hover24 = new Texture(HOVER_24_FILE);
+		startBackground = textures.acquire(BACKGROUND_FILE);
+		settingsBackground = textures.acquire(SETTINGS_FILE);
+		levelSelectBackground = textures.acquire(LEVEL_SELECT_FILE);
+		backToMainTexture = textures.acquire(BACK_TO_MAIN_FILE);
+		wasdSelectedTexture = textures.acquire(WASD_SELECTED_FILE);
+		wasdUnselectedTexture = textures.acquire(WASD_UNSELECTED_FILE);
+		arrowSelectedTexture = textures.acquire(ARROW_SELECTED_FILE);
+		arrowUnselectedTexture = textures.acquire(ARROW_UNSELECTED_FILE);
+		saveChangesTexture = textures.acquire(SAVE_CHANGES_FILE);
+		levelsTexture = textures.acquire(LEVELS);
+		levels2Texture = textures.acquire(LEVELS2);
+		levels3Texture = textures.acquire(LEVELS3);
+		nextArrowTexture = textures.acquire(NEXT_FILE);
+		prevArrowTexture = textures.acquire(PREV_FILE);
+		levelHover = textures.acquire(LEVEL_HOVER_FILE);
+		startHover = textures.acquire(START_HOVER_FILE);
+		settingsHover = textures.acquire(SETTINGS_HOVER_FILE);
+		backToMainHover = textures.acquire(BACK_TO_MAIN_HOVER_FILE);
+		saveChangesHover = textures.acquire(SAVE_CHANGES_HOVER_FILE);
+		volumeSelectedTexture = textures.acquire(VOLUME_SELECTED_FILE);
+		volumeUnselectedTexture = textures.acquire(VOLUME_UNSELECTED_FILE);
+
+		hover1 = textures.acquire(HOVER_1_FILE);
+		hover2 = textures.acquire(HOVER_2_FILE);
+		hover3 = textures.acquire(HOVER_3_FILE);
+		hover4 = textures.acquire(HOVER_4_FILE);
+		hover5 = textures.acquire(HOVER_5_FILE);
+		hover6 = textures.acquire(HOVER_6_FILE);
+		hover7 = textures.acquire(HOVER_7_FILE);
+		hover8 = textures.acquire(HOVER_8_FILE);
+		hover9 = textures.acquire(HOVER_9_FILE);
+		hover10 = textures.acquire(HOVER_10_FILE);
+		hover11 = textures.acquire(HOVER_11_FILE);
+		hover12 = textures.acquire(HOVER_12_FILE);
+		hover13 = textures.acquire(HOVER_13_FILE);
+		hover14 = textures.acquire(HOVER_14_FILE);
+		hover15 = textures.acquire(HOVER_15_FILE);
+		hover16 = textures.acquire(HOVER_16_FILE);
+		hover17 = textures.acquire(HOVER_17_FILE);
+		hover18 = textures.acquire(HOVER_18_FILE);
+		hover19 = textures.acquire(HOVER_19_FILE);
+		hover20 = textures.acquire(HOVER_20_FILE);
+		hover21 = textures.acquire(HOVER_21_FILE);
+		hover22 = textures.acquire(HOVER_22_FILE);
+		hover23 = textures.acquire(HOVER_23_FILE);
+		hover24 = textures.acquire(HOVER_24_FILE);
 
 
 //		statusBar  = new Texture(PROGRESS_FILE);
@@ -438,12 +440,57 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 //		 statusFrgRight = null;
 //		 statusFrgMiddle = null;
 
-		 startBackground.dispose();
+		 // Textures are shared; release them rather than disposing them
+		 textures.release(startBackground);
+		 textures.release(settingsBackground);
+		 textures.release(levelSelectBackground);
+		 textures.release(backToMainTexture);
+		 textures.release(wasdSelectedTexture);
+		 textures.release(wasdUnselectedTexture);
+		 textures.release(arrowSelectedTexture);
+		 textures.release(arrowUnselectedTexture);
+		 textures.release(saveChangesTexture);
+		 textures.release(levelsTexture);
+		 textures.release(levels2Texture);
+		 textures.release(levels3Texture);
+		 textures.release(nextArrowTexture);
+		 textures.release(prevArrowTexture);
+		 textures.release(levelHover);
+		 textures.release(startHover);
+		 textures.release(settingsHover);
+		 textures.release(backToMainHover);
+		 textures.release(saveChangesHover);
+		 textures.release(volumeSelectedTexture);
+		 textures.release(volumeUnselectedTexture);
+		 textures.release(hover1);
+		 textures.release(hover2);
+		 textures.release(hover3);
+		 textures.release(hover4);
+		 textures.release(hover5);
+		 textures.release(hover6);
+		 textures.release(hover7);
+		 textures.release(hover8);
+		 textures.release(hover9);
+		 textures.release(hover10);
+		 textures.release(hover11);
+		 textures.release(hover12);
+		 textures.release(hover13);
+		 textures.release(hover14);
+		 textures.release(hover15);
+		 textures.release(hover16);
+		 textures.release(hover17);
+		 textures.release(hover18);
+		 textures.release(hover19);
+		 textures.release(hover20);
+		 textures.release(hover21);
+		 textures.release(hover22);
+		 textures.release(hover23);
+		 textures.release(hover24);
 //		 statusBar.dispose();
 		 startBackground = null;
 //		 statusBar  = null;
 		 if (playButton != null) {
-			 playButton.dispose();
+			 textures.release(playButton);
 			 playButton = null;
 		 }
 		 pe.dispose();
@@ -464,7 +511,7 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 			this.progress = manager.getProgress();
 			if (progress >= 1.0f) {
 				this.progress = 1.0f;
-				playButton = new Texture(PLAY_BTN_FILE);
+				playButton = textures.acquire(PLAY_BTN_FILE);
 				playButton.setFilter(TextureFilter.Linear, TextureFilter.Linear);
 			}
 		}
@@ -0,0 +1,111 @@
+package edu.cornell.gdiac.rekindled;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import edu.cornell.gdiac.rekindled.obstacle.Obstacle;
+
+/**
+ * A uniform grid of static obstacles, bucketed by the tile under their position.
+ *
+ * This is used to group the walls into the pages of the static sprite cache, so
+ * that only the pages near the camera are drawn.  Queries return the obstacles in
+ * the order they were added, so overlapping sprites are layered the same way as a
+ * linear pass over the same obstacles.
+ */
+public class ObstacleGrid {
+    /** The grid width (in tiles) */
+    private int width;
+    /** The grid height (in tiles) */
+    private int height;
+    /** Every obstacle in the grid, in the order added */
+    private Array<Obstacle> obstacles;
+    /** The indices (into obstacles) of the obstacles in each tile */
+    private IntArray[] cells;
+    /** Scratch space for queries */
+    private IntArray found;
+
+    /**
+     * Creates an empty grid of the given size
+     *
+     * @param width Grid width in tiles
+     * @param height Grid height in tiles
+     */
+    public ObstacleGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        obstacles = new Array<>();
+        cells = new IntArray[width * height];
+        found = new IntArray();
+    }
+
+    /**
+     * Adds an obstacle to the tile under its position.
+     *
+     * Obstacles off the grid are clamped to the nearest edge tile.
+     *
+     * @param obj The (static) obstacle to add
+     */
+    public void add(Obstacle obj) {
+        int x = Math.min(width - 1, Math.max(0, Math.round(obj.getX())));
+        int y = Math.min(height - 1, Math.max(0, Math.round(obj.getY())));
+        int cell = x + y * width;
+        if (cells[cell] == null) {
+            cells[cell] = new IntArray(2);
+        }
+        cells[cell].add(obstacles.size);
+        obstacles.add(obj);
+    }
+
+    /**
+     * Returns the number of obstacles in this grid.
+     *
+     * @return the number of obstacles in this grid
+     */
+    public int size() {
+        return obstacles.size;
+    }
+
+    /**
+     * Removes every obstacle from this grid.
+     */
+    public void clear() {
+        obstacles.clear();
+        for (IntArray cell : cells) {
+            if (cell != null) {
+                cell.clear();
+            }
+        }
+    }
+
+    /**
+     * Collects the obstacles in the given rectangle of tiles (inclusive).
+     *
+     * The obstacles are appended to out in the order they were added to the grid.
+     *
+     * @param x0 The left tile of the rectangle
+     * @param y0 The bottom tile of the rectangle
+     * @param x1 The right tile of the rectangle
+     * @param y1 The top tile of the rectangle
+     * @param out The array to append the obstacles to
+     */
+    public void query(int x0, int y0, int x1, int y1, Array<Obstacle> out) {
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(width - 1, x1);
+        y1 = Math.min(height - 1, y1);
+
+        found.clear();
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                IntArray cell = cells[x + y * width];
+                if (cell != null) {
+                    found.addAll(cell);
+                }
+            }
+        }
+        found.sort();
+        for (int ii = 0; ii < found.size; ii++) {
+            out.add(obstacles.get(found.items[ii]));
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package edu.cornell.gdiac.rekindled;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, allocation-free pathfinder for the tile grid.
+ *
+ * Every enemy replans each time it reaches a tile center, so pathfinding runs many
+ * times a frame.  All of the scratch space here is allocated once, for the size of
+ * the board.  Tiles are packed into int ids (x + y * width), and the visited, goal
+ * and cost marks are stamped with a generation number, so starting a new query
+ * is an increment rather than a clear.
+ *
+ * There are two kinds of query.  search(sx,sy,filter) is a breadth first search to
+ * the nearest of a set of goal tiles (added with addGoal).  search(sx,sy,tx,ty,filter)
+ * is an A* search to a single tile, with the Manhattan distance as its heuristic.
+ * Both record the full path to the tile they reach, which is then read with
+ * getPathLength, getPathX and getPathY.
+ *
+ * Movement is in the four cardinal directions, and every step costs the same.
+ */
+public class Pathfinder {
+    /**
+     * A test for which tiles a query may enter.
+     *
+     * Tiles off the board are never tested.
+     */
+    public interface TileFilter {
+        /**
+         * Returns true if the query may use the tile (x,y).
+         *
+         * @param x The x index for the Tile cell
+         * @param y The y index for the Tile cell
+         *
+         * @return true if the query may use the tile (x,y).
+         */
+        boolean accept(int x, int y);
+    }
+
+    /** The neighbour offsets, in the order right, left, up, down */
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    /** The grid width (in tiles) */
+    private int width;
+    /** The grid height (in tiles) */
+    private int height;
+    /** The generation in which each tile was last visited */
+    private int[] visited;
+    /** The generation in which each tile was last made a goal */
+    private int[] goals;
+    /** The tile each visited tile was reached from */
+    private int[] parent;
+    /** The cost (in steps) to each visited tile, for A* */
+    private int[] cost;
+    /** The breadth first queue (every tile enters it at most once) */
+    private int[] queue;
+    /** The A* open set, a binary heap of (f << 32 | id) */
+    private long[] heap;
+    /** The number of entries in the heap */
+    private int heapSize;
+    /** The tiles of the last path, from the first step to the tile reached */
+    private int[] path;
+    /** The number of tiles in the last path */
+    private int pathLength;
+    /** The tile reached by the last query (-1 if none) */
+    private int reached;
+    /** The current search generation */
+    private int generation;
+    /** The current goal generation */
+    private int goalGeneration;
+
+    /**
+     * Creates a pathfinder for a board of the given size
+     *
+     * @param width Grid width in tiles
+     * @param height Grid height in tiles
+     */
+    public Pathfinder(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int tiles = width * height;
+        visited = new int[tiles];
+        goals = new int[tiles];
+        parent = new int[tiles];
+        cost = new int[tiles];
+        queue = new int[tiles];
+        // A tile can be pushed again each time a cheaper way to it is found,
+        // which is at most once per neighbour.
+        heap = new long[4 * tiles + 1];
+        path = new int[tiles];
+        reached = -1;
+        generation = 1;
+        goalGeneration = 1;
+    }
+
+    /**
+     * Removes every goal tile.
+     */
+    public void clearGoals() {
+        if (goalGeneration == Integer.MAX_VALUE) {
+            Arrays.fill(goals, 0);
+            goalGeneration = 0;
+        }
+        goalGeneration++;
+    }
+
+    /**
+     * Marks a tile as a goal for the breadth first search.
+     *
+     * Tiles off the board are ignored.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     */
+    public void addGoal(int x, int y) {
+        if (inBounds(x, y)) {
+            goals[x + y * width] = goalGeneration;
+        }
+    }
+
+    /**
+     * Returns true if the tile is a goal.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if the tile is a goal.
+     */
+    public boolean isGoal(int x, int y) {
+        return inBounds(x, y) && goals[x + y * width] == goalGeneration;
+    }
+
+    /**
+     * Marks as goals the first target tiles reachable from a start tile.
+     *
+     * This floods out from the start through the tiles accepted by open.  Every
+     * tile accepted by target becomes a goal, and the flood does not continue past
+     * it.  The previous goals are cleared first.
+     *
+     * @param sx The x index of the start tile
+     * @param sy The y index of the start tile
+     * @param open The tiles the flood may enter
+     * @param target The tiles that become goals
+     *
+     * @return the number of goals marked
+     */
+    public int markFrontier(int sx, int sy, TileFilter open, TileFilter target) {
+        clearGoals();
+        nextGeneration();
+        if (!inBounds(sx, sy)) {
+            return 0;
+        }
+
+        int marked = 0;
+        int head = 0;
+        int tail = 0;
+        int start = sx + sy * width;
+        visited[start] = generation;
+        queue[tail++] = start;
+        while (head < tail) {
+            int id = queue[head++];
+            int x = id % width;
+            int y = id / width;
+            if (target.accept(x, y)) {
+                goals[id] = goalGeneration;
+                marked++;
+                continue;
+            }
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if (inBounds(nx, ny) && visited[nx + ny * width] != generation && open.accept(nx, ny)) {
+                    visited[nx + ny * width] = generation;
+                    queue[tail++] = nx + ny * width;
+                }
+            }
+        }
+        return marked;
+    }
+
+    /**
+     * Finds a shortest path to the nearest goal tile, by breadth first search.
+     *
+     * The start tile is never tested by the filter, and is a valid answer if it
+     * is a goal itself.
+     *
+     * @param sx The x index of the start tile
+     * @param sy The y index of the start tile
+     * @param filter The tiles the path may enter
+     *
+     * @return true if a goal was reached
+     */
+    public boolean search(int sx, int sy, TileFilter filter) {
+        nextGeneration();
+        pathLength = 0;
+        reached = -1;
+        if (!inBounds(sx, sy)) {
+            return false;
+        }
+
+        int head = 0;
+        int tail = 0;
+        int start = sx + sy * width;
+        visited[start] = generation;
+        queue[tail++] = start;
+        while (head < tail) {
+            int id = queue[head++];
+            if (goals[id] == goalGeneration) {
+                buildPath(start, id);
+                return true;
+            }
+            int x = id % width;
+            int y = id / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                int next = nx + ny * width;
+                if (inBounds(nx, ny) && visited[next] != generation && filter.accept(nx, ny)) {
+                    visited[next] = generation;
+                    parent[next] = id;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds a shortest path to a single tile, by A* search.
+     *
+     * The start tile is never tested by the filter.  The goal tile must pass the
+     * filter to be reached (unless it is the start).
+     *
+     * @param sx The x index of the start tile
+     * @param sy The y index of the start tile
+     * @param tx The x index of the goal tile
+     * @param ty The y index of the goal tile
+     * @param filter The tiles the path may enter
+     *
+     * @return true if the goal was reached
+     */
+    public boolean search(int sx, int sy, int tx, int ty, TileFilter filter) {
+        nextGeneration();
+        pathLength = 0;
+        reached = -1;
+        if (!inBounds(sx, sy) || !inBounds(tx, ty)) {
+            return false;
+        }
+
+        int start = sx + sy * width;
+        int goal = tx + ty * width;
+        heapSize = 0;
+        visited[start] = generation;
+        cost[start] = 0;
+        push(Math.abs(tx - sx) + Math.abs(ty - sy), start);
+        while (heapSize > 0) {
+            long top = pop();
+            int id = (int) top;
+            int x = id % width;
+            int y = id / width;
+            // Skip entries made stale by a cheaper path
+            if ((int) (top >>> 32) != cost[id] + Math.abs(tx - x) + Math.abs(ty - y)) {
+                continue;
+            }
+            if (id == goal) {
+                buildPath(start, id);
+                return true;
+            }
+            int step = cost[id] + 1;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                int next = nx + ny * width;
+                if (!inBounds(nx, ny) || (visited[next] == generation && cost[next] <= step)) {
+                    continue;
+                }
+                if (filter.accept(nx, ny)) {
+                    visited[next] = generation;
+                    cost[next] = step;
+                    parent[next] = id;
+                    push(step + Math.abs(tx - nx) + Math.abs(ty - ny), next);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of steps in the last path.
+     *
+     * This is 0 if the start was the tile reached, or if nothing was reached.
+     *
+     * @return the number of steps in the last path
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Returns the x index of a step of the last path.
+     *
+     * @param step The step, from 0 (the first move) to getPathLength()-1 (the tile reached)
+     *
+     * @return the x index of a step of the last path
+     */
+    public int getPathX(int step) {
+        return path[step] % width;
+    }
+
+    /**
+     * Returns the y index of a step of the last path.
+     *
+     * @param step The step, from 0 (the first move) to getPathLength()-1 (the tile reached)
+     *
+     * @return the y index of a step of the last path
+     */
+    public int getPathY(int step) {
+        return path[step] / width;
+    }
+
+    /**
+     * Returns the x index of the tile reached by the last query (-1 if none).
+     *
+     * @return the x index of the tile reached by the last query
+     */
+    public int getReachedX() {
+        return reached < 0 ? -1 : reached % width;
+    }
+
+    /**
+     * Returns the y index of the tile reached by the last query (-1 if none).
+     *
+     * @return the y index of the tile reached by the last query
+     */
+    public int getReachedY() {
+        return reached < 0 ? -1 : reached / width;
+    }
+
+    /**
+     * Returns true if the tile is on the board.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if the tile is on the board.
+     */
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Starts a new query, invalidating every visited mark.
+     */
+    private void nextGeneration() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+
+    /**
+     * Records the path from start to end by walking the parents back.
+     *
+     * @param start The start tile id
+     * @param end The tile id reached
+     */
+    private void buildPath(int start, int end) {
+        reached = end;
+        pathLength = 0;
+        for (int id = end; id != start; id = parent[id]) {
+            pathLength++;
+        }
+        int step = pathLength;
+        for (int id = end; id != start; id = parent[id]) {
+            path[--step] = id;
+        }
+    }
+
+    /**
+     * Adds a tile to the open set.
+     *
+     * @param priority The estimated total cost through the tile
+     * @param id The tile id
+     */
+    private void push(int priority, int id) {
+        long entry = ((long) priority << 32) | id;
+        int ii = heapSize++;
+        while (ii > 0) {
+            int up = (ii - 1) >>> 1;
+            if (heap[up] <= entry) {
+                break;
+            }
+            heap[ii] = heap[up];
+            ii = up;
+        }
+        heap[ii] = entry;
+    }
+
+    /**
+     * Removes and returns the cheapest entry of the open set.
+     *
+     * @return the cheapest entry of the open set
+     */
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int ii = 0;
+        int half = heapSize >>> 1;
+        while (ii < half) {
+            int child = 2 * ii + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[ii] = heap[child];
+            ii = child;
+        }
+        heap[ii] = last;
+        return top;
+    }
+}
@@ -354,11 +354,11 @@ public class Player extends FeetHitboxObstacle {
         } else {
             idle = true;
             body.setLinearVelocity(0, 0);
-            timeElapsed += Gdx.graphics.getDeltaTime();
+            timeElapsed += dt;
         }
 
         if(soundPlaying){
-            soundTimer += Gdx.graphics.getDeltaTime();
+            soundTimer += dt;
             if (soundTimer >= SOUND_DELAY){
                 grassStep.stop();
                 soundPlaying = false;
@@ -523,7 +523,7 @@ public class Player extends FeetHitboxObstacle {
     public void draw(GameCanvas canvas) {
         // draw cooldown
         if (toggleCooldown || (!toggleCooldown && cooldownLinger <= 1f))
-            canvas.drawCooldown(currentCooldownTexture, 0, 0, getX(), getY(), 0, 1, 1, false);
+            canvas.drawCooldown(currentCooldownTexture, 0, 0, getDrawX(), getDrawY(), 0, 1, 1, false);
 
         Color tint = (toggleCooldown) ? Color.CYAN : Color.WHITE;
         if (dying) {
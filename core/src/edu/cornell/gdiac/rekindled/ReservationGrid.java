@@ -0,0 +1,159 @@
+package edu.cornell.gdiac.rekindled;
+
+import java.util.Arrays;
+
+/**
+ * The tiles that enemies have claimed as their next step.
+ *
+ * Each enemy (an owner, numbered from 0) claims the tile it is moving to, and an
+ * enemy searching for a path treats the tiles claimed by others as blocked.  The
+ * grid counts the claims on each tile, so that question is a lookup rather than
+ * a scan of every enemy.
+ *
+ * An owner may also reserve a tile for a short time ahead, such as the step after
+ * the one it is taking.  Others avoid a reserved tile until the reservation runs
+ * out, so two enemies do not plan into each other's path in a corridor.  Time is
+ * in seconds, and moves forward with advance.
+ */
+public class ReservationGrid {
+    /** The owner of a tile with no reservation */
+    private static final int NO_OWNER = -1;
+
+    /** The grid width (in tiles) */
+    private int width;
+    /** The grid height (in tiles) */
+    private int height;
+    /** The number of owners claiming each tile */
+    private int[] claims;
+    /** The tile claimed by each owner (-1 if none) */
+    private int[] claimed;
+    /** The owner of the reservation on each tile */
+    private int[] reservedBy;
+    /** When the reservation on each tile runs out */
+    private float[] reservedUntil;
+    /** The current time */
+    private float now;
+
+    /**
+     * Creates an empty grid of the given size
+     *
+     * @param width Grid width in tiles
+     * @param height Grid height in tiles
+     * @param owners The number of owners (enemies)
+     */
+    public ReservationGrid(int width, int height, int owners) {
+        this.width = width;
+        this.height = height;
+        claims = new int[width * height];
+        claimed = new int[owners];
+        reservedBy = new int[width * height];
+        reservedUntil = new float[width * height];
+        clear();
+    }
+
+    /**
+     * Removes every claim and reservation.
+     */
+    public void clear() {
+        Arrays.fill(claims, 0);
+        Arrays.fill(claimed, -1);
+        Arrays.fill(reservedBy, NO_OWNER);
+        now = 0;
+    }
+
+    /**
+     * Moves the clock forward, letting reservations run out.
+     *
+     * @param dt Number of seconds since last animation frame
+     */
+    public void advance(float dt) {
+        now += dt;
+    }
+
+    /**
+     * Claims a tile for an owner, releasing the tile it claimed before.
+     *
+     * Tiles off the board are not claimed (but still release the old claim).
+     *
+     * @param owner The owner making the claim
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     */
+    public void claim(int owner, int x, int y) {
+        int id = inBounds(x, y) ? x + y * width : -1;
+        if (claimed[owner] == id) {
+            return;
+        }
+        if (claimed[owner] != -1) {
+            claims[claimed[owner]]--;
+        }
+        claimed[owner] = id;
+        if (id != -1) {
+            claims[id]++;
+        }
+    }
+
+    /**
+     * Releases the claim of an owner.
+     *
+     * @param owner The owner releasing its claim
+     */
+    public void release(int owner) {
+        if (claimed[owner] != -1) {
+            claims[claimed[owner]]--;
+            claimed[owner] = -1;
+        }
+    }
+
+    /**
+     * Reserves a tile for an owner, for the given number of seconds.
+     *
+     * This replaces any reservation already on the tile.
+     *
+     * @param owner The owner making the reservation
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     * @param duration How long (in seconds) the reservation lasts
+     */
+    public void reserve(int owner, int x, int y, float duration) {
+        if (inBounds(x, y)) {
+            reservedBy[x + y * width] = owner;
+            reservedUntil[x + y * width] = now + duration;
+        }
+    }
+
+    /**
+     * Returns true if no other owner has claimed or reserved the tile.
+     *
+     * Tiles off the board are always free.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     * @param owner The owner asking
+     *
+     * @return true if no other owner has claimed or reserved the tile.
+     */
+    public boolean isFree(int x, int y, int owner) {
+        if (!inBounds(x, y)) {
+            return true;
+        }
+        int id = x + y * width;
+        int others = claims[id] - (claimed[owner] == id ? 1 : 0);
+        if (others > 0) {
+            return false;
+        }
+        return reservedBy[id] == NO_OWNER || reservedBy[id] == owner || reservedUntil[id] <= now;
+    }
+
+    /**
+     * Returns true if the tile is on the board.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if the tile is on the board.
+     */
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+}
@@ -0,0 +1,336 @@
+package edu.cornell.gdiac.rekindled;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * A distance map to the fixed route of one enemy (its wander path, or its spawn).
+ *
+ * A returning enemy heads back to the nearest tile of its route.  The route never
+ * changes during a level, and the tiles an enemy can walk on only change when a
+ * light is toggled.  So the distances are computed once, when the level is built,
+ * and then patched with the tiles whose lit state changed, instead of searching
+ * every time the enemy reaches a tile.
+ *
+ * A tile that becomes lit invalidates the tiles whose shortest route went through
+ * it; a tile that becomes dark can only shorten routes.  Both are repaired
+ * locally, by relaxing from the edge of the changed region.  A change to the
+ * walls rebuilds the whole map.
+ *
+ * Distances and goal indices are shorts, to keep a map per enemy small.
+ */
+public class RouteMap implements DistanceMap {
+    /** The stored distance of a tile that cannot reach the route */
+    private static final short NONE = Short.MAX_VALUE;
+
+    /** The neighbour offsets, in the order right, left, up, down */
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    /** The board this map is for */
+    private Board board;
+    /** The grid width (in tiles) */
+    private int width;
+    /** The grid height (in tiles) */
+    private int height;
+    /** The route tiles (x + y * width) */
+    private int[] goals;
+    /** The steps from each tile to the route (NONE if unreachable) */
+    private short[] distance;
+    /** The index of the route tile each tile leads to */
+    private short[] source;
+    /** The generation in which each tile was invalidated */
+    private int[] invalid;
+    /** The generation in which each tile was last queued */
+    private int[] queued;
+    /** The invalidated tiles of the current patch */
+    private int[] stack;
+    /** The relaxation queue (a ring, since a tile may be queued again) */
+    private int[] queue;
+    /** The current generation */
+    private int generation;
+    /** The wall version the map was built for */
+    private int wallVersion;
+
+    /**
+     * Creates the map for the given route
+     *
+     * @param board The board to walk on
+     * @param route The route tiles, as {x,y} pairs
+     */
+    public RouteMap(Board board, int[][] route) {
+        this.board = board;
+        width = board.getWidth();
+        height = board.getHeight();
+        int tiles = width * height;
+        goals = new int[Math.min(route.length, Short.MAX_VALUE)];
+        for (int ii = 0; ii < goals.length; ii++) {
+            goals[ii] = inBounds(route[ii][0], route[ii][1]) ? route[ii][0] + route[ii][1] * width : -1;
+        }
+        distance = new short[tiles];
+        source = new short[tiles];
+        invalid = new int[tiles];
+        queued = new int[tiles];
+        stack = new int[tiles];
+        queue = new int[tiles];
+        rebuild();
+    }
+
+    /**
+     * Recomputes the whole map from the current board.
+     */
+    public void rebuild() {
+        wallVersion = board.getWallVersion();
+        Arrays.fill(distance, NONE);
+        nextGeneration();
+
+        int head = 0;
+        int tail = 0;
+        for (int ii = 0; ii < goals.length; ii++) {
+            int id = goals[ii];
+            if (id >= 0 && distance[id] == NONE && isWalkable(id)) {
+                distance[id] = 0;
+                source[id] = (short) ii;
+                queue[tail++] = id;
+            }
+        }
+        while (head < tail) {
+            int id = queue[head++];
+            int x = id % width;
+            int y = id / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                int next = nx + ny * width;
+                if (inBounds(nx, ny) && distance[next] == NONE && isWalkable(next)) {
+                    distance[next] = (short) (distance[id] + 1);
+                    source[next] = source[id];
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Repairs the map after some tiles changed their lit state.
+     *
+     * This must see every batch of changes (see Board.getLitChanges), or the map
+     * will drift from the board.
+     *
+     * @param changes The board tile ids whose lit state changed
+     */
+    public void patch(IntArray changes) {
+        if (wallVersion != board.getWallVersion()) {
+            rebuild();
+            return;
+        }
+        if (changes.size == 0) {
+            return;
+        }
+        nextGeneration();
+
+        // Invalidate the tiles that became blocked, and every tile that can no
+        // longer reach the route through a tile that is still valid.
+        int count = 0;
+        for (int ii = 0; ii < changes.size; ii++) {
+            int id = toLocal(changes.get(ii));
+            if (distance[id] != NONE && !isWalkable(id) && invalid[id] != generation) {
+                invalid[id] = generation;
+                stack[count++] = id;
+            }
+        }
+        for (int ii = 0; ii < count; ii++) {
+            int id = stack[ii];
+            int x = id % width;
+            int y = id / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                int next = nx + ny * width;
+                if (inBounds(nx, ny) && invalid[next] != generation && distance[next] != NONE &&
+                        distance[next] == distance[id] + 1 && !isSupported(next)) {
+                    invalid[next] = generation;
+                    stack[count++] = next;
+                }
+            }
+        }
+        for (int ii = 0; ii < count; ii++) {
+            distance[stack[ii]] = NONE;
+        }
+
+        // Reseed the invalidated tiles and the newly walkable ones from their
+        // neighbours, then relax outward.
+        int head = 0;
+        int size = 0;
+        for (int ii = 0; ii < count; ii++) {
+            size = reseed(stack[ii], head, size);
+        }
+        for (int ii = 0; ii < changes.size; ii++) {
+            size = reseed(toLocal(changes.get(ii)), head, size);
+        }
+        while (size > 0) {
+            int id = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            queued[id] = 0;
+
+            int x = id % width;
+            int y = id / width;
+            int step = distance[id] + 1;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                int next = nx + ny * width;
+                if (inBounds(nx, ny) && step < distance[next] && isWalkable(next)) {
+                    distance[next] = (short) step;
+                    source[next] = source[id];
+                    size = enqueue(next, head, size);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getDistance(int x, int y) {
+        if (!inBounds(x, y) || distance[x + y * width] == NONE) {
+            return UNREACHABLE;
+        }
+        return distance[x + y * width];
+    }
+
+    @Override
+    public int getSourceX(int x, int y) {
+        return goals[source[x + y * width]] % width;
+    }
+
+    @Override
+    public int getSourceY(int x, int y) {
+        return goals[source[x + y * width]] / width;
+    }
+
+    /**
+     * Returns true if a valid neighbour is one step closer to the route.
+     *
+     * Route tiles support themselves.
+     *
+     * @param id The tile id
+     *
+     * @return true if a valid neighbour is one step closer to the route
+     */
+    private boolean isSupported(int id) {
+        if (distance[id] == 0) {
+            return true;
+        }
+        int x = id % width;
+        int y = id / width;
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + DX[dir];
+            int ny = y + DY[dir];
+            int next = nx + ny * width;
+            if (inBounds(nx, ny) && invalid[next] != generation && distance[next] == distance[id] - 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives a walkable tile its best distance from its neighbours, and queues it.
+     *
+     * @param id The tile id
+     * @param head The front of the queue
+     * @param size The number of tiles in the queue
+     *
+     * @return the new number of tiles in the queue
+     */
+    private int reseed(int id, int head, int size) {
+        if (!isWalkable(id)) {
+            return size;
+        }
+        for (int ii = 0; ii < goals.length; ii++) {
+            if (goals[ii] == id) {
+                distance[id] = 0;
+                source[id] = (short) ii;
+                return enqueue(id, head, size);
+            }
+        }
+
+        int x = id % width;
+        int y = id / width;
+        for (int dir = 0; dir < 4; dir++) {
+            int nx = x + DX[dir];
+            int ny = y + DY[dir];
+            int next = nx + ny * width;
+            if (inBounds(nx, ny) && distance[next] != NONE && distance[next] + 1 < distance[id]) {
+                distance[id] = (short) (distance[next] + 1);
+                source[id] = source[next];
+            }
+        }
+        return distance[id] == NONE ? size : enqueue(id, head, size);
+    }
+
+    /**
+     * Adds a tile to the relaxation queue, unless it is already there.
+     *
+     * @param id The tile id
+     * @param head The front of the queue
+     * @param size The number of tiles in the queue
+     *
+     * @return the new number of tiles in the queue
+     */
+    private int enqueue(int id, int head, int size) {
+        if (queued[id] == generation) {
+            return size;
+        }
+        queued[id] = generation;
+        queue[(head + size) % queue.length] = id;
+        return size + 1;
+    }
+
+    /**
+     * Starts a new patch, invalidating every mark.
+     */
+    private void nextGeneration() {
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(invalid, 0);
+            Arrays.fill(queued, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+
+    /**
+     * Returns the local id (x + y * width) of a board tile id.
+     *
+     * @param tile The board tile id
+     *
+     * @return the local id of a board tile id
+     */
+    private int toLocal(int tile) {
+        return board.tileX(tile) + board.tileY(tile) * width;
+    }
+
+    /**
+     * Returns true if an enemy can walk on the tile.
+     *
+     * @param id The tile id
+     *
+     * @return true if an enemy can walk on the tile.
+     */
+    private boolean isWalkable(int id) {
+        return !board.isEnemyMovable(id % width, id / width);
+    }
+
+    /**
+     * Returns true if the tile is on the board.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if the tile is on the board.
+     */
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+}
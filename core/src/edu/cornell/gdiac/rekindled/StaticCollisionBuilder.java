@@ -0,0 +1,219 @@
+package edu.cornell.gdiac.rekindled;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+
+import java.util.Arrays;
+
+/**
+ * Builds the collision geometry of static tiles (walls and holes).
+ *
+ * A body per tile makes the broadphase, the light ray casts and the world step
+ * all scale with the number of tiles.  This class merges the tiles instead.  Each
+ * connected region of tiles becomes one static body, and its fixtures are the
+ * maximal rectangles found by a greedy sweep.  The Wall objects for these tiles
+ * are then only sprites, and have no bodies of their own.
+ *
+ * A tile at (x,y) covers the unit square centered on (x,y), just like a 1x1 Wall.
+ */
+public class StaticCollisionBuilder {
+    /** The grid width (in tiles) */
+    private int width;
+    /** The grid height (in tiles) */
+    private int height;
+    /** Whether each tile is solid */
+    private boolean[] solid;
+    /** Whether each tile is already covered by a rectangle */
+    private boolean[] covered;
+    /** The connected region of each solid tile (-1 if not labeled yet) */
+    private int[] region;
+    /** Scratch queue for labeling the regions */
+    private int[] queue;
+    /** Scratch center for the rectangle fixtures */
+    private Vector2 center;
+
+    /**
+     * Creates an empty builder of the given size
+     *
+     * @param width Grid width in tiles
+     * @param height Grid height in tiles
+     */
+    public StaticCollisionBuilder(int width, int height) {
+        this.width = width;
+        this.height = height;
+        solid = new boolean[width * height];
+        covered = new boolean[width * height];
+        region = new int[width * height];
+        queue = new int[width * height];
+        center = new Vector2();
+    }
+
+    /**
+     * Marks the tile at (x,y) as solid.
+     *
+     * Tiles off the grid are ignored, and a tile may be added more than once.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     */
+    public void add(int x, int y) {
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            solid[x + y * width] = true;
+        }
+    }
+
+    /**
+     * Removes every tile from this builder.
+     */
+    public void clear() {
+        Arrays.fill(solid, false);
+    }
+
+    /**
+     * Creates the static bodies for the solid tiles.
+     *
+     * Every fixture is made from the given definition (density, friction,
+     * restitution and filter), so all the tiles in one call share a category.
+     * The bodies have no user data.
+     *
+     * @param world The physics world to add the bodies to
+     * @param def The definition for every fixture (its shape is replaced)
+     *
+     * @return the number of bodies created
+     */
+    public int build(World world, FixtureDef def) {
+        int regions = labelRegions();
+        if (regions == 0) {
+            return 0;
+        }
+
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.StaticBody;
+        Body[] bodies = new Body[regions];
+        PolygonShape shape = new PolygonShape();
+        def.shape = shape;
+        Arrays.fill(covered, false);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int id = x + y * width;
+                if (!solid[id] || covered[id]) {
+                    continue;
+                }
+
+                // Grow right as far as possible, then up while the whole row fits
+                int w = 1;
+                while (x + w < width && isFree(x + w + y * width)) {
+                    w++;
+                }
+                int h = 1;
+                while (y + h < height && isFreeRow(x, y + h, w)) {
+                    h++;
+                }
+                for (int yy = y; yy < y + h; yy++) {
+                    Arrays.fill(covered, x + yy * width, x + w + yy * width, true);
+                }
+
+                Body body = bodies[region[id]];
+                if (body == null) {
+                    body = world.createBody(bodyDef);
+                    bodies[region[id]] = body;
+                }
+                center.set(x - 0.5f + w / 2.0f, y - 0.5f + h / 2.0f);
+                shape.setAsBox(w / 2.0f, h / 2.0f, center, 0);
+                body.createFixture(def);
+            }
+        }
+        shape.dispose();
+        def.shape = null;
+        return regions;
+    }
+
+    /**
+     * Returns true if the tile is solid and not yet covered by a rectangle.
+     *
+     * @param id The tile index
+     *
+     * @return true if the tile is solid and not yet covered by a rectangle
+     */
+    private boolean isFree(int id) {
+        return solid[id] && !covered[id];
+    }
+
+    /**
+     * Returns true if every tile in the row segment is solid and uncovered.
+     *
+     * @param x The left tile of the segment
+     * @param y The row of the segment
+     * @param w The width of the segment
+     *
+     * @return true if every tile in the row segment is solid and uncovered
+     */
+    private boolean isFreeRow(int x, int y, int w) {
+        for (int ii = x + y * width; ii < x + w + y * width; ii++) {
+            if (!isFree(ii)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Labels the 4-connected regions of solid tiles.
+     *
+     * @return the number of regions
+     */
+    private int labelRegions() {
+        Arrays.fill(region, -1);
+        int regions = 0;
+        for (int start = 0; start < solid.length; start++) {
+            if (!solid[start] || region[start] != -1) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            region[start] = regions;
+            while (head < tail) {
+                int id = queue[head++];
+                int x = id % width;
+                int y = id / width;
+                if (x > 0) {
+                    tail = visit(id - 1, regions, tail);
+                }
+                if (x + 1 < width) {
+                    tail = visit(id + 1, regions, tail);
+                }
+                if (y > 0) {
+                    tail = visit(id - width, regions, tail);
+                }
+                if (y + 1 < height) {
+                    tail = visit(id + width, regions, tail);
+                }
+            }
+            regions++;
+        }
+        return regions;
+    }
+
+    /**
+     * Adds a solid, unlabeled tile to the region being labeled.
+     *
+     * @param id The tile index
+     * @param label The region being labeled
+     * @param tail The end of the queue
+     *
+     * @return the new end of the queue
+     */
+    private int visit(int id, int label, int tail) {
+        if (solid[id] && region[id] == -1) {
+            region[id] = label;
+            queue[tail++] = id;
+        }
+        return tail;
+    }
+}
@@ -9,6 +9,7 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import edu.cornell.gdiac.util.ScreenListener;
+import edu.cornell.gdiac.util.TextureRegistry;
 
 import java.awt.*;
 
@@ -22,6 +23,10 @@ public class TrailerMode implements Screen {
      * AssetManager to be loading in the background
      */
     private AssetManager manager;
+    /**
+     * Registry of the shared textures for this screen
+     */
+    private TextureRegistry textures = TextureRegistry.getInstance();
     /**
      * Reference to GameCanvas created by the root
      */
@@ -51,10 +56,10 @@ public class TrailerMode implements Screen {
         trailer_number = 0;
         trailer = new Animation[4];
         texture = new Texture[4];
-        texture[0] = new Texture(TRAILER_0);
-        texture[1] = new Texture(TRAILER_1);
-        texture[2] = new Texture(TRAILER_2);
-        texture[3] = new Texture(TRAILER_3);
+        texture[0] = textures.acquire(TRAILER_0);
+        texture[1] = textures.acquire(TRAILER_1);
+        texture[2] = textures.acquire(TRAILER_2);
+        texture[3] = textures.acquire(TRAILER_3);
 
         for(int i = 0; i < 4; i++){
             TextureRegion region = new TextureRegion(texture[i]);
@@ -152,7 +157,7 @@ public class TrailerMode implements Screen {
      */
     public void dispose() {
         for(Texture t : texture){
-            t.dispose();
+            textures.release(t);
         }
     }
 }
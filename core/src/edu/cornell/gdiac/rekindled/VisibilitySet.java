@@ -0,0 +1,377 @@
+package edu.cornell.gdiac.rekindled;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A potentially visible set (PVS) for the static walls of a level.
+ *
+ * For every open tile, this records which tiles within a fixed range can be seen
+ * from it.  The range is small, so each tile stores only the square window of
+ * tiles around it, one bit per tile (3 longs for the enemy sight range).  With
+ * this, "can the enemy see the player" is a bit test plus the cone check.
+ *
+ * Walls do not change during a level, so the set is computed once, on all cores,
+ * and saved next to the level JSON.  A saved set records the walls it was built
+ * for, and is ignored (and rebuilt) if the level has changed since.
+ */
+public class VisibilitySet {
+    /** The extension of saved sets (replacing the .json of the level) */
+    public static final String EXTENSION = ".pvs";
+    /** The first int of a saved set */
+    private static final int MAGIC = 0x50565331;
+    /** Rows small enough to compute in one task */
+    private static final int ROWS_PER_TASK = 4;
+
+    /** The grid width (in tiles) */
+    private int width;
+    /** The grid height (in tiles) */
+    private int height;
+    /** The sight range (in tiles) */
+    private float range;
+    /** The window radius (the range, rounded up) */
+    private int radius;
+    /** The window width (2 * radius + 1) */
+    private int span;
+    /** The number of longs per tile */
+    private int words;
+    /** The hash of the walls this set was built for */
+    private int wallHash;
+    /** The window of visible tiles for each tile */
+    private long[] bits;
+
+    /**
+     * Creates an empty set of the given size
+     *
+     * @param width Grid width in tiles
+     * @param height Grid height in tiles
+     * @param range The sight range in tiles
+     * @param wallHash The hash of the walls
+     */
+    private VisibilitySet(int width, int height, float range, int wallHash) {
+        this.width = width;
+        this.height = height;
+        this.range = range;
+        this.wallHash = wallHash;
+        radius = MathUtils.ceil(range);
+        span = 2 * radius + 1;
+        words = (span * span + 63) >>> 6;
+        bits = new long[width * height * words];
+    }
+
+    /**
+     * Returns the set for the given level, loading or building it as needed.
+     *
+     * If a saved set next to the level is up to date, it is used.  Otherwise the
+     * set is computed and saved (to local storage) for the next time.
+     *
+     * @param grid The walls of the level
+     * @param range The sight range in tiles
+     * @param levelPath The path of the level JSON
+     *
+     * @return the set for the given level
+     */
+    public static VisibilitySet forLevel(WallGrid grid, float range, String levelPath) {
+        String path = getPath(levelPath);
+        VisibilitySet set = read(Gdx.files.internal(path), grid, range);
+        if (set != null) {
+            return set;
+        }
+
+        set = compute(grid, range);
+        try {
+            set.write(Gdx.files.local(path));
+        } catch (GdxRuntimeException e) {
+            Gdx.app.log("VisibilitySet", "Could not save " + path + ": " + e.getMessage());
+        }
+        return set;
+    }
+
+    /**
+     * Returns the path of the saved set for a level.
+     *
+     * @param levelPath The path of the level JSON
+     *
+     * @return the path of the saved set for a level
+     */
+    public static String getPath(String levelPath) {
+        int dot = levelPath.lastIndexOf('.');
+        return (dot < 0 ? levelPath : levelPath.substring(0, dot)) + EXTENSION;
+    }
+
+    /**
+     * Computes the set for the given walls, using every core.
+     *
+     * @param grid The walls of the level
+     * @param range The sight range in tiles
+     *
+     * @return the set for the given walls
+     */
+    public static VisibilitySet compute(WallGrid grid, float range) {
+        VisibilitySet set = new VisibilitySet(grid.getWidth(), grid.getHeight(), range, hashWalls(grid));
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            pool.invoke(set.new RowTask(grid, 0, set.height));
+        } finally {
+            pool.shutdown();
+        }
+        return set;
+    }
+
+    /**
+     * Returns true if the tile (toX,toY) can be seen from the tile (fromX,fromY).
+     *
+     * Tiles out of range, off the grid or inside walls are never visible.
+     *
+     * @param fromX The x index of the viewing tile
+     * @param fromY The y index of the viewing tile
+     * @param toX The x index of the viewed tile
+     * @param toY The y index of the viewed tile
+     *
+     * @return true if the tile (toX,toY) can be seen from the tile (fromX,fromY)
+     */
+    public boolean isVisible(int fromX, int fromY, int toX, int toY) {
+        int dx = toX - fromX + radius;
+        int dy = toY - fromY + radius;
+        if (fromX < 0 || fromY < 0 || fromX >= width || fromY >= height ||
+                dx < 0 || dy < 0 || dx >= span || dy >= span) {
+            return false;
+        }
+        int bit = dx + dy * span;
+        return (bits[(fromX + fromY * width) * words + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Returns the sight range (in tiles) of this set.
+     *
+     * @return the sight range (in tiles) of this set
+     */
+    public float getRange() {
+        return range;
+    }
+
+    /**
+     * Returns a hash of the wall layout, to detect stale saved sets.
+     *
+     * @param grid The walls of the level
+     *
+     * @return a hash of the wall layout
+     */
+    public static int hashWalls(WallGrid grid) {
+        int hash = 31 * grid.getWidth() + grid.getHeight();
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                if (grid.isWall(x, y)) {
+                    hash = 31 * hash + x + y * grid.getWidth();
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the saved set in the given file, or null if it is missing or stale.
+     *
+     * @param file The saved set
+     * @param grid The walls of the level
+     * @param range The sight range in tiles
+     *
+     * @return the saved set in the given file, or null if it is missing or stale.
+     */
+    public static VisibilitySet read(FileHandle file, WallGrid grid, float range) {
+        if (!file.exists()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new GZIPInputStream(file.read()));
+            if (in.readInt() != MAGIC || in.readInt() != grid.getWidth() || in.readInt() != grid.getHeight() ||
+                    in.readFloat() != range || in.readInt() != hashWalls(grid)) {
+                return null;
+            }
+            VisibilitySet set = new VisibilitySet(grid.getWidth(), grid.getHeight(), range, hashWalls(grid));
+            for (int ii = 0; ii < set.bits.length; ii++) {
+                set.bits[ii] = in.readLong();
+            }
+            return set;
+        } catch (IOException e) {
+            return null;
+        } catch (GdxRuntimeException e) {
+            return null;
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Saves this set to the given file.
+     *
+     * @param file The file to save to
+     */
+    public void write(FileHandle file) {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new GZIPOutputStream(file.write(false)));
+            out.writeInt(MAGIC);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeFloat(range);
+            out.writeInt(wallHash);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error writing " + file, e);
+        } finally {
+            StreamUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * Fills in the windows of every open tile in one row.
+     *
+     * @param grid The walls of the level
+     * @param y The row to fill in
+     */
+    private void computeRow(WallGrid grid, int y) {
+        float range2 = range * range;
+        for (int x = 0; x < width; x++) {
+            if (grid.isWall(x, y)) {
+                continue;
+            }
+            int base = (x + y * width) * words;
+            for (int dy = -radius; dy <= radius; dy++) {
+                int ty = y + dy;
+                if (ty < 0 || ty >= height) {
+                    continue;
+                }
+                for (int dx = -radius; dx <= radius; dx++) {
+                    int tx = x + dx;
+                    if (tx < 0 || tx >= width || dx * dx + dy * dy > range2 || grid.isWall(tx, ty)) {
+                        continue;
+                    }
+                    if (GridTraversal.hasLineOfSight(grid, x, y, tx, ty)) {
+                        int bit = (dx + radius) + (dy + radius) * span;
+                        bits[base + (bit >>> 6)] |= 1L << bit;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A fork-join task that fills in a band of rows.
+     *
+     * Each row writes only its own tiles, so the bands can run in parallel.
+     */
+    private class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** The walls of the level */
+        private WallGrid grid;
+        /** The first row of the band */
+        private int lo;
+        /** The row after the band */
+        private int hi;
+
+        /**
+         * Creates a task for the rows [lo,hi)
+         *
+         * @param grid The walls of the level
+         * @param lo The first row of the band
+         * @param hi The row after the band
+         */
+        RowTask(WallGrid grid, int lo, int hi) {
+            this.grid = grid;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= ROWS_PER_TASK) {
+                for (int y = lo; y < hi; y++) {
+                    computeRow(grid, y);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new RowTask(grid, lo, mid), new RowTask(grid, mid, hi));
+        }
+    }
+
+    /**
+     * A plain array of walls, for building sets without a Board.
+     *
+     * The walls are those a Board of the same level has, so that a set built from
+     * them is current for the board.
+     */
+    public static class Walls implements WallGrid {
+        /** The grid width (in tiles) */
+        private int width;
+        /** The grid height (in tiles) */
+        private int height;
+        /** Whether each tile is a wall */
+        private boolean[] walls;
+
+        /**
+         * Creates the walls of a level, as a Board of the level places them
+         *
+         * These are the perimeter, then the listed walls, less any tile with a light
+         * source.
+         *
+         * @param width Grid width in tiles
+         * @param height Grid height in tiles
+         * @param walls The wall positions, as x,y pairs (the level JSON format)
+         * @param sources The light source positions, as x,y pairs
+         */
+        public Walls(int width, int height, int[] walls, int[] sources) {
+            this.width = width;
+            this.height = height;
+            this.walls = new boolean[width * height];
+            set(Board.getPerimeter(width, height), true);
+            set(walls, true);
+            set(sources, false);
+        }
+
+        /**
+         * Sets or clears the given tiles, ignoring any off the grid
+         *
+         * @param tiles The tile positions, as x,y pairs
+         * @param wall Whether the tiles are walls
+         */
+        private void set(int[] tiles, boolean wall) {
+            for (int ii = 0; ii < tiles.length - 1; ii += 2) {
+                if (tiles[ii] >= 0 && tiles[ii] < width && tiles[ii + 1] >= 0 && tiles[ii + 1] < height) {
+                    walls[tiles[ii] + tiles[ii + 1] * width] = wall;
+                }
+            }
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public boolean isWall(int x, int y) {
+            return x >= 0 && y >= 0 && x < width && y < height && walls[x + y * width];
+        }
+    }
+}
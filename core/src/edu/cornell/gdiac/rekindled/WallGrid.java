@@ -0,0 +1,36 @@
+package edu.cornell.gdiac.rekindled;
+
+/**
+ * A read-only grid of wall tiles.
+ *
+ * This is all that line of sight needs to know about a level.  Board implements
+ * it, but so can a bare array of walls, which lets tools run the same sight
+ * checks without building a Board (and loading its textures).
+ */
+public interface WallGrid {
+    /**
+     * Returns the number of tiles horizontally across the grid.
+     *
+     * @return the number of tiles horizontally across the grid.
+     */
+    public int getWidth();
+
+    /**
+     * Returns the number of tiles vertically across the grid.
+     *
+     * @return the number of tiles vertically across the grid.
+     */
+    public int getHeight();
+
+    /**
+     * Returns true if the tile at (x,y) is a wall.
+     *
+     * Tiles off the grid are never walls.
+     *
+     * @param x The x index for the Tile cell
+     * @param y The y index for the Tile cell
+     *
+     * @return true if the tile at (x,y) is a wall.
+     */
+    public boolean isWall(int x, int y);
+}
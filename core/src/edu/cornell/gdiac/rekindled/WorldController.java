@@ -62,6 +62,11 @@ public abstract class WorldController implements Screen {
     /** Track all loaded assets (for unloading purposes) */
     protected Array<String> assets;
 
+    /** The asset directories packed into atlases by the desktop packTextures task */
+    protected static final String[] ATLAS_GROUPS = {"wall", "hole", "spritesheets", "tutorial"};
+    /** The directory holding the packed atlases */
+    protected static final String ATLAS_DIR = "atlas/";
+
 
     /**
      * Preloads the assets for this controller.
@@ -99,6 +104,94 @@ public abstract class WorldController implements Screen {
         worldAssetState = AssetState.COMPLETE;
     }
 
+    /**
+     * Returns the atlas packing the given texture file, or null if it is unpacked.
+     *
+     * Each directory in ATLAS_GROUPS is packed into its own atlas, named after the
+     * directory.  If that atlas has not been built, the file is loaded by itself.
+     *
+     * @param file		The texture (region) file
+     *
+     * @return the atlas packing the given texture file, or null if it is unpacked.
+     */
+    protected static String getAtlasFile(String file) {
+        int slash = file.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        String group = file.substring(0, slash);
+        for (String g : ATLAS_GROUPS) {
+            if (g.equals(group)) {
+                String atlas = ATLAS_DIR + group + ".atlas";
+                return Gdx.files.internal(atlas).exists() ? atlas : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the atlas region for the given texture file.
+     *
+     * Regions are named by their path inside the packed directory, without the
+     * extension (so "tutorial/lv1/1.1.1.png" is the region "lv1/1.1.1").
+     *
+     * @param file		The texture (region) file
+     *
+     * @return the name of the atlas region for the given texture file.
+     */
+    protected static String getRegionName(String file) {
+        int slash = file.indexOf('/');
+        int dot = file.lastIndexOf('.');
+        return file.substring(slash + 1, dot > slash ? dot : file.length());
+    }
+
+    /**
+     * Queues the given texture file for loading.
+     *
+     * If the file is packed into an atlas, the atlas is loaded instead (once per
+     * controller), so that everything drawn from it shares a texture binding.
+     * Repeating textures cannot come from an atlas and should be loaded directly.
+     *
+     * @param manager 	Reference to global asset manager.
+     * @param file		The texture (region) file
+     */
+    protected void loadTexture(AssetManager manager, String file) {
+        String atlas = getAtlasFile(file);
+        if (atlas == null) {
+            manager.load(file, Texture.class);
+            assets.add(file);
+        } else if (!assets.contains(atlas, false)) {
+            manager.load(atlas, TextureAtlas.class);
+            assets.add(atlas);
+        }
+    }
+
+    /**
+     * Returns the atlas region for the given file, or null if it is unpacked.
+     *
+     * If the atlas is loaded but out of date (the region is missing), the file is
+     * loaded by itself instead, and this method returns null.
+     *
+     * @param manager 	Reference to global asset manager.
+     * @param file		The texture (region) file
+     *
+     * @return the atlas region for the given file, or null if it is unpacked.
+     */
+    private TextureRegion findRegion(AssetManager manager, String file) {
+        String atlas = getAtlasFile(file);
+        if (atlas == null || !manager.isLoaded(atlas)) {
+            return null;
+        }
+        TextureRegion region = manager.get(atlas, TextureAtlas.class).findRegion(getRegionName(file));
+        if (region == null && !manager.isLoaded(file)) {
+            Gdx.app.error("WorldController", "Region "+file+" missing from "+atlas, new IllegalStateException());
+            manager.load(file, Texture.class);
+            manager.finishLoadingAsset(file);
+            assets.add(file);
+        }
+        return region;
+    }
+
     /**
      * Returns a newly loaded texture region for the given file.
      *
@@ -112,6 +205,10 @@ public abstract class WorldController implements Screen {
      * @return a newly loaded texture region for the given file.
      */
     protected TextureRegion createTexture(AssetManager manager, String file, boolean repeat) {
+        TextureRegion packed = repeat ? null : findRegion(manager, file);
+        if (packed != null) {
+            return new TextureRegion(packed);
+        }
         if (manager.isLoaded(file)) {
             TextureRegion region = new TextureRegion(manager.get(file, Texture.class));
             region.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
@@ -138,6 +235,10 @@ public abstract class WorldController implements Screen {
      * @return a newly loaded texture region for the given file.
      */
     protected FilmStrip createFilmStrip(AssetManager manager, String file, int rows, int cols, int size) {
+        TextureRegion packed = findRegion(manager, file);
+        if (packed != null) {
+            return new FilmStrip(packed,rows,cols,size);
+        }
         if (manager.isLoaded(file)) {
             FilmStrip strip = new FilmStrip(manager.get(file, Texture.class),rows,cols,size);
             strip.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
@@ -177,8 +278,10 @@ public abstract class WorldController implements Screen {
     /** How many frames after winning/losing do we continue? */
     public static final float EXIT_COUNT = 120f / 60f;
 
-    /** The amount of time for a physics engine step. */
+    /** The default amount of time for a physics engine step. */
     public static final float WORLD_STEP = 1/60.0f;
+    /** The most simulation ticks run in one frame (the rest of the backlog is dropped) */
+    public static final int MAX_TICKS = 5;
     /** Number of velocity iterations for the constrain solvers */
     public static final int WORLD_VELOC = 6;
     /** Number of position iterations for the constrain solvers */
@@ -223,6 +326,12 @@ public abstract class WorldController implements Screen {
     boolean lostGame;
     /** timer for adding delay between sending exit codes */
     private float timer;
+    /** The amount of time for one simulation tick */
+    private float worldStep = WORLD_STEP;
+    /** The frame time not yet simulated */
+    private float accumulator;
+    /** Times the phases of each frame (F3 shows it, F4 saves it) */
+    protected FrameProfiler profiler = new FrameProfiler();
 
 
     /**
@@ -231,7 +340,37 @@ public abstract class WorldController implements Screen {
      * @return the world step of this world
      */
     public float getWorldStep(){
-        return WORLD_STEP;
+        return worldStep;
+    }
+
+    /**
+     * Sets the world step of this world
+     *
+     * This is the length of every simulation tick, however fast frames are drawn.
+     * A longer step runs fewer ticks, for weaker hardware.
+     *
+     * @param value the world step of this world
+     */
+    public void setWorldStep(float value){
+        worldStep = value;
+    }
+
+    /**
+     * Returns the frame profiler of this world.
+     *
+     * @return the frame profiler of this world.
+     */
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Returns the prefix of the files the frame timings are saved to.
+     *
+     * @return the prefix of the files the frame timings are saved to.
+     */
+    protected String getProfileName() {
+        return "world";
     }
 
     /**
@@ -465,7 +604,9 @@ public abstract class WorldController implements Screen {
      */
     public boolean preUpdate(float dt) {
         InputController input = InputController.getInstance();
+        profiler.begin(FrameProfiler.INPUT);
         input.readInput(bounds, scale);
+        profiler.end(FrameProfiler.INPUT);
         if (listener == null) {
             return true;
         }
@@ -475,6 +616,14 @@ public abstract class WorldController implements Screen {
             debug = !debug;
         }
 
+        // Show or save the frame timings
+        if (input.didProfile()) {
+            profiler.setVisible(!profiler.isVisible());
+        }
+        if (input.didDumpProfile()) {
+            profiler.dump(getProfileName() + "-" + System.currentTimeMillis());
+        }
+
         // Handle resets
         if (input.didReset()) {
             reset();
@@ -544,7 +693,9 @@ public abstract class WorldController implements Screen {
         }
 
         // Turn the physics engine crank.
-        world.step(WORLD_STEP,WORLD_VELOC,WORLD_POSIT);
+        profiler.begin(FrameProfiler.PHYSICS);
+        world.step(worldStep,WORLD_VELOC,WORLD_POSIT);
+        profiler.end(FrameProfiler.PHYSICS);
 
         // Garbage collect the deleted objects.
         // Note how we use the linked list nodes to delete O(1) in place.
@@ -563,6 +714,45 @@ public abstract class WorldController implements Screen {
         }
     }
 
+    /**
+     * Runs as many fixed simulation ticks as the frame time allows.
+     *
+     * The frame time is added to an accumulator, and each tick (preUpdate, update
+     * and postUpdate) uses up one world step of it.  The ticks stop early if
+     * preUpdate says to stop (when leaving this screen).  So the simulation runs at the
+     * same rate whatever the frame rate; a fast frame may run no ticks at all.  At
+     * most MAX_TICKS run in one frame; if the simulation falls further behind than
+     * that, the backlog is dropped rather than letting it grow.  Every object saves its
+     * state before each tick (before update, since enemies move there), and afterwards
+     * is interpolated between its last two ticks, for drawing.
+     *
+     * @param delta Number of seconds since last animation frame
+     */
+    public void simulate(float delta) {
+        accumulator += delta;
+        int ticks = 0;
+        while (accumulator >= worldStep && ticks < MAX_TICKS) {
+            accumulator -= worldStep;
+            ticks++;
+            for (Obstacle obj : objects) {
+                obj.saveState();
+            }
+            if (!preUpdate(worldStep)) {
+                break;
+            }
+            update(worldStep); // This is the one that must be defined.
+            postUpdate(worldStep);
+        }
+        if (accumulator >= worldStep) {
+            accumulator = 0;
+        }
+
+        float alpha = accumulator / worldStep;
+        for (Obstacle obj : objects) {
+            obj.interpolate(alpha);
+        }
+    }
+
     /**
      * Draw the physics objects to the canvas
      *
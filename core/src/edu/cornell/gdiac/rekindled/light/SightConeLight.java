@@ -28,4 +28,13 @@ public class SightConeLight extends ConeLight {
         this.setContactFilter(filter);
         this.setSoft(false);
     }
+
+    /**
+     * Returns the direction of the cone, in degrees.
+     *
+     * @return the direction of the cone, in degrees
+     */
+    public float getDirection() {
+        return direction;
+    }
 }
@@ -66,6 +66,16 @@ public abstract class Obstacle {
 	protected Vector2 centroidCache = new Vector2();
 	/** A cache value for when the user wants to access the drawing scale */
 	protected Vector2 scaleCache = new Vector2();
+	/** A cache value for when the user wants to access the position in pixels */
+	protected Vector2 scaledCache = new Vector2();
+
+	/// Render interpolation
+	/** The position before the last simulation tick */
+	private Vector2 previousPosition = new Vector2();
+	/** The position to draw at, between the last two simulation ticks */
+	private Vector2 drawPosition = new Vector2();
+	/** Whether the previous position has been recorded yet */
+	private boolean hasPrevious;
 
 
 	/// BodyDef Methods
@@ -983,6 +993,55 @@ public abstract class Obstacle {
 	public void update(float delta) { 
 	}
 
+	/**
+	 * Records the current position as the state before the next simulation tick.
+	 *
+	 * This is called at the start of each tick, before anything moves.
+	 */
+	public void saveState() {
+		previousPosition.set(getPosition());
+		hasPrevious = true;
+	}
+
+	/**
+	 * Sets the drawing position between the last two simulation ticks.
+	 *
+	 * An alpha of 0 is the position before the last tick, and 1 is the current
+	 * position.  This is called once per rendered frame, before drawing.
+	 *
+	 * @param alpha The fraction of a tick since the last one
+	 */
+	public void interpolate(float alpha) {
+		Vector2 pos = getPosition();
+		if (hasPrevious) {
+			drawPosition.set(previousPosition).lerp(pos, alpha);
+		} else {
+			drawPosition.set(pos);
+		}
+	}
+
+	/**
+	 * Returns the x-coordinate to draw this body at
+	 *
+	 * This is the position from the last call to interpolate.
+	 *
+	 * @return the x-coordinate to draw this body at
+	 */
+	public float getDrawX() {
+		return drawPosition.x;
+	}
+
+	/**
+	 * Returns the y-coordinate to draw this body at
+	 *
+	 * This is the position from the last call to interpolate.
+	 *
+	 * @return the y-coordinate to draw this body at
+	 */
+	public float getDrawY() {
+		return drawPosition.y;
+	}
+
 	/**
 	 * Draws the texture physics object.
 	 *
@@ -88,11 +88,18 @@ public abstract class SimpleObstacle extends Obstacle {
 		return (body != null ? body.getPosition() : super.getPosition());
 	}
 
+	/**
+	 * Returns the position for this physics body in pixels (scaled by the drawing scale)
+	 *
+	 * This method does NOT return a reference to the position vector. Changes to this 
+	 * vector will not affect the body.  However, it returns the same vector each time
+	 * its is called, and so cannot be used as an allocator.
+	 *
+	 * @return the current position for this physics body in pixels
+	 */
 	public Vector2 getScaledPosition() {
 		Vector2 pos = getPosition();
-		Vector2 scaledPos = new Vector2(pos.x * getDrawScale().x, pos.y * getDrawScale().y);
-		return scaledPos;
-
+		return scaledCache.set(pos.x * drawScale.x, pos.y * drawScale.y);
 	}
 	
 	/**
@@ -791,19 +798,19 @@ public abstract class SimpleObstacle extends Obstacle {
 
 	public void draw(GameCanvas canvas, float sx,  float sy){
 		if (texture != null) {
-			canvas.draw(texture,Color.WHITE,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.x,getAngle(),sx,sy);
+			canvas.draw(texture,Color.WHITE,origin.x,origin.y,getDrawX()*drawScale.x,getDrawY()*drawScale.x,getAngle(),sx,sy);
 		}
 
 	}
 	public void draw(GameCanvas canvas, Animation animation, float scale, float elapsedTime, int width){
 		TextureRegion texture = (TextureRegion) animation.getKeyFrame(elapsedTime);
-		canvas.draw(texture,Color.WHITE, 0,0,getX() * drawScale.x - (width / 2f) - 5, getY()*drawScale.y - 25,getAngle(),scale,scale);
+		canvas.draw(texture,Color.WHITE, 0,0,getDrawX() * drawScale.x - (width / 2f) - 5, getDrawY()*drawScale.y - 25,getAngle(),scale,scale);
 
 	}
 
 	public void draw(GameCanvas canvas, Color tint) {
 		if (texture != null) {
-			canvas.draw(texture,tint,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.x,getAngle(),1,1);
+			canvas.draw(texture,tint,origin.x,origin.y,getDrawX()*drawScale.x,getDrawY()*drawScale.x,getAngle(),1,1);
 		}
 	}
 
@@ -820,7 +827,7 @@ public abstract class SimpleObstacle extends Obstacle {
 
 	public void draw(GameCanvas canvas, Animation animation, boolean looping, float elapseTime, int width, Color tint, float sx, float sy){
 		if(animation != null){
-			canvas.draw(animation, elapseTime, looping, 0, 0, getX() * drawScale.x - (width / 2f), getY()*drawScale.y - 20, getAngle(), sx, sy, false);
+			canvas.draw(animation, elapseTime, looping, 0, 0, getDrawX() * drawScale.x - (width / 2f), getDrawY()*drawScale.y - 20, getAngle(), sx, sy, false);
 		}
 	}
 	/**
@@ -828,7 +835,7 @@ public abstract class SimpleObstacle extends Obstacle {
 	 */
 	public void drawCenter(GameCanvas canvas, Animation animation, boolean looping, float elapseTime, int width){
 		if(animation != null){
-			canvas.draw(animation, elapseTime, looping, 0, 0, getX() * drawScale.x - (width / 2f), getY()*drawScale.y - 20, getAngle(), 1, 1, true);
+			canvas.draw(animation, elapseTime, looping, 0, 0, getDrawX() * drawScale.x - (width / 2f), getDrawY()*drawScale.y - 20, getAngle(), 1, 1, true);
 			//canvas.draw(animation, elapseTime, looping, 0, 0, getX() * drawScale.x - (width / 2f), getY()*drawScale.y - 20, getAngle(), 1, 1, tint);
 		}
 	}
@@ -50,6 +50,12 @@ public class FilmStrip extends TextureRegion {
 	/** The active animation frame */
 	private int frame;
 	
+	/** The left edge of the strip in the texture (non-zero in an atlas) */
+	private int left;
+	
+	/** The top edge of the strip in the texture (non-zero in an atlas) */
+	private int top;
+	
 	/**
 	 * Creates a new filmstrip from the given texture.
 	 * 
@@ -74,15 +80,33 @@ public class FilmStrip extends TextureRegion {
 	 * @param size The number of frames in the filmstrip
 	 */
 	public FilmStrip(Texture texture, int rows, int cols, int size) {
-		super(texture);
+		this(new TextureRegion(texture),rows,cols,size);
+	}
+	
+	/**
+	 * Creates a new filmstrip from the given texture region.
+	 * 
+	 * This is used for strips packed into a texture atlas.  The frames are
+	 * laid out inside the region exactly as they would be in a whole texture.
+	 * The region must not be rotated.
+	 * 
+	 * @param region The texture region to use
+	 * @param rows The number of rows in the filmstrip
+	 * @param cols The number of columns in the filmstrip
+	 * @param size The number of frames in the filmstrip
+	 */
+	public FilmStrip(TextureRegion region, int rows, int cols, int size) {
+		super(region);
 		if (size > rows*cols) {
 			Gdx.app.error("FilmStrip", "Invalid strip size", new IllegalArgumentException());
 			return;
 		}
 		this.cols = cols;
 		this.size = size;
-		rwidth  = texture.getWidth()/cols;
-		rheight = texture.getHeight()/rows;
+		left = region.getRegionX();
+		top  = region.getRegionY();
+		rwidth  = region.getRegionWidth()/cols;
+		rheight = region.getRegionHeight()/rows;
 		setFrame(0);
 	}
 	
@@ -117,8 +141,8 @@ public class FilmStrip extends TextureRegion {
 			return;
 		}
 		this.frame = frame;
-		int x = (frame % cols)*rwidth;
-		int y = (frame / cols)*rheight;
+		int x = left+(frame % cols)*rwidth;
+		int y = top+(frame / cols)*rheight;
 		setRegion(x,y,rwidth,rheight);
 	}
 
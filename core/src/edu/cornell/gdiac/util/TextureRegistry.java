@@ -0,0 +1,129 @@
+/*
+ * TextureRegistry.java
+ *
+ * Textures created with new Texture(...) are decoded on the GL thread every time
+ * and have to be disposed by hand.  Anything that is rebuilt often (like the Board,
+ * which is recreated on every reset) either leaks GPU memory or re-decodes the same
+ * PNGs over and over.  This class shares one texture per file, loaded through the
+ * AssetManager, and counts the references to it.
+ *
+ * Note that this class is an instance of a Singleton, just like SoundController.
+ * Use the method getInstance() to get the current registry.
+ */
+package edu.cornell.gdiac.util;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.*;
+import com.badlogic.gdx.graphics.*;
+import com.badlogic.gdx.utils.*;
+
+/**
+ * A singleton registry of shared, reference-counted textures.
+ *
+ * Every call to acquire must be paired with a call to release.  The first acquire
+ * of a file loads it through the AssetManager (blocking if it is not loaded yet);
+ * the last release unloads it.  A texture that is still held by someone else is
+ * never reloaded, so objects that are rebuilt often should acquire their new
+ * textures before releasing their old ones.
+ */
+public class TextureRegistry {
+	/** The singleton texture registry instance */
+	private static TextureRegistry registry;
+
+	/** The asset manager that owns the textures */
+	private AssetManager manager;
+	/** The number of outstanding acquires for each file */
+	private ObjectIntMap<String> counts;
+
+	/**
+	 * Creates a new, empty TextureRegistry.
+	 */
+	private TextureRegistry() {
+		counts = new ObjectIntMap<String>();
+	}
+
+	/**
+	 * Returns the single instance for the TextureRegistry
+	 *
+	 * The first time this is called, it will construct the TextureRegistry.
+	 *
+	 * @return the single instance for the TextureRegistry
+	 */
+	public static TextureRegistry getInstance() {
+		if (registry == null) {
+			registry = new TextureRegistry();
+		}
+		return registry;
+	}
+
+	/**
+	 * Sets the asset manager used to load and unload textures
+	 *
+	 * This must be called before the first acquire.
+	 *
+	 * @param manager  The asset manager used to load and unload textures
+	 */
+	public void setManager(AssetManager manager) {
+		this.manager = manager;
+	}
+
+	/**
+	 * Returns the shared texture for the given file, loading it if necessary
+	 *
+	 * @param filename The filename for the texture asset
+	 *
+	 * @return the shared texture for the given file
+	 */
+	public Texture acquire(String filename) {
+		int count = counts.get(filename, 0);
+		if (count == 0) {
+			manager.load(filename, Texture.class);
+			manager.finishLoadingAsset(filename);
+		}
+		counts.put(filename, count + 1);
+		return manager.get(filename, Texture.class);
+	}
+
+	/**
+	 * Releases a texture returned by acquire
+	 *
+	 * The texture is unloaded when the last reference to it is released.
+	 *
+	 * @param filename The filename for the texture asset
+	 */
+	public void release(String filename) {
+		int count = counts.get(filename, 0);
+		if (count == 0) {
+			Gdx.app.error("TextureRegistry", "Texture "+filename+" was not acquired", new IllegalStateException());
+			return;
+		}
+		if (count == 1) {
+			counts.remove(filename, 0);
+			manager.unload(filename);
+		} else {
+			counts.put(filename, count - 1);
+		}
+	}
+
+	/**
+	 * Releases a texture returned by acquire
+	 *
+	 * @param texture The texture to release (may be null)
+	 */
+	public void release(Texture texture) {
+		if (texture != null) {
+			release(manager.getAssetFileName(texture));
+		}
+	}
+
+	/**
+	 * Returns the number of textures currently held through this registry
+	 *
+	 * This is useful for checking that nothing leaks across level restarts.
+	 *
+	 * @return the number of textures currently held through this registry
+	 */
+	public int size() {
+		return counts.size;
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * AssetPacker.java
+ *
+ * Tiles, walls and animations are all separate images.  Drawn as they are, almost
+ * every sprite binds a new texture and breaks the sprite batch.  This class packs
+ * each of the large image directories into a texture atlas at build time, so that
+ * the game can draw them from a handful of shared pages.
+ *
+ * This is run by the packTextures task in the desktop project.  It is never part
+ * of the game itself.
+ */
+package edu.cornell.gdiac.rekindled.desktop;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+
+/**
+ * The build-time texture atlas packer.
+ *
+ * Each directory in GROUPS is packed into its own atlas in the atlas directory,
+ * named after the directory.  This must agree with WorldController.ATLAS_GROUPS,
+ * which looks the regions up at runtime.
+ */
+public class AssetPacker {
+	/** The asset directories to pack, one atlas each */
+	private static final String[] GROUPS = {"wall", "hole", "spritesheets", "tutorial"};
+	/** The output directory, relative to the asset directory */
+	private static final String ATLAS_DIR = "atlas";
+	/** The largest page size supported by every target GPU */
+	private static final int MAX_PAGE_SIZE = 4096;
+
+	/**
+	 * Packs every group, skipping those whose images have not changed.
+	 *
+	 * @param arg Command line arguments (the asset directory, optional)
+	 */
+	public static void main (String[] arg) {
+		String assets = arg.length > 0 ? arg[0] : "../core/assets";
+
+		TexturePacker.Settings settings = new TexturePacker.Settings();
+		settings.maxWidth  = MAX_PAGE_SIZE;
+		settings.maxHeight = MAX_PAGE_SIZE;
+		// FilmStrip and TextureRegion.split assume upright, unstripped frames
+		settings.rotation = false;
+		settings.stripWhitespaceX = false;
+		settings.stripWhitespaceY = false;
+		// Region names are file names, even when they end in a number
+		settings.useIndexes = false;
+		settings.ignoreBlankImages = false;
+		settings.combineSubdirectories = true;
+		settings.filterMin = Texture.TextureFilter.Linear;
+		settings.filterMag = Texture.TextureFilter.Linear;
+		settings.paddingX = 2;
+		settings.paddingY = 2;
+		settings.duplicatePadding = true;
+
+		for (String group : GROUPS) {
+			TexturePacker.processIfModified(settings, assets+"/"+group, assets+"/"+ATLAS_DIR, group);
+		}
+	}
+}
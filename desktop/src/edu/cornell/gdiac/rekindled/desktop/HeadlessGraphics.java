@@ -0,0 +1,155 @@
+/*
+ * HeadlessGraphics.java
+ *
+ * The headless backend has no OpenGL at all, so anything that makes a texture, a
+ * shader or a frame buffer fails.  The game makes all three while loading a level
+ * (the board tiles, the sprite batch and the light maps of box2dlights).  This class
+ * stands in a GL that accepts every call and does nothing, so that a level loads
+ * and runs exactly as in the game, without drawing anything.
+ *
+ * This is only used by the headless simulation.  It is never part of the game itself.
+ */
+package edu.cornell.gdiac.rekindled.desktop;
+
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * A graphics module with a no-op GL, and the window size of the game.
+ *
+ * The window size matters: the light maps and the camera are sized from it, and
+ * the lighting the player sees depends on what the camera culls.
+ */
+public class HeadlessGraphics extends MockGraphics {
+	/** The width of the game window */
+	public static final int WIDTH = 1280;
+	/** The height of the game window */
+	public static final int HEIGHT = 720;
+
+	/** The no-op GL (MockGraphics keeps none, and answers null) */
+	private GL20 gl;
+
+	/**
+	 * Creates a graphics module with a no-op GL.
+	 */
+	public HeadlessGraphics() {
+		gl = createGL();
+	}
+
+	@Override
+	public GL20 getGL20() {
+		return gl;
+	}
+
+	@Override
+	public void setGL20(GL20 gl20) {
+		gl = gl20;
+	}
+
+	@Override
+	public GL30 getGL30() {
+		return null;
+	}
+
+	@Override
+	public int getWidth() {
+		return WIDTH;
+	}
+
+	@Override
+	public int getHeight() {
+		return HEIGHT;
+	}
+
+	@Override
+	public int getBackBufferWidth() {
+		return WIDTH;
+	}
+
+	@Override
+	public int getBackBufferHeight() {
+		return HEIGHT;
+	}
+
+	/**
+	 * Returns a GL that accepts every call and does nothing.
+	 *
+	 * Shaders always compile and link, frame buffers are always complete, and every
+	 * new GL object gets a fresh id.  Every other query answers zero (or false, or the
+	 * empty string).  In particular, uniforms and attributes are found at location 0,
+	 * since a shader program throws if one is missing.
+	 *
+	 * @return a GL that accepts every call and does nothing
+	 */
+	public static GL20 createGL() {
+		return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(),
+				new Class<?>[] { GL20.class }, new NoGL());
+	}
+
+	/**
+	 * The handler behind the no-op GL.
+	 */
+	private static class NoGL implements InvocationHandler {
+		/** The id of the last GL object created */
+		private int lastId;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			if (name.equals("glCheckFramebufferStatus")) {
+				return GL20.GL_FRAMEBUFFER_COMPLETE;
+			} else if (name.startsWith("glGen") || name.startsWith("glCreate")) {
+				if (method.getReturnType() == int.class) {
+					return ++lastId;
+				}
+				// glGenBuffers and the like fill a buffer with n ids
+				IntBuffer ids = (IntBuffer) args[1];
+				for (int ii = 0; ii < (Integer) args[0]; ii++) {
+					ids.put(ids.position() + ii, ++lastId);
+				}
+				return null;
+			} else if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv") ||
+					name.equals("glGetIntegerv")) {
+				int pname = (Integer) args[args.length - 2];
+				boolean status = pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS;
+				((IntBuffer) args[args.length - 1]).put(0, status ? 1 : 0);
+				return null;
+			} else if (name.equals("toString")) {
+				return "NoGL";
+			} else if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			} else if (name.equals("equals")) {
+				return proxy == args[0];
+			}
+			return defaultValue(method.getReturnType());
+		}
+
+		/**
+		 * Returns the value a no-op call answers for the given type.
+		 *
+		 * @param type The return type of the call
+		 *
+		 * @return the value a no-op call answers for the given type.
+		 */
+		private static Object defaultValue(Class<?> type) {
+			if (type == int.class) {
+				return 0;
+			} else if (type == boolean.class) {
+				return false;
+			} else if (type == float.class) {
+				return 0f;
+			} else if (type == long.class) {
+				return 0L;
+			} else if (type == String.class) {
+				return "";
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * HeadlessLauncher.java
+ *
+ * Launches the headless simulation of the game, for machines with no GPU (such as
+ * the build machines).  It must be run from the asset directory, as the game is.
+ *
+ * This is run by the runHeadless task in the desktop project.  It is never part of
+ * the game itself.
+ */
+package edu.cornell.gdiac.rekindled.desktop;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import edu.cornell.gdiac.rekindled.GDXRoot;
+
+/**
+ * The main class of the headless simulation.
+ *
+ * The options are
+ *
+ *   --levels 0,3,5   the levels to run (indices into GDXRoot.LEVELS, default all)
+ *   --ticks 10000    the number of ticks to run each level
+ *   --seed 0         the seed of the scripted keyboard
+ *   --allocations N  check that each level allocates nothing after N warmup ticks
+ *                    (the player only walks; exits with status 1 on failure;
+ *                    run the JVM with -Xbatch, as the checkAllocations task does)
+ *   --verify         check that the prebuilt data of each level matches the level,
+ *                    and that enemies are drawn between their last two ticks
+ *                    (exits with status 1 on failure)
+ */
+public class HeadlessLauncher {
+	/** The default number of ticks to run each level */
+	private static final int DEFAULT_TICKS = 10000;
+
+	/**
+	 * Starts a headless application that runs the simulation.
+	 *
+	 * @param arg Command line arguments
+	 */
+	public static void main (String[] arg) {
+		int[] levels = null;
+		int ticks = DEFAULT_TICKS;
+		long seed = 0;
+		int warmup = -1;
+		boolean verify = false;
+		for (int ii = 0; ii < arg.length; ii++) {
+			if (arg[ii].equals("--verify")) {
+				verify = true;
+			} else if (ii + 1 == arg.length) {
+				throw new IllegalArgumentException("No value for " + arg[ii]);
+			} else if (arg[ii].equals("--levels")) {
+				levels = parseLevels(arg[++ii]);
+			} else if (arg[ii].equals("--ticks")) {
+				ticks = Integer.parseInt(arg[++ii]);
+			} else if (arg[ii].equals("--seed")) {
+				seed = Long.parseLong(arg[++ii]);
+			} else if (arg[ii].equals("--allocations")) {
+				warmup = Integer.parseInt(arg[++ii]);
+			} else {
+				throw new IllegalArgumentException("Unknown option " + arg[ii]);
+			}
+		}
+		if (levels == null) {
+			levels = new int[GDXRoot.LEVELS.length];
+			for (int ii = 0; ii < levels.length; ii++) {
+				levels[ii] = ii;
+			}
+		}
+
+		HeadlessRunner runner = new HeadlessRunner(levels, ticks, seed);
+		if (warmup >= 0) {
+			runner.checkAllocations(warmup);
+		}
+		if (verify) {
+			runner.verifyLevels();
+		}
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		new HeadlessApplication(runner, config);
+	}
+
+	/**
+	 * Returns the levels in a comma-separated list of indices
+	 *
+	 * @param list The comma-separated list of indices
+	 *
+	 * @return the levels in a comma-separated list of indices
+	 */
+	private static int[] parseLevels(String list) {
+		String[] parts = list.split(",");
+		int[] levels = new int[parts.length];
+		for (int ii = 0; ii < parts.length; ii++) {
+			levels[ii] = Integer.parseInt(parts[ii].trim());
+			if (levels[ii] < 0 || levels[ii] >= GDXRoot.LEVELS.length) {
+				throw new IllegalArgumentException("No level " + levels[ii]);
+			}
+		}
+		return levels;
+	}
+}
@@ -0,0 +1,454 @@
+/*
+ * HeadlessRunner.java
+ *
+ * Runs levels of the game with no window, no GPU and no sound.  Each level is loaded,
+ * reset and stepped exactly as in the game (board lighting, enemy AI, Box2D physics
+ * and the win and loss rules all run), but nothing is drawn.  The player is driven
+ * by a scripted keyboard, and the level restarts whenever it is won or lost.
+ *
+ * It can also check that the steady state of each level allocates nothing, since
+ * garbage collection pauses show up as stutter in the game, and it can verify that
+ * the data built for each level ahead of time matches the level the game loads, and
+ * that moving enemies are drawn smoothly between ticks.
+ *
+ * This is started by HeadlessLauncher.  It is never part of the game itself.
+ */
+package edu.cornell.gdiac.rekindled.desktop;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGeneratorLoader;
+import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.JsonReader;
+import edu.cornell.gdiac.rekindled.AIController;
+import edu.cornell.gdiac.rekindled.Enemy;
+import edu.cornell.gdiac.rekindled.GDXRoot;
+import edu.cornell.gdiac.rekindled.GameCanvas;
+import edu.cornell.gdiac.rekindled.GameplayController;
+import edu.cornell.gdiac.rekindled.InputController;
+import edu.cornell.gdiac.rekindled.VisibilitySet;
+import edu.cornell.gdiac.rekindled.WorldController;
+import edu.cornell.gdiac.util.ScreenListener;
+import edu.cornell.gdiac.util.TextureRegistry;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * The headless simulation of a list of levels.
+ *
+ * The simulation runs in create(), and exits the application when it is done.  For
+ * each level it reports the ticks run, the wins and losses, and the speed.  Enemy
+ * planning is given an unlimited budget, so that a run with the same seed always
+ * plays out the same way.
+ *
+ * When allocations are checked, the walker only walks (toggling or throwing a light
+ * is an event, not the steady state).  After a warmup when the level starts (and a
+ * shorter settle after every restart), the bytes allocated by this thread and by the
+ * fork-join threads that plan enemies in parallel are measured around every tick,
+ * and the ticks that allocate anything are reported.  A tick in which the JVM loads a
+ * class or compiles a method, or a fork-join thread starts or stops, is set aside:
+ * the JVM allocates for each (compiling a method first creates every string literal
+ * of its class), but only once per run.  The application exits with status 1 if any
+ * tick of any level allocated.
+ *
+ * Run the check with -Xbatch.  Otherwise a method is compiled in the background, and
+ * the tick that asked for it cannot be told apart from the rest.
+ *
+ * When levels are verified, the walls that VisibilityBuilder reads from each level
+ * JSON must hash the same as the walls of the loaded board.  If not, the prebuilt
+ * visibility set is stale on arrival, and is rebuilt at every load.  Each level is
+ * also run with frames half a tick out of step with the ticks, and every enemy that
+ * moves must be drawn halfway between its last two tick positions.  The application
+ * exits with status 1 if any level fails.
+ */
+public class HeadlessRunner implements ApplicationListener, ScreenListener {
+	/** No exit was requested this tick */
+	private static final int NO_EXIT = -1;
+	/** The ticks to skip after a restart before checking allocations again */
+	private static final int SETTLE_TICKS = 60;
+	/** The ticks to run each level when verifying that enemies are interpolated */
+	private static final int VERIFY_TICKS = 300;
+	/** How far (in world units) a drawn position may be from where it should be */
+	private static final float DRAW_TOLERANCE = 0.001f;
+
+	/** The levels to run (indices into GDXRoot.LEVELS) */
+	private int[] levels;
+	/** The number of ticks to run each level */
+	private int ticks;
+	/** The scripted keyboard */
+	private ScriptedInput input;
+
+	/** AssetManager to load game assets (textures, sounds, etc.) */
+	private AssetManager manager;
+	/** The exit requested by the level this tick */
+	private int exitCode;
+
+	/** The ticks to skip after a level starts before checking allocations (-1 for no check) */
+	private int warmup;
+	/** The thread allocation counter (null if allocations are not checked) */
+	private com.sun.management.ThreadMXBean threads;
+	/** The class loading counter (null if allocations are not checked) */
+	private ClassLoadingMXBean classes;
+	/** The JIT code cache pools (null if allocations are not checked) */
+	private MemoryPoolMXBean[] codeCache;
+	/** The threads measured: this one, then every fork-join thread */
+	private long[] measured;
+	/** The live threads (scratch space to find the fork-join threads) */
+	private Thread[] live;
+	/** The bytes the allocation counter allocates itself, per reading */
+	private long probeBytes;
+	/** Whether any level allocated in the steady state */
+	private boolean allocated;
+	/** Whether to verify the prebuilt data and the render interpolation of each level */
+	private boolean verify;
+	/** Whether any level failed verification */
+	private boolean failed;
+
+	/**
+	 * Creates a runner for the given levels.
+	 *
+	 * @param levels The levels to run (indices into GDXRoot.LEVELS)
+	 * @param ticks The number of ticks to run each level
+	 * @param seed The seed of the scripted keyboard
+	 */
+	public HeadlessRunner(int[] levels, int ticks, long seed) {
+		this.levels = levels;
+		this.ticks = ticks;
+		input = new ScriptedInput(seed);
+		warmup = -1;
+	}
+
+	/**
+	 * Checks that each level allocates nothing in its steady state.
+	 *
+	 * This requires a HotSpot JVM (for the per-thread allocation counter), run with
+	 * -Xbatch.
+	 *
+	 * @param warmup The ticks to skip after a level starts
+	 */
+	public void checkAllocations(int warmup) {
+		this.warmup = warmup;
+		input.setActions(false);
+	}
+
+	/**
+	 * Verifies the prebuilt data and the render interpolation of each level.
+	 */
+	public void verifyLevels() {
+		verify = true;
+	}
+
+	/**
+	 * Runs every level, and then exits the application.
+	 */
+	public void create() {
+		Gdx.graphics = new HeadlessGraphics();
+		Gdx.gl = Gdx.gl20 = Gdx.graphics.getGL20();
+		Gdx.input = input;
+		InputController.getInstance().setArrow();
+
+		manager = new AssetManager();
+		FileHandleResolver resolver = new InternalFileHandleResolver();
+		manager.setLoader(FreeTypeFontGenerator.class, new FreeTypeFontGeneratorLoader(resolver));
+		manager.setLoader(BitmapFont.class, ".ttf", new FreetypeFontLoader(resolver));
+		TextureRegistry.getInstance().setManager(manager);
+
+		if (warmup >= 0) {
+			threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			threads.setThreadAllocatedMemoryEnabled(true);
+			classes = ManagementFactory.getClassLoadingMXBean();
+			codeCache = findCodeCache();
+			measured = new long[] { Thread.currentThread().getId() };
+			live = new Thread[16];
+			probeBytes = calibrate();
+		}
+
+		GameCanvas canvas = new GameCanvas();
+		System.out.println("level\tticks\twins\tlosses\tms\tticks/s" +
+				(warmup >= 0 ? "\tchecked\twarming\tallocating\tbytes" : ""));
+		for (int level : levels) {
+			runLevel(level, canvas);
+		}
+
+		canvas.dispose();
+		manager.clear();
+		manager.dispose();
+		if (allocated) {
+			System.out.println("FAILED: the steady state allocated (see the allocating column)");
+			System.exit(1);
+		}
+		if (failed) {
+			System.out.println("FAILED: a level failed verification (see above)");
+			System.exit(1);
+		}
+		Gdx.app.exit();
+	}
+
+	/**
+	 * Returns the memory pools of the JIT code cache
+	 *
+	 * HotSpot has one pool before Java 9, and one per code heap after.
+	 *
+	 * @return the memory pools of the JIT code cache
+	 */
+	private static MemoryPoolMXBean[] findCodeCache() {
+		List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.NON_HEAP && pool.getName().startsWith("Code")) {
+				pools.add(pool);
+			}
+		}
+		return pools.toArray(new MemoryPoolMXBean[pools.size()]);
+	}
+
+	/**
+	 * Updates the threads measured, and calibrates the counter if they changed.
+	 *
+	 * @return true if the fork-join threads changed since the last update
+	 */
+	private boolean updateMeasured() {
+		int count;
+		while ((count = Thread.enumerate(live)) == live.length) {
+			live = new Thread[live.length * 2];
+		}
+		int workers = 0;
+		for (int ii = 0; ii < count; ii++) {
+			if (live[ii] instanceof ForkJoinWorkerThread) {
+				workers++;
+			}
+		}
+		boolean changed = workers != measured.length - 1;
+		int idx = 1;
+		for (int ii = 0; ii < count && !changed; ii++) {
+			if (live[ii] instanceof ForkJoinWorkerThread) {
+				changed = live[ii].getId() != measured[idx++];
+			}
+		}
+		if (changed) {
+			measured = Arrays.copyOf(measured, workers + 1);
+			idx = 1;
+			for (int ii = 0; ii < count; ii++) {
+				if (live[ii] instanceof ForkJoinWorkerThread) {
+					measured[idx++] = live[ii].getId();
+				}
+			}
+			probeBytes = calibrate();
+		}
+		Arrays.fill(live, 0, count, null);
+		return changed;
+	}
+
+	/**
+	 * Returns the bytes allocated by the measured threads so far
+	 *
+	 * @return the bytes allocated by the measured threads so far
+	 */
+	private long allocatedBytes() {
+		long total = 0;
+		for (long bytes : threads.getThreadAllocatedBytes(measured)) {
+			if (bytes > 0) {
+				total += bytes;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Returns a count that changes whenever the JVM loads a class or compiles a method
+	 *
+	 * @return the classes loaded plus the bytes of compiled code
+	 */
+	private long warmupEvents() {
+		long events = classes.getTotalLoadedClassCount();
+		for (MemoryPoolMXBean pool : codeCache) {
+			events += pool.getUsage().getUsed();
+		}
+		return events;
+	}
+
+	/**
+	 * Returns the bytes that reading the allocation counter allocates by itself.
+	 *
+	 * Some JVMs allocate a small array on every reading.  This is the least seen over
+	 * many back to back readings, and is subtracted from every measurement.
+	 *
+	 * @return the bytes that reading the allocation counter allocates by itself
+	 */
+	private long calibrate() {
+		long least = Long.MAX_VALUE;
+		for (int ii = 0; ii < 1000; ii++) {
+			long before = allocatedBytes();
+			long after = allocatedBytes();
+			least = Math.min(least, after - before);
+		}
+		return least;
+	}
+
+	/**
+	 * Loads a level, runs it for the given number of ticks, and reports the results.
+	 *
+	 * @param level The level to run (an index into GDXRoot.LEVELS)
+	 * @param canvas The (never drawn) canvas of the level
+	 */
+	private void runLevel(int level, GameCanvas canvas) {
+		GameplayController controller = new GameplayController(GDXRoot.LEVELS[level], level);
+		controller.preLoadContent(manager);
+		manager.finishLoading();
+		controller.loadContent(manager);
+		controller.setScreenListener(this);
+		controller.setCanvas(canvas);
+		controller.setPlanningBudget(Integer.MAX_VALUE);
+		controller.reset();
+		input.release();
+		if (verify) {
+			verifyLevel(level, controller);
+		}
+
+		int wins = 0;
+		int losses = 0;
+		int settle = warmup;
+		int checked = 0;
+		int warming = 0;
+		int allocating = 0;
+		long bytes = 0;
+		float step = controller.getWorldStep();
+		long start = System.nanoTime();
+		for (int ii = 0; ii < ticks; ii++) {
+			exitCode = NO_EXIT;
+			boolean check = warmup >= 0 && settle-- <= 0;
+			if (check) {
+				updateMeasured();
+			}
+			long events = check ? warmupEvents() : 0;
+			long before = check ? allocatedBytes() : 0;
+			input.step();
+			controller.simulate(step);
+			long after = check ? allocatedBytes() : 0;
+			if (exitCode == WorldController.EXIT_COMPLETE) {
+				wins++;
+			} else if (exitCode == WorldController.EXIT_LOST) {
+				losses++;
+			}
+			if (exitCode != NO_EXIT) {
+				// The tick that ends a level is not the steady state
+				controller.reset();
+				input.release();
+				settle = SETTLE_TICKS;
+			} else if (check && (warmupEvents() != events || updateMeasured())) {
+				warming++;
+			} else if (check) {
+				checked++;
+				long delta = after - before - probeBytes;
+				if (delta > 0) {
+					allocating++;
+					bytes += delta;
+				}
+			}
+		}
+		long millis = (System.nanoTime() - start) / 1000000L;
+		allocated |= allocating > 0;
+
+		System.out.println(GDXRoot.LEVELS[level] + "\t" + ticks + "\t" + wins + "\t" + losses + "\t" +
+				millis + "\t" + (millis == 0 ? "-" : Long.toString(ticks * 1000L / millis)) +
+				(warmup >= 0 ? "\t" + checked + "\t" + warming + "\t" + allocating + "\t" + bytes : ""));
+		controller.unloadContent(manager);
+		controller.dispose();
+	}
+
+	/**
+	 * Checks the prebuilt data and the render interpolation of a level.
+	 *
+	 * This runs the level for a while, so the level is reset afterwards.
+	 *
+	 * @param level The level loaded (an index into GDXRoot.LEVELS)
+	 * @param controller The controller of the level
+	 */
+	private void verifyLevel(int level, GameplayController controller) {
+		String path = GDXRoot.LEVELS[level];
+		int built = VisibilitySet.hashWalls(VisibilityBuilder.readWalls(Gdx.files.internal(path), new JsonReader()));
+		int loaded = VisibilitySet.hashWalls(controller.getBoard());
+		if (built != loaded) {
+			System.out.println(path + ": visibility walls hash " + built + ", board walls hash " + loaded);
+			failed = true;
+		}
+
+		// Half a tick first, so that every later frame draws halfway between two ticks
+		float step = controller.getWorldStep();
+		controller.simulate(step / 2);
+		AIController[] controls = controller.getControllers();
+		Vector2[] before = new Vector2[controls.length];
+		for (int ii = 0; ii < before.length; ii++) {
+			before[ii] = new Vector2();
+		}
+		int moves = 0;
+		boolean misdrawn = false;
+		exitCode = NO_EXIT;
+		for (int ii = 0; ii < VERIFY_TICKS && exitCode == NO_EXIT && !misdrawn; ii++) {
+			for (int jj = 0; jj < controls.length; jj++) {
+				before[jj].set(controls[jj].getEnemy().getPosition());
+			}
+			controller.simulate(step);
+			for (int jj = 0; jj < controls.length && !misdrawn; jj++) {
+				Enemy enemy = controls[jj].getEnemy();
+				Vector2 after = enemy.getPosition();
+				if (after.epsilonEquals(before[jj], 0)) {
+					continue;
+				}
+				moves++;
+				float x = (before[jj].x + after.x) / 2;
+				float y = (before[jj].y + after.y) / 2;
+				misdrawn = Math.abs(enemy.getDrawX() - x) > DRAW_TOLERANCE || Math.abs(enemy.getDrawY() - y) > DRAW_TOLERANCE;
+				if (misdrawn) {
+					System.out.println(path + ": enemy " + jj + " moved from " + before[jj] + " to " + after +
+							" but was drawn at (" + enemy.getDrawX() + "," + enemy.getDrawY() + ")");
+					failed = true;
+				}
+			}
+		}
+		if (moves == 0 && controls.length > 0) {
+			System.out.println(path + ": no enemy moved, so interpolation was not checked");
+		}
+
+		controller.reset();
+		input.release();
+	}
+
+	/**
+	 * Records the exit a level requested, so the level can be restarted.
+	 *
+	 * @param screen   The screen requesting to exit
+	 * @param exitCode The state of the screen upon exit
+	 */
+	public void exitScreen(Screen screen, int exitCode) {
+		this.exitCode = exitCode;
+	}
+
+	public void resize(int width, int height) {
+	}
+
+	public void render() {
+	}
+
+	public void pause() {
+	}
+
+	public void resume() {
+	}
+
+	public void dispose() {
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * ScriptedInput.java
+ *
+ * The headless backend has no keyboard, but the game reads the keyboard every frame
+ * through InputController.  This class stands in a keyboard whose keys are held by
+ * a script instead: a random walk, driven by a seed so that a run can be repeated.
+ *
+ * This is only used by the headless simulation.  It is never part of the game itself.
+ */
+package edu.cornell.gdiac.rekindled.desktop;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+import com.badlogic.gdx.utils.IntSet;
+
+import java.util.Random;
+
+/**
+ * A keyboard driven by a seeded random walk.
+ *
+ * Every few ticks the walker picks a new arrow key to hold (or none).  Now and then
+ * it also taps the space bar (to toggle a light) or shift (to throw one), unless
+ * actions are turned off.  The arrows are read as the arrow controls, so the input
+ * controller must be set to arrows rather than WASD.
+ */
+public class ScriptedInput extends MockInput {
+	/** The number of ticks between changes of direction */
+	private static final int WALK_TICKS = 30;
+	/** The chance that a tick taps the space bar */
+	private static final float TOGGLE_CHANCE = 0.01f;
+	/** The chance that a tick taps shift */
+	private static final float THROW_CHANCE = 0.005f;
+	/** The keys the walker may hold (none is allowed) */
+	private static final int[] ARROWS = {
+		Input.Keys.UP, Input.Keys.DOWN, Input.Keys.LEFT, Input.Keys.RIGHT, -1
+	};
+
+	/** The keys currently held */
+	private IntSet held;
+	/** The random source of the walk */
+	private Random random;
+	/** The arrow key currently held (-1 if none) */
+	private int arrow;
+	/** The number of ticks until the next change of direction */
+	private int countdown;
+	/** Whether the walker taps the space bar and shift */
+	private boolean actions;
+
+	/**
+	 * Creates a keyboard for the given seed, with no keys held
+	 *
+	 * @param seed The seed of the random walk
+	 */
+	public ScriptedInput(long seed) {
+		held = new IntSet();
+		random = new Random(seed);
+		arrow = -1;
+		actions = true;
+	}
+
+	/**
+	 * Sets whether the walker taps the space bar and shift (it does by default)
+	 *
+	 * @param value whether the walker taps the space bar and shift
+	 */
+	public void setActions(boolean value) {
+		actions = value;
+	}
+
+	/**
+	 * Advances the walk by one tick, changing which keys are held.
+	 *
+	 * Call this once before each simulation tick.
+	 */
+	public void step() {
+		held.clear();
+		if (countdown <= 0) {
+			arrow = ARROWS[random.nextInt(ARROWS.length)];
+			countdown = WALK_TICKS;
+		}
+		countdown--;
+		if (arrow != -1) {
+			held.add(arrow);
+		}
+		if (!actions) {
+			return;
+		}
+		if (random.nextFloat() < TOGGLE_CHANCE) {
+			held.add(Input.Keys.SPACE);
+		}
+		if (random.nextFloat() < THROW_CHANCE) {
+			held.add(Input.Keys.SHIFT_LEFT);
+		}
+	}
+
+	/**
+	 * Releases every key, and restarts the walk (but not its random source).
+	 */
+	public void release() {
+		held.clear();
+		arrow = -1;
+		countdown = 0;
+	}
+
+	@Override
+	public boolean isKeyPressed(int key) {
+		if (key == Input.Keys.ANY_KEY) {
+			return held.size > 0;
+		}
+		return held.contains(key);
+	}
+}
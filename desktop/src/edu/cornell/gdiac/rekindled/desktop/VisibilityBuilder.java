@@ -0,0 +1,106 @@
+/*
+ * VisibilityBuilder.java
+ *
+ * Enemy sight is answered from a precomputed visibility set for each level.  The
+ * game builds a missing or stale set when the level loads, but that stalls the
+ * first load on large levels.  This class builds the sets for every level JSON at
+ * build time instead, and saves each one next to its level.
+ *
+ * This is run by the buildVisibility task in the desktop project.  It is never part
+ * of the game itself.
+ */
+package edu.cornell.gdiac.rekindled.desktop;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.gdiac.rekindled.Constants;
+import edu.cornell.gdiac.rekindled.VisibilitySet;
+
+import java.io.File;
+
+/**
+ * The build-time visibility set builder.
+ *
+ * Every level in the level directory (and its subdirectories) gets a set, unless
+ * its saved set is already up to date.
+ */
+public class VisibilityBuilder {
+	/** The level directory, relative to the asset directory */
+	private static final String LEVEL_DIR = "jsons";
+
+	/**
+	 * Builds the set of every level, skipping those that are up to date.
+	 *
+	 * @param arg Command line arguments (the asset directory, optional)
+	 */
+	public static void main (String[] arg) {
+		String assets = arg.length > 0 ? arg[0] : "../core/assets";
+		build(new FileHandle(new File(assets, LEVEL_DIR)), new JsonReader());
+	}
+
+	/**
+	 * Builds the set of every level in the given directory, recursively.
+	 *
+	 * @param dir The directory to search
+	 * @param reader The JSON reader for the levels
+	 */
+	private static void build(FileHandle dir, JsonReader reader) {
+		for (FileHandle file : dir.list()) {
+			if (file.isDirectory()) {
+				build(file, reader);
+			} else if (file.extension().equals("json")) {
+				buildLevel(file, reader);
+			}
+		}
+	}
+
+	/**
+	 * Builds the set of one level, if it is not up to date.
+	 *
+	 * @param level The level JSON
+	 * @param reader The JSON reader for the levels
+	 */
+	private static void buildLevel(FileHandle level, JsonReader reader) {
+		VisibilitySet.Walls grid = readWalls(level, reader);
+		FileHandle output = level.sibling(level.nameWithoutExtension() + VisibilitySet.EXTENSION);
+		if (VisibilitySet.read(output, grid, Constants.SIGHT_CONE_RADIUS) == null) {
+			VisibilitySet.compute(grid, Constants.SIGHT_CONE_RADIUS).write(output);
+			System.out.println("Built " + output.path());
+		}
+	}
+
+	/**
+	 * Returns the walls of a level, as the board of the level has them.
+	 *
+	 * @param level The level JSON
+	 * @param reader The JSON reader for the levels
+	 *
+	 * @return the walls of a level, as the board of the level has them
+	 */
+	static VisibilitySet.Walls readWalls(FileHandle level, JsonReader reader) {
+		JsonValue json = reader.parse(level);
+		float[] dim = json.get("dimension").asFloatArray();
+		return new VisibilitySet.Walls((int) dim[0], (int) dim[1],
+				readPositions(json.get("walls")), readPositions(json.get("lights")));
+	}
+
+	/**
+	 * Returns the positions of a list of level objects, as x,y pairs
+	 *
+	 * @param list The objects in the level JSON
+	 *
+	 * @return the positions of a list of level objects, as x,y pairs
+	 */
+	private static int[] readPositions(JsonValue list) {
+		int[] positions = new int[list.size * 2];
+		int idx = 0;
+		for (JsonValue item = list.child(); item != null; item = item.next()) {
+			int[] pos = item.get("position").asIntArray();
+			positions[idx] = pos[0];
+			positions[idx + 1] = pos[1];
+			idx += 2;
+		}
+		return positions;
+	}
+}